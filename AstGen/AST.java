@@ -4,19 +4,46 @@ import MiniC.Scanner.SourcePos;
 
 public abstract class AST {
 
-    public SourcePos pos;
+    // The position of the node, start and end each packed into a long
+    // as line << 32 | column, instead of a SourcePos object per node.
+    // The constructor copies pos, so one SourcePos can be passed to
+    // many nodes.
+    long start, end;
 
     public AST (SourcePos pos) {
-        this.pos = new SourcePos();
-        this.pos.StartCol = pos.StartCol;
-        this.pos.EndCol = pos.EndCol;
-        this.pos.StartLine = pos.StartLine;
-        this.pos.EndLine = pos.EndLine;
+        setPosition(pos);
     }
 
+    // A new SourcePos, the caller may keep or change it.
     public SourcePos getPosition() {
+	SourcePos pos = new SourcePos();
+	pos.StartLine = (int) (start >>> 32);
+	pos.StartCol = (int) start;
+	pos.EndLine = (int) (end >>> 32);
+	pos.EndCol = (int) end;
 	return pos;
     }
 
+    public void setPosition(SourcePos pos) {
+	start = pack(pos.StartLine, pos.StartCol);
+	end = pack(pos.EndLine, pos.EndCol);
+    }
+
+    public int getLine() {
+	return (int) (start >>> 32);
+    }
+
+    // Moves the node down by lines, or up if negative.
+    public void shiftLines(int lines) {
+	start += (long) lines << 32;
+	end += (long) lines << 32;
+    }
+
+    private static long pack(int line, int col) {
+	return (long) line << 32 | (col & 0xFFFFFFFFL);
+    }
+
     public abstract void accept(Visitor v);
+
+    public abstract <R, C> R accept(ContextVisitor<R, C> v, C c);
 }
@@ -14,4 +14,8 @@ public class ActualParam extends Expr {
     public void accept(Visitor v) {
 	v.visit(this);
     }
+
+    public <R, C> R accept(ContextVisitor<R, C> v, C c) {
+	return v.visit(this, c);
+    }
 }
@@ -0,0 +1,35 @@
+package MiniC.AstGen;
+
+import MiniC.Scanner.SourcePos;
+
+// The actual parameters of a call held in an array, in place of a
+// chain of ActualParamSequence nodes ended by an EmptyActualParam.
+public class ActualParamList extends Expr {
+
+    public java.util.ArrayList<ActualParam> items;
+
+    public ActualParamList (java.util.ArrayList<ActualParam> items, SourcePos pos) {
+	super (pos);
+	this.items = items;
+	items.trimToSize();
+    }
+
+    // The ActualParamSequence chain of the items.
+    public Expr toSequence() {
+	SourcePos pos = getPosition();
+	Expr rest = new EmptyActualParam(pos);
+	for (int i = items.size() - 1; i >= 0; i--) {
+	    rest = new ActualParamSequence(items.get(i), rest, pos);
+	}
+	return rest;
+    }
+
+    public void accept(Visitor v) {
+	v.visit(this);
+    }
+
+    public <R, C> R accept(ContextVisitor<R, C> v, C c) {
+	return v.visit(this, c);
+    }
+
+}
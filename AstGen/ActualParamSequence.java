@@ -15,4 +15,8 @@ public class ActualParamSequence extends Expr {
     public void accept(Visitor v) {
 	v.visit(this);
     }
+
+    public <R, C> R accept(ContextVisitor<R, C> v, C c) {
+	return v.visit(this, c);
+    }
 }
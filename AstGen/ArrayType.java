@@ -8,7 +8,10 @@ public class ArrayType extends Type {
     public Expr astExpr;
 
     public ArrayType (Type astType, Expr astExpr, SourcePos pos) {
-	super (pos);
+	super (ARRAY,
+	       (astType.descriptor == null) ? null : "[" + astType.descriptor,
+	       "<" + astType.tag.substring(1, astType.tag.length() - 1) + "[]>",
+	       pos);
         this.astType = astType;
         this.astExpr = astExpr;
     }
@@ -17,11 +20,8 @@ public class ArrayType extends Type {
 	v.visit(this);
     }
 
-    public boolean Tequal (Type t) {
-	if (t != null && t instanceof ErrorType)
-	    return true;
-        else
-            return false;
+    public <R, C> R accept(ContextVisitor<R, C> v, C c) {
+	return v.visit(this, c);
     }
 
     public boolean AssignableTo (Type t) {
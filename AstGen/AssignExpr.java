@@ -17,4 +17,8 @@ public class AssignExpr extends Expr {
 	v.visit(this);
     }
 
+    public <R, C> R accept(ContextVisitor<R, C> v, C c) {
+	return v.visit(this, c);
+    }
+
 }
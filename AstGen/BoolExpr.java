@@ -15,4 +15,8 @@ public class BoolExpr extends Expr {
 	v.visit(this);
     }
 
+    public <R, C> R accept(ContextVisitor<R, C> v, C c) {
+	return v.visit(this, c);
+    }
+
 }
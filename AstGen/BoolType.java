@@ -5,26 +5,20 @@ import MiniC.Scanner.SourcePos;
 public class BoolType extends Type {
 
     public BoolType (SourcePos pos) {
-	super (pos);
+	super (BOOL, "Z", "<bool>", pos);
     }
 
     public void accept(Visitor v) {
 	v.visit(this);
     }
 
-    public boolean Tequal (Type t) {
-	if (t != null && t instanceof ErrorType)
-	    return true;
-	else
-	    return (t != null && t instanceof BoolType);
+    public <R, C> R accept(ContextVisitor<R, C> v, C c) {
+	return v.visit(this, c);
     }
 
     public boolean AssignableTo (Type t) {
 	//BoolType assignable to t ?
-	if (t != null && t instanceof ErrorType)
-	    return true;
-	else
-	    return (t != null && (t instanceof BoolType));
+	return (t != null && (t.kind == ERROR || t.kind == BOOL));
     }
 
 }
\ No newline at end of file
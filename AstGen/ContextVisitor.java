@@ -0,0 +1,75 @@
+package MiniC.AstGen;
+
+// A visitor whose visit methods return a result of type R, and are
+// given a context of type C from the caller. A pass keeps what it
+// needs on its way down the tree in the context, and hands what it
+// computes back up as the result, instead of both living in fields of
+// the visitor; one visitor can then walk several subtrees at once,
+// each with a context of its own.
+public interface ContextVisitor<R, C> {
+
+    // The list nodes are visited as the chains they stand for, as in
+    // Visitor.
+
+    // Program...
+    R visit(Program x, C c);
+
+    // ... and other bits and pieces...
+    R visit(EmptyDecl x, C c);
+    R visit(FunDecl x, C c);
+
+    R visit(VarDecl x, C c);
+    R visit(TypeDecl x, C c);
+    R visit(FormalParamDecl x, C c);
+    R visit(FormalParamDeclSequence x, C c);
+    default R visit(FormalParamDeclList x, C c) { return x.toSequence().accept(this, c); }
+    R visit(EmptyFormalParamDecl x, C c);
+    R visit(DeclSequence x, C c);
+    default R visit(DeclList x, C c) { return x.toSequence().accept(this, c); }
+    R visit(ErrorDecl x, C c);
+
+    R visit(AssignStmt x, C c);
+    R visit(IfStmt x, C c);
+    R visit(WhileStmt x, C c);
+    R visit(ForStmt x, C c);
+    R visit(ReturnStmt x, C c);
+    R visit(CompoundStmt x, C c);
+    R visit(EmptyCompoundStmt x, C c);
+    R visit(EmptyStmt x, C c);
+    R visit(StmtSequence x, C c);
+    default R visit(StmtList x, C c) { return x.toSequence().accept(this, c); }
+    R visit(CallStmt x, C c);
+    R visit(ErrorStmt x, C c);
+
+    R visit(VarExpr x, C c);
+    R visit(AssignExpr x, C c);
+    R visit(IntExpr x, C c);
+    R visit(FloatExpr x, C c);
+    R visit(BoolExpr x, C c);
+    R visit(ArrayExpr x, C c);
+    R visit(StringExpr x, C c);
+    R visit(BinaryExpr x, C c);
+    R visit(UnaryExpr x, C c);
+    R visit(EmptyExpr x, C c);
+    R visit(ActualParam x, C c);
+    R visit(EmptyActualParam x, C c);
+    R visit(ActualParamSequence x, C c);
+    default R visit(ActualParamList x, C c) { return x.toSequence().accept(this, c); }
+    R visit(CallExpr x, C c);
+    R visit(ExprSequence x, C c);
+    default R visit(ExprList x, C c) { return x.toSequence().accept(this, c); }
+    R visit(ID x, C c);
+    R visit(Operator x, C c);
+    R visit(IntLiteral x, C c);
+    R visit(FloatLiteral x, C c);
+    R visit(BoolLiteral x, C c);
+    R visit(StringLiteral x, C c);
+    R visit(IntType x, C c);
+    R visit(FloatType x, C c);
+    R visit(BoolType x, C c);
+    R visit(VoidType x, C c);
+    R visit(StringType x, C c);
+    R visit(ArrayType x, C c);
+    R visit(ErrorType x, C c);
+
+}
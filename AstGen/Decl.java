@@ -7,6 +7,11 @@ public abstract class Decl extends AST {
     private boolean global;
     public int index;
 
+    // The canonical type of a function, variable or formal parameter,
+    // see StdEnvironment.canonical(); set by semantic analysis, which
+    // leaves the type the parser built in place.
+    public Type type;
+
     public Decl (SourcePos pos) {
         super (pos);
         global = false;
@@ -0,0 +1,35 @@
+package MiniC.AstGen;
+
+import MiniC.Scanner.SourcePos;
+
+// A sequence of declarations held in an array, in place of a chain
+// of DeclSequence nodes ended by an EmptyDecl.
+public class DeclList extends Decl {
+
+    public java.util.ArrayList<Decl> items;
+
+    public DeclList (java.util.ArrayList<Decl> items, SourcePos pos) {
+	super (pos);
+	this.items = items;
+	items.trimToSize();
+    }
+
+    // The DeclSequence chain of the items.
+    public Decl toSequence() {
+	SourcePos pos = getPosition();
+	Decl rest = new EmptyDecl(pos);
+	for (int i = items.size() - 1; i >= 0; i--) {
+	    rest = new DeclSequence(items.get(i), rest, pos);
+	}
+	return rest;
+    }
+
+    public void accept(Visitor v) {
+	v.visit(this);
+    }
+
+    public <R, C> R accept(ContextVisitor<R, C> v, C c) {
+	return v.visit(this, c);
+    }
+
+}
@@ -30,16 +30,21 @@ public class DeclSequence extends Decl {
     }
 
     public DeclSequence GetRightmostDeclSequenceNode () {
-        assert (D2 != null);
-        if (D2.getClass() == DeclSequence.class) {
-           return ((DeclSequence)D2).GetRightmostDeclSequenceNode();
-        } else {
-           return this;
-        } 
+        DeclSequence node = this;
+        assert (node.D2 != null);
+        while (node.D2.getClass() == DeclSequence.class) {
+           node = (DeclSequence)node.D2;
+           assert (node.D2 != null);
+        }
+        return node;
     }
 
     public void accept(Visitor v) {
 	v.visit(this);
     }
+
+    public <R, C> R accept(ContextVisitor<R, C> v, C c) {
+	return v.visit(this, c);
+    }
  
 }
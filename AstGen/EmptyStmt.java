@@ -12,4 +12,8 @@ public class EmptyStmt extends Stmt {
 	v.visit(this);
     }
 
+    public <R, C> R accept(ContextVisitor<R, C> v, C c) {
+	return v.visit(this, c);
+    }
+
 }
@@ -0,0 +1,20 @@
+package MiniC.AstGen;
+
+import MiniC.Scanner.SourcePos;
+
+// Stands for a declaration the parser skipped after a syntax error.
+public class ErrorDecl extends Decl {
+
+    public ErrorDecl (SourcePos pos) {
+	super (pos);
+    }
+
+    public void accept(Visitor v) {
+	v.visit(this);
+    }
+
+    public <R, C> R accept(ContextVisitor<R, C> v, C c) {
+	return v.visit(this, c);
+    }
+
+}
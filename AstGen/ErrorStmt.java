@@ -0,0 +1,20 @@
+package MiniC.AstGen;
+
+import MiniC.Scanner.SourcePos;
+
+// Stands for a statement the parser skipped after a syntax error.
+public class ErrorStmt extends Stmt {
+
+    public ErrorStmt (SourcePos pos) {
+	super (pos);
+    }
+
+    public void accept(Visitor v) {
+	v.visit(this);
+    }
+
+    public <R, C> R accept(ContextVisitor<R, C> v, C c) {
+	return v.visit(this, c);
+    }
+
+}
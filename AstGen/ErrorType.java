@@ -5,18 +5,15 @@ import MiniC.Scanner.SourcePos;
 public class ErrorType extends Type {
 
     public ErrorType (SourcePos pos) {
-	super (pos);
+	super (ERROR, null, "<error>", pos);
     }
 
     public void accept(Visitor v) {
 	v.visit(this);
     }
 
-    public boolean Tequal (Type t) {
-	if (t != null && t instanceof ErrorType)
-	    return true;
-	else
-	    return (t != null && t instanceof ErrorType);
+    public <R, C> R accept(ContextVisitor<R, C> v, C c) {
+	return v.visit(this, c);
     }
 
     public boolean AssignableTo (Type t) {
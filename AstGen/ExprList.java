@@ -0,0 +1,35 @@
+package MiniC.AstGen;
+
+import MiniC.Scanner.SourcePos;
+
+// The expressions of an array initializer held in an array, in place
+// of a chain of ExprSequence nodes ended by an EmptyExpr.
+public class ExprList extends Expr {
+
+    public java.util.ArrayList<Expr> items;
+
+    public ExprList (java.util.ArrayList<Expr> items, SourcePos pos) {
+	super (pos);
+	this.items = items;
+	items.trimToSize();
+    }
+
+    // The ExprSequence chain of the items.
+    public Expr toSequence() {
+	SourcePos pos = getPosition();
+	Expr rest = new EmptyExpr(pos);
+	for (int i = items.size() - 1; i >= 0; i--) {
+	    rest = new ExprSequence(items.get(i), rest, pos);
+	}
+	return rest;
+    }
+
+    public void accept(Visitor v) {
+	v.visit(this);
+    }
+
+    public <R, C> R accept(ContextVisitor<R, C> v, C c) {
+	return v.visit(this, c);
+    }
+
+}
@@ -0,0 +1,588 @@
+package MiniC.AstGen;
+
+import MiniC.Scanner.SourcePos;
+
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+
+// The AST of a program in a few flat arrays instead of one object per
+// node, for passes over large programs that need no more than the
+// syntax tree. Node n has kind kind[n], the position packed as in AST,
+// and for a Terminal the lexeme, kept once in a pool of strings. Its
+// children, in the order the TreePrinter prints them, are node
+// indexes in children[first[n] ..], childCount(n) of them; -1 stands
+// for a missing one, as the else part of an if. A list node has its
+// items as children, any number of them; other kinds have a fixed
+// arity.
+//
+// Nodes are numbered in preorder, the root being 0. A Type node shared
+// by the declarators of one variable-def stays shared. The links
+// semantic analysis adds (Expr.type, ID.declAST, Decl.index) are not
+// kept.
+public final class FlatAST {
+
+    public static final int PROGRAM = 0;
+    public static final int EMPTY_DECL = 1;
+    public static final int FUN_DECL = 2;
+    public static final int VAR_DECL = 3;
+    public static final int TYPE_DECL = 4;
+    public static final int FORMAL_PARAM_DECL = 5;
+    public static final int FORMAL_PARAM_DECL_SEQUENCE = 6;
+    public static final int EMPTY_FORMAL_PARAM_DECL = 7;
+    public static final int DECL_SEQUENCE = 8;
+    public static final int ERROR_DECL = 9;
+    public static final int ASSIGN_STMT = 10;
+    public static final int IF_STMT = 11;
+    public static final int WHILE_STMT = 12;
+    public static final int FOR_STMT = 13;
+    public static final int RETURN_STMT = 14;
+    public static final int COMPOUND_STMT = 15;
+    public static final int EMPTY_COMPOUND_STMT = 16;
+    public static final int EMPTY_STMT = 17;
+    public static final int STMT_SEQUENCE = 18;
+    public static final int CALL_STMT = 19;
+    public static final int ERROR_STMT = 20;
+    public static final int VAR_EXPR = 21;
+    public static final int ASSIGN_EXPR = 22;
+    public static final int INT_EXPR = 23;
+    public static final int FLOAT_EXPR = 24;
+    public static final int BOOL_EXPR = 25;
+    public static final int ARRAY_EXPR = 26;
+    public static final int STRING_EXPR = 27;
+    public static final int BINARY_EXPR = 28;
+    public static final int UNARY_EXPR = 29;
+    public static final int EMPTY_EXPR = 30;
+    public static final int ACTUAL_PARAM = 31;
+    public static final int EMPTY_ACTUAL_PARAM = 32;
+    public static final int ACTUAL_PARAM_SEQUENCE = 33;
+    public static final int CALL_EXPR = 34;
+    public static final int EXPR_SEQUENCE = 35;
+    public static final int ID = 36;
+    public static final int OPERATOR = 37;
+    public static final int INT_LITERAL = 38;
+    public static final int FLOAT_LITERAL = 39;
+    public static final int BOOL_LITERAL = 40;
+    public static final int STRING_LITERAL = 41;
+    public static final int INT_TYPE = 42;
+    public static final int FLOAT_TYPE = 43;
+    public static final int BOOL_TYPE = 44;
+    public static final int VOID_TYPE = 45;
+    public static final int STRING_TYPE = 46;
+    public static final int ARRAY_TYPE = 47;
+    public static final int ERROR_TYPE = 48;
+    public static final int DECL_LIST = 49;
+    public static final int FORMAL_PARAM_DECL_LIST = 50;
+    public static final int STMT_LIST = 51;
+    public static final int ACTUAL_PARAM_LIST = 52;
+    public static final int EXPR_LIST = 53;
+
+    private static final String[] NAMES = {
+        "Program", "EmptyDecl", "FunDecl", "VarDecl", "TypeDecl",
+        "FormalParamDecl", "FormalParamDeclSequence", "EmptyFormalParamDecl",
+        "DeclSequence", "ErrorDecl",
+        "AssignStmt", "IfStmt", "WhileStmt", "ForStmt", "ReturnStmt",
+        "CompoundStmt", "EmptyCompoundStmt", "EmptyStmt", "StmtSequence",
+        "CallStmt", "ErrorStmt",
+        "VarExpr", "AssignExpr", "IntExpr", "FloatExpr", "BoolExpr",
+        "ArrayExpr", "StringExpr", "BinaryExpr", "UnaryExpr", "EmptyExpr",
+        "ActualParam", "EmptyActualParam", "ActualParamSequence", "CallExpr",
+        "ExprSequence",
+        "ID", "Operator", "IntLiteral", "FloatLiteral", "BoolLiteral",
+        "StringLiteral",
+        "IntType", "FloatType", "BoolType", "VoidType", "StringType",
+        "ArrayType", "ErrorType",
+        "DeclList", "FormalParamDeclList", "StmtList", "ActualParamList",
+        "ExprList"
+    };
+
+    private static final int[] ARITY = {
+        1, 0, 4, 3, 1, 2, 2, 0, 2, 0,
+        2, 3, 2, 4, 1, 2, 0, 0, 2, 1, 0,
+        1, 2, 1, 1, 1, 2, 1, 3, 2, 0, 1, 0, 2, 2, 2,
+        0, 0, 0, 0, 0, 0,
+        0, 0, 0, 0, 0, 2, 0,
+        -1, -1, -1, -1, -1
+    };
+
+    private int size;
+    private int[] kind;
+    private int[] first;
+    private int[] value;
+    private long[] start, end;
+
+    private int[] children;
+    private int childCount;
+
+    private String[] pool;
+    private int poolSize;
+
+    private FlatAST(int capacity) {
+        kind = new int[capacity];
+        first = new int[capacity];
+        value = new int[capacity];
+        start = new long[capacity];
+        end = new long[capacity];
+        children = new int[capacity];
+        pool = new String[16];
+    }
+
+    // The flat form of the tree at root.
+    public static FlatAST from(AST root) {
+        FlatAST flat = new FlatAST(1024);
+        Flattener flattener = new Flattener();
+        HashMap<String, Integer> poolIndex = new HashMap<String, Integer>();
+        IdentityHashMap<AST, Integer> types = new IdentityHashMap<AST, Integer>();
+
+        // nodes to number, each with the child slot to put its index in
+        AST[] nodes = new AST[64];
+        int[] slots = new int[64];
+        int top = 0;
+        nodes[top] = root;
+        slots[top++] = -1;
+        while (top > 0) {
+            AST x = nodes[--top];
+            int slot = slots[top];
+            nodes[top] = null;
+            if (x instanceof Type) {
+                Integer shared = types.get(x);
+                if (shared != null) {
+                    flat.children[slot] = shared;
+                    continue;
+                }
+                types.put(x, flat.size);
+            }
+            int n = flat.add(x, flattener, poolIndex);
+            if (slot >= 0) {
+                flat.children[slot] = n;
+            }
+            int arity = flattener.arity;
+            if (top + arity > nodes.length) {
+                nodes = java.util.Arrays.copyOf(nodes, 2 * (top + arity));
+                slots = java.util.Arrays.copyOf(slots, nodes.length);
+            }
+            // pushed last to first, so that they are numbered in order
+            for (int i = arity - 1; i >= 0; i--) {
+                if (flattener.kids[i] == null) {
+                    flat.children[flat.first[n] + i] = -1;
+                } else {
+                    nodes[top] = flattener.kids[i];
+                    slots[top++] = flat.first[n] + i;
+                }
+            }
+        }
+        return flat;
+    }
+
+    private int add(AST x, Flattener flattener, HashMap<String, Integer> poolIndex) {
+        if (size == kind.length) {
+            int capacity = 2 * size;
+            kind = java.util.Arrays.copyOf(kind, capacity);
+            first = java.util.Arrays.copyOf(first, capacity);
+            value = java.util.Arrays.copyOf(value, capacity);
+            start = java.util.Arrays.copyOf(start, capacity);
+            end = java.util.Arrays.copyOf(end, capacity);
+        }
+        flattener.lexeme = null;
+        x.accept(flattener);
+        int n = size++;
+        kind[n] = flattener.kind;
+        start[n] = x.start;
+        end[n] = x.end;
+        value[n] = -1;
+        if (flattener.lexeme != null) {
+            Integer v = poolIndex.get(flattener.lexeme);
+            if (v == null) {
+                if (poolSize == pool.length) {
+                    pool = java.util.Arrays.copyOf(pool, 2 * poolSize);
+                }
+                v = poolSize;
+                pool[poolSize++] = flattener.lexeme;
+                poolIndex.put(flattener.lexeme, v);
+            }
+            value[n] = v;
+        }
+        int arity = flattener.arity;
+        while (childCount + arity > children.length) {
+            children = java.util.Arrays.copyOf(children, 2 * children.length);
+        }
+        first[n] = childCount;
+        childCount += arity;
+        return n;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int kind(int n) {
+        return kind[n];
+    }
+
+    // The class name of the nodes of kind k.
+    public static String kindName(int k) {
+        return NAMES[k];
+    }
+
+    // The number of children of the nodes of kind k, missing ones
+    // included; -1 for the list kinds, whose nodes have any number.
+    public static int arity(int k) {
+        return ARITY[k];
+    }
+
+    // Whether the nodes of kind k are lists.
+    public static boolean isList(int k) {
+        return ARITY[k] < 0;
+    }
+
+    // The number of children of node n, missing ones included; the
+    // children of the nodes are allotted in preorder, so this is where
+    // those of node n + 1 start.
+    public int childCount(int n) {
+        return ((n + 1 < size) ? first[n + 1] : childCount) - first[n];
+    }
+
+    // Child i of node n, or -1 if missing.
+    public int child(int n, int i) {
+        return children[first[n] + i];
+    }
+
+    // The lexeme of node n, or null if it is no Terminal.
+    public String lexeme(int n) {
+        return (value[n] < 0) ? null : pool[value[n]];
+    }
+
+    public SourcePos getPosition(int n) {
+        SourcePos pos = new SourcePos();
+        pos.StartLine = (int) (start[n] >>> 32);
+        pos.StartCol = (int) start[n];
+        pos.EndLine = (int) (end[n] >>> 32);
+        pos.EndCol = (int) end[n];
+        return pos;
+    }
+
+    public int getLine(int n) {
+        return (int) (start[n] >>> 32);
+    }
+
+    // The tree at node 0 as AstGen objects.
+    public AST toAST() {
+        return toAST(0);
+    }
+
+    // The subtree at node root as AstGen objects, each node built once
+    // its children are.
+    public AST toAST(int root) {
+        AST[] built = new AST[size];
+        SourcePos pos = new SourcePos();
+        int[] nodes = new int[64];
+        int[] next = new int[64];
+        int top = 0;
+        nodes[top] = root;
+        next[top++] = 0;
+        while (top > 0) {
+            int n = nodes[top - 1];
+            int i = next[top - 1];
+            if (i < childCount(n)) {
+                next[top - 1]++;
+                int k = child(n, i);
+                if (k >= 0 && built[k] == null) {
+                    if (top == nodes.length) {
+                        nodes = java.util.Arrays.copyOf(nodes, 2 * top);
+                        next = java.util.Arrays.copyOf(next, 2 * top);
+                    }
+                    nodes[top] = k;
+                    next[top++] = 0;
+                }
+            } else {
+                top--;
+                AST x = build(n, built, pos);
+                x.start = start[n];
+                x.end = end[n];
+                built[n] = x;
+            }
+        }
+        return built[root];
+    }
+
+    private AST build(int n, AST[] built, SourcePos pos) {
+        int c = first[n];
+        int count = childCount(n);
+        AST a = (count > 0 && children[c] >= 0) ? built[children[c]] : null;
+        AST b = (count > 1 && children[c + 1] >= 0) ? built[children[c + 1]] : null;
+        AST d = (count > 2 && children[c + 2] >= 0) ? built[children[c + 2]] : null;
+        AST e = (count > 3 && children[c + 3] >= 0) ? built[children[c + 3]] : null;
+        String lexeme = lexeme(n);
+        switch (kind[n]) {
+        case PROGRAM: return new Program((Decl) a, pos);
+        case EMPTY_DECL: return new EmptyDecl(pos);
+        case FUN_DECL: return new FunDecl((Type) a, (ID) b, (Decl) d, (Stmt) e, pos);
+        case VAR_DECL: return new VarDecl((Type) a, (ID) b, (Expr) d, pos);
+        case TYPE_DECL: return new TypeDecl((Type) a, pos);
+        case FORMAL_PARAM_DECL: return new FormalParamDecl((Type) a, (ID) b, pos);
+        case FORMAL_PARAM_DECL_SEQUENCE: return new FormalParamDeclSequence((Decl) a, (Decl) b, pos);
+        case EMPTY_FORMAL_PARAM_DECL: return new EmptyFormalParamDecl(pos);
+        case DECL_SEQUENCE: return new DeclSequence((Decl) a, (Decl) b, pos);
+        case ERROR_DECL: return new ErrorDecl(pos);
+        case ASSIGN_STMT: return new AssignStmt((Expr) a, (Expr) b, pos);
+        case IF_STMT: return new IfStmt((Expr) a, (Stmt) b, (Stmt) d, pos);
+        case WHILE_STMT: return new WhileStmt((Expr) a, (Stmt) b, pos);
+        case FOR_STMT: return new ForStmt((Expr) a, (Expr) b, (Expr) d, (Stmt) e, pos);
+        case RETURN_STMT: return new ReturnStmt((Expr) a, pos);
+        case COMPOUND_STMT: return new CompoundStmt((Decl) a, (Stmt) b, pos);
+        case EMPTY_COMPOUND_STMT: return new EmptyCompoundStmt(pos);
+        case EMPTY_STMT: return new EmptyStmt(pos);
+        case STMT_SEQUENCE: return new StmtSequence((Stmt) a, (Stmt) b, pos);
+        case CALL_STMT: return new CallStmt((Expr) a, pos);
+        case ERROR_STMT: return new ErrorStmt(pos);
+        case VAR_EXPR: return new VarExpr((ID) a, pos);
+        case ASSIGN_EXPR: return new AssignExpr((Expr) a, (Expr) b, pos);
+        case INT_EXPR: return new IntExpr((IntLiteral) a, pos);
+        case FLOAT_EXPR: return new FloatExpr((FloatLiteral) a, pos);
+        case BOOL_EXPR: return new BoolExpr((BoolLiteral) a, pos);
+        case ARRAY_EXPR: return new ArrayExpr((Expr) a, (Expr) b, pos);
+        case STRING_EXPR: return new StringExpr((StringLiteral) a, pos);
+        case BINARY_EXPR: return new BinaryExpr((Expr) a, (Operator) b, (Expr) d, pos);
+        case UNARY_EXPR: return new UnaryExpr((Operator) a, (Expr) b, pos);
+        case EMPTY_EXPR: return new EmptyExpr(pos);
+        case ACTUAL_PARAM: return new ActualParam((Expr) a, pos);
+        case EMPTY_ACTUAL_PARAM: return new EmptyActualParam(pos);
+        case ACTUAL_PARAM_SEQUENCE: return new ActualParamSequence((Expr) a, (Expr) b, pos);
+        case CALL_EXPR: return new CallExpr((ID) a, (Expr) b, pos);
+        case EXPR_SEQUENCE: return new ExprSequence((Expr) a, (Expr) b, pos);
+        case ID: return new ID(lexeme, pos);
+        case OPERATOR: return new Operator(lexeme, pos);
+        case INT_LITERAL: return new IntLiteral(lexeme, pos);
+        case FLOAT_LITERAL: return new FloatLiteral(lexeme, pos);
+        case BOOL_LITERAL: return new BoolLiteral(lexeme, pos);
+        case STRING_LITERAL: return new StringLiteral(lexeme, pos);
+        case INT_TYPE: return new IntType(pos);
+        case FLOAT_TYPE: return new FloatType(pos);
+        case BOOL_TYPE: return new BoolType(pos);
+        case VOID_TYPE: return new VoidType(pos);
+        case STRING_TYPE: return new StringType(pos);
+        case ARRAY_TYPE: return new ArrayType((Type) a, (Expr) b, pos);
+        case ERROR_TYPE: return new ErrorType(pos);
+        case DECL_LIST: return new DeclList(this.<Decl>items(n, built), pos);
+        case FORMAL_PARAM_DECL_LIST: return new FormalParamDeclList(this.<FormalParamDecl>items(n, built), pos);
+        case STMT_LIST: return new StmtList(this.<Stmt>items(n, built), pos);
+        case ACTUAL_PARAM_LIST: return new ActualParamList(this.<ActualParam>items(n, built), pos);
+        case EXPR_LIST: return new ExprList(this.<Expr>items(n, built), pos);
+        }
+        throw new IllegalStateException("bad node kind " + kind[n]);
+    }
+
+    // the built children of list node n
+    @SuppressWarnings("unchecked")
+    private <T extends AST> java.util.ArrayList<T> items(int n, AST[] built) {
+        int count = childCount(n);
+        java.util.ArrayList<T> items = new java.util.ArrayList<T>(count);
+        for (int i = 0; i < count; i++) {
+            items.add((T) built[children[first[n] + i]]);
+        }
+        return items;
+    }
+
+    // Walks the tree from node 0 in preorder, without recursion, so
+    // that trees of any depth can be walked.
+    public void walk(FlatVisitor v) {
+        walk(0, v);
+    }
+
+    public void walk(int root, FlatVisitor v) {
+        Cursor c = new Cursor();
+        int[] nodes = new int[64];
+        int[] next = new int[64];
+        int top = 0;
+        c.node = root;
+        c.depth = 0;
+        c.parent = -1;
+        if (!v.enter(c)) {
+            v.leave(c);
+            return;
+        }
+        nodes[top] = root;
+        next[top++] = 0;
+        while (top > 0) {
+            int n = nodes[top - 1];
+            int i = next[top - 1];
+            if (i < childCount(n)) {
+                next[top - 1]++;
+                int k = child(n, i);
+                if (k < 0) {
+                    continue;
+                }
+                c.node = k;
+                c.depth = top;
+                c.parent = n;
+                if (v.enter(c)) {
+                    if (top == nodes.length) {
+                        nodes = java.util.Arrays.copyOf(nodes, 2 * top);
+                        next = java.util.Arrays.copyOf(next, 2 * top);
+                    }
+                    nodes[top] = k;
+                    next[top++] = 0;
+                } else {
+                    v.leave(c);
+                }
+            } else {
+                top--;
+                c.node = n;
+                c.depth = top;
+                c.parent = (top > 0) ? nodes[top - 1] : -1;
+                v.leave(c);
+            }
+        }
+    }
+
+    // A node of the tree during walk(), with its depth below the root
+    // the walk started at and its parent there.
+    public final class Cursor {
+
+        private int node;
+        private int depth;
+        private int parent;
+
+        private Cursor() {
+        }
+
+        public int node() {
+            return node;
+        }
+
+        public int depth() {
+            return depth;
+        }
+
+        // The parent node, or -1 at the root of the walk.
+        public int parent() {
+            return parent;
+        }
+
+        // The kind of the parent node, or -1 at the root of the walk.
+        public int parentKind() {
+            return (parent < 0) ? -1 : kind[parent];
+        }
+
+        public int kind() {
+            return kind[node];
+        }
+
+        public String kindName() {
+            return NAMES[kind[node]];
+        }
+
+        public int childCount() {
+            return FlatAST.this.childCount(node);
+        }
+
+        public int child(int i) {
+            return FlatAST.this.child(node, i);
+        }
+
+        public String lexeme() {
+            return FlatAST.this.lexeme(node);
+        }
+
+        public SourcePos getPosition() {
+            return FlatAST.this.getPosition(node);
+        }
+
+        public int getLine() {
+            return FlatAST.this.getLine(node);
+        }
+
+    }
+
+    // The kind, lexeme and children of one node, as from() numbers them.
+    private static class Flattener implements Visitor {
+
+        int kind;
+        int arity;
+        String lexeme;
+        AST[] kids = new AST[4];
+
+        private void node(int kind, AST a, AST b, AST c, AST d) {
+            this.kind = kind;
+            arity = ARITY[kind];
+            kids[0] = a;
+            kids[1] = b;
+            kids[2] = c;
+            kids[3] = d;
+        }
+
+        private void node(int kind) {
+            node(kind, null, null, null, null);
+        }
+
+        private void list(int kind, java.util.List<? extends AST> items) {
+            this.kind = kind;
+            arity = items.size();
+            if (kids.length < arity) {
+                kids = new AST[arity];
+            }
+            items.toArray(kids);
+        }
+
+        private void terminal(int kind, Terminal x) {
+            node(kind);
+            lexeme = x.Lexeme;
+        }
+
+        public void visit(Program x) { node(PROGRAM, x.D, null, null, null); }
+        public void visit(EmptyDecl x) { node(EMPTY_DECL); }
+        public void visit(FunDecl x) { node(FUN_DECL, x.tAST, x.idAST, x.paramsAST, x.stmtAST); }
+        public void visit(VarDecl x) { node(VAR_DECL, x.tAST, x.idAST, x.eAST, null); }
+        public void visit(TypeDecl x) { node(TYPE_DECL, x.tAST, null, null, null); }
+        public void visit(FormalParamDecl x) { node(FORMAL_PARAM_DECL, x.astType, x.astIdent, null, null); }
+        public void visit(FormalParamDeclSequence x) { node(FORMAL_PARAM_DECL_SEQUENCE, x.lAST, x.rAST, null, null); }
+        public void visit(EmptyFormalParamDecl x) { node(EMPTY_FORMAL_PARAM_DECL); }
+        public void visit(DeclSequence x) { node(DECL_SEQUENCE, x.D1, x.D2, null, null); }
+        public void visit(ErrorDecl x) { node(ERROR_DECL); }
+        public void visit(AssignStmt x) { node(ASSIGN_STMT, x.lAST, x.rAST, null, null); }
+        public void visit(IfStmt x) { node(IF_STMT, x.eAST, x.thenAST, x.elseAST, null); }
+        public void visit(WhileStmt x) { node(WHILE_STMT, x.eAST, x.stmtAST, null, null); }
+        public void visit(ForStmt x) { node(FOR_STMT, x.e1AST, x.e2AST, x.e3AST, x.stmtAST); }
+        public void visit(ReturnStmt x) { node(RETURN_STMT, x.eAST, null, null, null); }
+        public void visit(CompoundStmt x) { node(COMPOUND_STMT, x.astDecl, x.astStmt, null, null); }
+        public void visit(EmptyCompoundStmt x) { node(EMPTY_COMPOUND_STMT); }
+        public void visit(EmptyStmt x) { node(EMPTY_STMT); }
+        public void visit(StmtSequence x) { node(STMT_SEQUENCE, x.s1AST, x.s2AST, null, null); }
+        public void visit(CallStmt x) { node(CALL_STMT, x.eAST, null, null, null); }
+        public void visit(ErrorStmt x) { node(ERROR_STMT); }
+        public void visit(VarExpr x) { node(VAR_EXPR, x.Ident, null, null, null); }
+        public void visit(AssignExpr x) { node(ASSIGN_EXPR, x.lAST, x.rAST, null, null); }
+        public void visit(IntExpr x) { node(INT_EXPR, x.astIL, null, null, null); }
+        public void visit(FloatExpr x) { node(FLOAT_EXPR, x.astFL, null, null, null); }
+        public void visit(BoolExpr x) { node(BOOL_EXPR, x.astBL, null, null, null); }
+        public void visit(ArrayExpr x) { node(ARRAY_EXPR, x.idAST, x.indexAST, null, null); }
+        public void visit(StringExpr x) { node(STRING_EXPR, x.astSL, null, null, null); }
+        public void visit(BinaryExpr x) { node(BINARY_EXPR, x.lAST, x.oAST, x.rAST, null); }
+        public void visit(UnaryExpr x) { node(UNARY_EXPR, x.oAST, x.eAST, null, null); }
+        public void visit(EmptyExpr x) { node(EMPTY_EXPR); }
+        public void visit(ActualParam x) { node(ACTUAL_PARAM, x.pAST, null, null, null); }
+        public void visit(EmptyActualParam x) { node(EMPTY_ACTUAL_PARAM); }
+        public void visit(ActualParamSequence x) { node(ACTUAL_PARAM_SEQUENCE, x.lAST, x.rAST, null, null); }
+        public void visit(CallExpr x) { node(CALL_EXPR, x.idAST, x.paramAST, null, null); }
+        public void visit(ExprSequence x) { node(EXPR_SEQUENCE, x.lAST, x.rAST, null, null); }
+        public void visit(ID x) { terminal(ID, x); }
+        public void visit(Operator x) { terminal(OPERATOR, x); }
+        public void visit(IntLiteral x) { terminal(INT_LITERAL, x); }
+        public void visit(FloatLiteral x) { terminal(FLOAT_LITERAL, x); }
+        public void visit(BoolLiteral x) { terminal(BOOL_LITERAL, x); }
+        public void visit(StringLiteral x) { terminal(STRING_LITERAL, x); }
+        public void visit(IntType x) { node(INT_TYPE); }
+        public void visit(FloatType x) { node(FLOAT_TYPE); }
+        public void visit(BoolType x) { node(BOOL_TYPE); }
+        public void visit(VoidType x) { node(VOID_TYPE); }
+        public void visit(StringType x) { node(STRING_TYPE); }
+        public void visit(ArrayType x) { node(ARRAY_TYPE, x.astType, x.astExpr, null, null); }
+        public void visit(ErrorType x) { node(ERROR_TYPE); }
+        public void visit(DeclList x) { list(DECL_LIST, x.items); }
+        public void visit(FormalParamDeclList x) { list(FORMAL_PARAM_DECL_LIST, x.items); }
+        public void visit(StmtList x) { list(STMT_LIST, x.items); }
+        public void visit(ActualParamList x) { list(ACTUAL_PARAM_LIST, x.items); }
+        public void visit(ExprList x) { list(EXPR_LIST, x.items); }
+
+    }
+
+}
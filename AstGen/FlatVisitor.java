@@ -0,0 +1,13 @@
+package MiniC.AstGen;
+
+// A pass over a FlatAST, see FlatAST.walk(). The cursor passed in
+// stands at the node entered or left; it is reused for all nodes.
+public interface FlatVisitor {
+
+    // Called before the children of the node; false skips them.
+    boolean enter(FlatAST.Cursor c);
+
+    // Called after the children of the node, whether entered or not.
+    void leave(FlatAST.Cursor c);
+
+}
@@ -13,4 +13,8 @@ public class FloatLiteral extends Terminal {
 	v.visit(this);
     }
 
+    public <R, C> R accept(ContextVisitor<R, C> v, C c) {
+	return v.visit(this, c);
+    }
+
 }
@@ -5,26 +5,20 @@ import MiniC.Scanner.SourcePos;
 public class FloatType extends Type {
 
     public FloatType (SourcePos pos) {
-	super (pos);
+	super (FLOAT, "F", "<float>", pos);
     }
 
     public void accept(Visitor v) {
 	v.visit(this);
     }
 
-    public boolean Tequal (Type t) {
-	if (t != null && t instanceof ErrorType)
-	    return true;
-	else
-	    return (t != null && t instanceof FloatType);
+    public <R, C> R accept(ContextVisitor<R, C> v, C c) {
+	return v.visit(this, c);
     }
 
     public boolean AssignableTo (Type t) {
 	//FloatType assignable to t ?
-	if (t != null && t instanceof ErrorType)
-	    return true;
-	else
-	    return (t != null && (t instanceof FloatType));
+	return (t != null && (t.kind == ERROR || t.kind == FLOAT));
     }
 
 }
\ No newline at end of file
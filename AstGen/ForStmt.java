@@ -19,4 +19,8 @@ public class ForStmt extends Stmt {
 	v.visit(this);
     }
 
+    public <R, C> R accept(ContextVisitor<R, C> v, C c) {
+	return v.visit(this, c);
+    }
+
 }
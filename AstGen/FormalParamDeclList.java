@@ -0,0 +1,36 @@
+package MiniC.AstGen;
+
+import MiniC.Scanner.SourcePos;
+
+// The formal parameters of a function held in an array, in place of
+// a chain of FormalParamDeclSequence nodes ended by an
+// EmptyFormalParamDecl.
+public class FormalParamDeclList extends Decl {
+
+    public java.util.ArrayList<FormalParamDecl> items;
+
+    public FormalParamDeclList (java.util.ArrayList<FormalParamDecl> items, SourcePos pos) {
+	super (pos);
+	this.items = items;
+	items.trimToSize();
+    }
+
+    // The FormalParamDeclSequence chain of the items.
+    public Decl toSequence() {
+	SourcePos pos = getPosition();
+	Decl rest = new EmptyFormalParamDecl(pos);
+	for (int i = items.size() - 1; i >= 0; i--) {
+	    rest = new FormalParamDeclSequence(items.get(i), rest, pos);
+	}
+	return rest;
+    }
+
+    public void accept(Visitor v) {
+	v.visit(this);
+    }
+
+    public <R, C> R accept(ContextVisitor<R, C> v, C c) {
+	return v.visit(this, c);
+    }
+
+}
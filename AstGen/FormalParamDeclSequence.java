@@ -15,4 +15,8 @@ public class FormalParamDeclSequence extends Decl {
     public void accept(Visitor v) {
 	v.visit(this);
     }
+
+    public <R, C> R accept(ContextVisitor<R, C> v, C c) {
+	return v.visit(this, c);
+    }
 }
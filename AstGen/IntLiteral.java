@@ -20,4 +20,8 @@ public class IntLiteral extends Terminal {
 	v.visit(this);
     }
 
+    public <R, C> R accept(ContextVisitor<R, C> v, C c) {
+	return v.visit(this, c);
+    }
+
 }
@@ -5,27 +5,20 @@ import MiniC.Scanner.SourcePos;
 public class IntType extends Type {
 
     public IntType (SourcePos pos) {
-	super (pos);
+	super (INT, "I", "<int>", pos);
     }
 
     public void accept(Visitor v) {
 	v.visit(this);
     }
 
-    public boolean Tequal (Type t) {
-	if (t != null && t instanceof ErrorType)
-	    return true;
-	else
-	    return (t != null && t instanceof IntType);
+    public <R, C> R accept(ContextVisitor<R, C> v, C c) {
+	return v.visit(this, c);
     }
 
     public boolean AssignableTo (Type t) {
 	//IntType assignable to t ?
-	if (t != null && t instanceof ErrorType)
-	    return true;
-	else
-	    return (t != null &&
-		    ((t instanceof IntType) || (t instanceof FloatType)));
+	return (t != null && (t.kind == ERROR || t.kind == INT || t.kind == FLOAT));
     }
 
 }
\ No newline at end of file
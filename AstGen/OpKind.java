@@ -0,0 +1,58 @@
+package MiniC.AstGen;
+
+// The operators of MiniC, with the synthetic "i2f" semantic analysis
+// inserts for int to float coercion. The parser resolves the lexeme of
+// each Operator to one of these once; the later passes look up the
+// properties of an operator here instead of comparing lexemes.
+public enum OpKind {
+
+    //        lexeme  int/float args  bool args  bool result
+    PLUS      ("+",   true,           false,     false),
+    MINUS     ("-",   true,           false,     false),
+    TIMES     ("*",   true,           false,     false),
+    DIV       ("/",   true,           false,     false),
+    LESS      ("<",   true,           false,     true),
+    LESSEQ    ("<=",  true,           false,     true),
+    GREATER   (">",   true,           false,     true),
+    GREATEREQ (">=",  true,           false,     true),
+    EQ        ("==",  true,           true,      true),
+    NOTEQ     ("!=",  true,           false,     true),
+    AND       ("&&",  false,          true,      true),
+    OR        ("||",  false,          true,      true),
+    NOT       ("!",   false,          true,      true),
+    I2F       ("i2f", false,          false,     false);
+
+    public final String lexeme;
+
+    // whether the operator takes int or float operands:
+    //  <int> x <int> -> <sometype>
+    //  <float> x <float> -> <sometype>
+    public final boolean intOrFloatArgs;
+
+    // whether the operator takes bool operands:
+    //  <bool> x <bool> -> <sometype>
+    public final boolean boolArgs;
+
+    // whether the operator gives a bool value:
+    //  <sometype> x <sometype> -> bool
+    public final boolean boolResult;
+
+    private OpKind(String lexeme, boolean intOrFloatArgs, boolean boolArgs,
+                   boolean boolResult) {
+	this.lexeme = lexeme;
+	this.intOrFloatArgs = intOrFloatArgs;
+	this.boolArgs = boolArgs;
+	this.boolResult = boolResult;
+    }
+
+    // The operator spelled lexeme, or null if there is none.
+    public static OpKind of(String lexeme) {
+	for (OpKind k : values()) {
+	    if (k.lexeme.equals(lexeme)) {
+		return k;
+	    }
+	}
+	return null;
+    }
+
+}
@@ -5,15 +5,26 @@ import MiniC.Scanner.SourcePos;
 public class Operator extends Terminal {
 
     public Type type;
+    public OpKind kind;
 
-    public Operator (String Lexeme, SourcePos pos) {
+    public Operator (String Lexeme, OpKind kind, SourcePos pos) {
 	super (pos);
 	this.Lexeme = Lexeme;
+	this.kind = kind;
 	this.type = null;
     }
 
+    // For callers that have only the lexeme; the kind is looked up.
+    public Operator (String Lexeme, SourcePos pos) {
+	this (Lexeme, OpKind.of(Lexeme), pos);
+    }
+
     public void accept(Visitor v) {
 	v.visit(this);
     }
 
+    public <R, C> R accept(ContextVisitor<R, C> v, C c) {
+	return v.visit(this, c);
+    }
+
 }
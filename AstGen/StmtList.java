@@ -0,0 +1,35 @@
+package MiniC.AstGen;
+
+import MiniC.Scanner.SourcePos;
+
+// A sequence of statements held in an array, in place of a chain of
+// StmtSequence nodes ended by an EmptyStmt.
+public class StmtList extends Stmt {
+
+    public java.util.ArrayList<Stmt> items;
+
+    public StmtList (java.util.ArrayList<Stmt> items, SourcePos pos) {
+	super (pos);
+	this.items = items;
+	items.trimToSize();
+    }
+
+    // The StmtSequence chain of the items.
+    public Stmt toSequence() {
+	SourcePos pos = getPosition();
+	Stmt rest = new EmptyStmt(pos);
+	for (int i = items.size() - 1; i >= 0; i--) {
+	    rest = new StmtSequence(items.get(i), rest, pos);
+	}
+	return rest;
+    }
+
+    public void accept(Visitor v) {
+	v.visit(this);
+    }
+
+    public <R, C> R accept(ContextVisitor<R, C> v, C c) {
+	return v.visit(this, c);
+    }
+
+}
@@ -5,25 +5,19 @@ import MiniC.Scanner.SourcePos;
 public class StringType extends Type {
 
     public StringType (SourcePos pos) {
-	super (pos);
+	super (STRING, "Ljava/lang/String;", "<string>", pos);
     }
 
     public void accept(Visitor v) {
 	v.visit(this);
     }
 
-    public boolean Tequal (Type t) {
-	if (t != null && t instanceof ErrorType)
-	    return true;
-	else
-	    return (t != null && t instanceof StringType);
+    public <R, C> R accept(ContextVisitor<R, C> v, C c) {
+	return v.visit(this, c);
     }
 
     public boolean AssignableTo (Type t) {
-	if (t != null && t instanceof ErrorType)
-	    return true;
-	else
-	    return (t != null && (t instanceof StringType));
+	return (t != null && (t.kind == ERROR || t.kind == STRING));
     }
 
 }
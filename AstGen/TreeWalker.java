@@ -0,0 +1,205 @@
+package MiniC.AstGen;
+
+// Walks an AST with a stack of its own instead of by recursion, so
+// that trees of any depth can be walked, like FlatAST.walk() does for
+// the flat form. There are two ways to walk a tree.
+//
+// walk(root, WalkVisitor) calls the enter and leave hooks of the
+// visitor for each node, before and after its children. The children
+// are walked in the order of the fields of the node, see CHILDREN.
+//
+// walk(root, v, c) lets a ContextVisitor<AST, C> step through each
+// node by itself. The visitor visits a node when the walk reaches it,
+// with step() 0, and again each time the child it returned has been
+// walked, with step() one more. It returns the child to walk next,
+// or null when it is done with the node. What a recursive visitor
+// does between the accept() calls for its children goes between the
+// returns, and the children can be walked in any order, or left out.
+// The context c is the walker itself, so a pass can keep what it needs
+// between the steps for a node in a subclass of TreeWalker.
+public class TreeWalker {
+
+    // the nodes from the root of the walk to the one being visited,
+    // each with the step it is at
+    private AST[] nodes;
+    private int[] steps;
+    private int top;
+
+    public TreeWalker() {
+        nodes = new AST[64];
+        steps = new int[64];
+        top = 0;
+    }
+
+    // The step the node being visited is at.
+    public int step() {
+        return steps[top - 1];
+    }
+
+    // The depth of the node being visited below the root of the walk.
+    public int depth() {
+        return top - 1;
+    }
+
+    // The parent of the node being visited, or null at the root.
+    public AST parent() {
+        return (top > 1) ? nodes[top - 2] : null;
+    }
+
+    // The position of the node being visited among the children of its
+    // parent, in the order they are walked.
+    public int index() {
+        return (top > 1) ? steps[top - 2] - 1 : 0;
+    }
+
+    private void push(AST x) {
+        if (top == nodes.length) {
+            nodes = java.util.Arrays.copyOf(nodes, 2 * top);
+            steps = java.util.Arrays.copyOf(steps, 2 * top);
+        }
+        nodes[top] = x;
+        steps[top++] = 0;
+    }
+
+    private void pop() {
+        nodes[--top] = null;
+    }
+
+    // Walks the tree at root with v stepping through the nodes. A visit
+    // may start a walk of its own on the same walker; that walk goes on
+    // from the node being visited, as if root were one of its children.
+    public static <C extends TreeWalker> void walk(AST root, ContextVisitor<AST, C> v, C c) {
+        TreeWalker w = c;
+        int bottom = w.top;
+        w.push(root);
+        while (w.top > bottom) {
+            AST next = w.nodes[w.top - 1].accept(v, c);
+            if (next == null) {
+                w.pop();
+            } else {
+                w.steps[w.top - 1]++;
+                w.push(next);
+            }
+        }
+    }
+
+    // Walks the tree at root in preorder, calling the hooks of v.
+    public static void walk(AST root, WalkVisitor v) {
+        TreeWalker w = new TreeWalker();
+        w.push(root);
+        while (w.top > 0) {
+            AST x = w.nodes[w.top - 1];
+            AST next = null;
+            if (w.steps[w.top - 1] > 0 || v.enter(x, w)) {
+                next = x.accept(CHILDREN, w);
+            }
+            if (next == null) {
+                v.leave(x, w);
+                w.pop();
+            } else {
+                w.steps[w.top - 1]++;
+                w.push(next);
+            }
+        }
+    }
+
+    // Steps through the syntactic children of each node, in the order
+    // of its fields, and the items of a list in order. Types and
+    // declarations linked in by semantic analysis are not followed.
+    public static final ContextVisitor<AST, TreeWalker> CHILDREN = new Children();
+
+    private static class Children implements ContextVisitor<AST, TreeWalker> {
+
+        private static AST child(TreeWalker w, AST a) {
+            return (w.step() == 0) ? a : null;
+        }
+
+        private static AST child(TreeWalker w, AST a, AST b) {
+            switch (w.step()) {
+            case 0: return a;
+            case 1: return b;
+            default: return null;
+            }
+        }
+
+        private static AST child(TreeWalker w, AST a, AST b, AST c) {
+            switch (w.step()) {
+            case 0: return a;
+            case 1: return b;
+            case 2: return c;
+            default: return null;
+            }
+        }
+
+        private static AST child(TreeWalker w, AST a, AST b, AST c, AST d) {
+            switch (w.step()) {
+            case 0: return a;
+            case 1: return b;
+            case 2: return c;
+            case 3: return d;
+            default: return null;
+            }
+        }
+
+        private static AST item(TreeWalker w, java.util.List<? extends AST> items) {
+            return (w.step() < items.size()) ? items.get(w.step()) : null;
+        }
+
+        public AST visit(Program x, TreeWalker w) { return child(w, x.D); }
+        public AST visit(EmptyDecl x, TreeWalker w) { return null; }
+        public AST visit(FunDecl x, TreeWalker w) { return child(w, x.tAST, x.idAST, x.paramsAST, x.stmtAST); }
+        public AST visit(VarDecl x, TreeWalker w) { return child(w, x.tAST, x.idAST, x.eAST); }
+        public AST visit(TypeDecl x, TreeWalker w) { return child(w, x.tAST); }
+        public AST visit(FormalParamDecl x, TreeWalker w) { return child(w, x.astType, x.astIdent); }
+        public AST visit(FormalParamDeclSequence x, TreeWalker w) { return child(w, x.lAST, x.rAST); }
+        public AST visit(FormalParamDeclList x, TreeWalker w) { return item(w, x.items); }
+        public AST visit(EmptyFormalParamDecl x, TreeWalker w) { return null; }
+        public AST visit(DeclSequence x, TreeWalker w) { return child(w, x.D1, x.D2); }
+        public AST visit(DeclList x, TreeWalker w) { return item(w, x.items); }
+        public AST visit(ErrorDecl x, TreeWalker w) { return null; }
+        public AST visit(AssignStmt x, TreeWalker w) { return child(w, x.lAST, x.rAST); }
+        public AST visit(IfStmt x, TreeWalker w) { return child(w, x.eAST, x.thenAST, x.elseAST); }
+        public AST visit(WhileStmt x, TreeWalker w) { return child(w, x.eAST, x.stmtAST); }
+        public AST visit(ForStmt x, TreeWalker w) { return child(w, x.e1AST, x.e2AST, x.e3AST, x.stmtAST); }
+        public AST visit(ReturnStmt x, TreeWalker w) { return child(w, x.eAST); }
+        public AST visit(CompoundStmt x, TreeWalker w) { return child(w, x.astDecl, x.astStmt); }
+        public AST visit(EmptyCompoundStmt x, TreeWalker w) { return null; }
+        public AST visit(EmptyStmt x, TreeWalker w) { return null; }
+        public AST visit(StmtSequence x, TreeWalker w) { return child(w, x.s1AST, x.s2AST); }
+        public AST visit(StmtList x, TreeWalker w) { return item(w, x.items); }
+        public AST visit(CallStmt x, TreeWalker w) { return child(w, x.eAST); }
+        public AST visit(ErrorStmt x, TreeWalker w) { return null; }
+        public AST visit(VarExpr x, TreeWalker w) { return child(w, x.Ident); }
+        public AST visit(AssignExpr x, TreeWalker w) { return child(w, x.lAST, x.rAST); }
+        public AST visit(IntExpr x, TreeWalker w) { return child(w, x.astIL); }
+        public AST visit(FloatExpr x, TreeWalker w) { return child(w, x.astFL); }
+        public AST visit(BoolExpr x, TreeWalker w) { return child(w, x.astBL); }
+        public AST visit(ArrayExpr x, TreeWalker w) { return child(w, x.idAST, x.indexAST); }
+        public AST visit(StringExpr x, TreeWalker w) { return child(w, x.astSL); }
+        public AST visit(BinaryExpr x, TreeWalker w) { return child(w, x.lAST, x.oAST, x.rAST); }
+        public AST visit(UnaryExpr x, TreeWalker w) { return child(w, x.oAST, x.eAST); }
+        public AST visit(EmptyExpr x, TreeWalker w) { return null; }
+        public AST visit(ActualParam x, TreeWalker w) { return child(w, x.pAST); }
+        public AST visit(EmptyActualParam x, TreeWalker w) { return null; }
+        public AST visit(ActualParamSequence x, TreeWalker w) { return child(w, x.lAST, x.rAST); }
+        public AST visit(ActualParamList x, TreeWalker w) { return item(w, x.items); }
+        public AST visit(CallExpr x, TreeWalker w) { return child(w, x.idAST, x.paramAST); }
+        public AST visit(ExprSequence x, TreeWalker w) { return child(w, x.lAST, x.rAST); }
+        public AST visit(ExprList x, TreeWalker w) { return item(w, x.items); }
+        public AST visit(ID x, TreeWalker w) { return null; }
+        public AST visit(Operator x, TreeWalker w) { return null; }
+        public AST visit(IntLiteral x, TreeWalker w) { return null; }
+        public AST visit(FloatLiteral x, TreeWalker w) { return null; }
+        public AST visit(BoolLiteral x, TreeWalker w) { return null; }
+        public AST visit(StringLiteral x, TreeWalker w) { return null; }
+        public AST visit(IntType x, TreeWalker w) { return null; }
+        public AST visit(FloatType x, TreeWalker w) { return null; }
+        public AST visit(BoolType x, TreeWalker w) { return null; }
+        public AST visit(VoidType x, TreeWalker w) { return null; }
+        public AST visit(StringType x, TreeWalker w) { return null; }
+        public AST visit(ArrayType x, TreeWalker w) { return child(w, x.astType, x.astExpr); }
+        public AST visit(ErrorType x, TreeWalker w) { return null; }
+
+    }
+
+}
@@ -2,14 +2,41 @@ package MiniC.AstGen;
 
 import MiniC.Scanner.SourcePos;
 
+// A type. Each one carries its kind, its JVM descriptor and the tag
+// used to print it, fixed when it is built. Semantic analysis gives
+// each declaration a canonical type as well (Decl.type, see
+// StdEnvironment.canonical), so that after it equal types are mostly
+// the same object.
 public abstract class Type extends AST {
 
-    public Type (SourcePos pos) {
+    public static final int INT = 0;
+    public static final int FLOAT = 1;
+    public static final int BOOL = 2;
+    public static final int STRING = 3;
+    public static final int VOID = 4;
+    public static final int ERROR = 5;
+    public static final int ARRAY = 6;
+
+    public final int kind;
+    public final String descriptor;  // null for the error type
+    public final String tag;
+
+    public Type (int kind, String descriptor, String tag, SourcePos pos) {
 	super (pos);
+	this.kind = kind;
+	this.descriptor = descriptor;
+	this.tag = tag;
     }
 
-    public abstract boolean Tequal(Type t);
+    // Every type equals the error type; a scalar type also equals the
+    // types of its kind. Array types equal no other type.
+    public final boolean Tequal(Type t) {
+	if (t == this) {
+	    return kind != ARRAY;
+	}
+	return t != null && (t.kind == ERROR || (t.kind == kind && kind != ARRAY));
+    }
 
     public abstract boolean AssignableTo(Type t);
 
-}
\ No newline at end of file
+}
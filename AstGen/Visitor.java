@@ -2,6 +2,12 @@ package MiniC.AstGen;
 
 public interface Visitor {
 
+    // The list nodes are visited as the chains they stand for, so that
+    // a visitor which only knows the chain form needs no methods for
+    // them; one that walks the items itself overrides these. The chain
+    // comes from toSequence(), which shares the items of the list and
+    // gives the new Sequence and Empty nodes the position of the list.
+
     // Program...
     void visit(Program x);
 
@@ -13,8 +19,11 @@ public interface Visitor {
     void visit(TypeDecl x);
     void visit(FormalParamDecl x);
     void visit(FormalParamDeclSequence x);
+    default void visit(FormalParamDeclList x) { x.toSequence().accept(this); }
     void visit(EmptyFormalParamDecl x);
     void visit(DeclSequence x);
+    default void visit(DeclList x) { x.toSequence().accept(this); }
+    void visit(ErrorDecl x);
 
     void visit (AssignStmt x);
     void visit(IfStmt x);
@@ -25,7 +34,9 @@ public interface Visitor {
     void visit(EmptyCompoundStmt x);
     void visit(EmptyStmt x);
     void visit(StmtSequence x);
+    default void visit(StmtList x) { x.toSequence().accept(this); }
     void visit(CallStmt x);
+    void visit(ErrorStmt x);
 
     void visit(VarExpr x);
     void visit(AssignExpr x);
@@ -40,8 +51,10 @@ public interface Visitor {
     void visit(ActualParam x);
     void visit(EmptyActualParam x);
     void visit(ActualParamSequence x);
+    default void visit(ActualParamList x) { x.toSequence().accept(this); }
     void visit(CallExpr x);
     void visit(ExprSequence x);
+    default void visit(ExprList x) { x.toSequence().accept(this); }
     void visit(ID x);
     void visit(Operator x);
     void visit(IntLiteral x);
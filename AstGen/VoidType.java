@@ -5,18 +5,15 @@ import MiniC.Scanner.SourcePos;
 public class VoidType extends Type {
 
     public VoidType (SourcePos pos) {
-	super (pos);
+	super (VOID, "V", "<void>", pos);
     }
 
     public void accept(Visitor v) {
 	v.visit(this);
     }
 
-    public boolean Tequal (Type t) {
-	if (t != null && t instanceof ErrorType)
-	    return true;
-	else
-	    return (t != null && t instanceof VoidType);
+    public <R, C> R accept(ContextVisitor<R, C> v, C c) {
+	return v.visit(this, c);
     }
 
     public boolean AssignableTo (Type t) {
@@ -0,0 +1,13 @@
+package MiniC.AstGen;
+
+// A pass over an AST, see TreeWalker.walk(AST, WalkVisitor). The walker
+// passed in stands at the node entered or left.
+public interface WalkVisitor {
+
+    // Called before the children of the node; false skips them.
+    boolean enter(AST x, TreeWalker w);
+
+    // Called after the children of the node, whether entered or not.
+    void leave(AST x, TreeWalker w);
+
+}
@@ -1,32 +1,34 @@
 package MiniC.CodeGen;
 
 import java.io.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 import MiniC.AstGen.*;
 import MiniC.StdEnvironment;
 import MiniC.ErrorReporter;
+import MiniC.Scanner.SourcePos;
 
-public class Emitter implements Visitor {
+public class Emitter implements ContextVisitor<AST, Method> {
 
     private ErrorReporter reporter;
     private FileWriter fstream;
     private BufferedWriter out;
     private String ClassName;
-    private int indent;
     private final int INDENT_LEVEL = 3; //amount of indentation per level
-    private Frame frame;
     private int MaxOperandStackSize = 150;
     // Upper bound for the maximum operand stack height for a MiniC function.
     // The actual stack height can be determined by interpreting the function's
     // bytecode. 
     private int LabelIndent;
-    private boolean isMain; // true if we are generating code for "main".
-    private boolean GlobalScope; // true if we are in the outermost "global" scope.
+    private ForkJoinPool pool; // to emit the functions on, or null
 
 
     public Emitter (String infile, ErrorReporter reporter) {
         try {
-            this.isMain = false;
-            this.GlobalScope= true;
+            this.pool = null;
             this.reporter = reporter;
             LabelIndent = 1;
             String outfile;
@@ -49,7 +51,6 @@ public class Emitter implements Visitor {
             // Create output file: 
             fstream = new FileWriter(outfile);
             out = new BufferedWriter(fstream);
-            indent = 0;
         } catch (Exception e) {
             //Catch exception if any:
             System.err.println("Error: " + e.getMessage());
@@ -57,9 +58,15 @@ public class Emitter implements Visitor {
         }
     }
 
+    // Emit the methods of the MiniC functions in parallel on pool,
+    // null to emit them one after the other.
+    public void setPool(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
     // top-level routine, called by the compiler driver:
     public void genCode(Program progAST) {
-        visit(progAST);
+        visit(progAST, new Method(null, false, false));
         try {
             out.close();
         } catch (Exception e) {
@@ -74,34 +81,46 @@ public class Emitter implements Visitor {
      */
 
     // Emit a single string using indentation:
-    private void emit (String s) {
-        try {
-            for (int i = 1; i <= indent*INDENT_LEVEL; i++) {
-               out.write(" ");
-            }
-            out.write(s + "\n");
-        } catch (Exception e) {
-            System.err.println("Error: " + e.getMessage());
-            System.exit(1);
+    private void emit(Method m, String s) {
+        for (int i = 1; i <= m.indent*INDENT_LEVEL; i++) {
+           m.text.append(' ');
         }
+        m.text.append(s).append('\n');
     }
 
     // Emit a single string, but do not indent.
-    private void emitNoIndent (String s) {
+    private void emitNoIndent(Method m, String s) {
+        m.text.append(s).append('\n');
+    }
+
+    private void reportError(Method m, String message, SourcePos pos) {
+        if (m.deferErrors) {
+            m.deferError(message, pos);
+        } else {
+            reporter.reportError(message, "", pos);
+        }
+    }
+
+    // Report the errors deferred while emitting m, and write its text
+    // to the output file:
+    private void write(Method m) {
+        for (int i = 0; i < m.errors.size(); i++) {
+            reporter.reportError(m.errors.get(i), "", m.errorPositions.get(i));
+        }
         try {
-            out.write(s + "\n");
+            out.append(m.text);
         } catch (Exception e) {
             System.err.println("Error: " + e.getMessage());
             System.exit(1);
         }
     }
 
-    private void emit (String s, int value) {
-        emit (s + " " + value);
+    private void emit(Method m, String s, int value) {
+        emit(m, s + " " + value);
     }
 
-    private void emit (String s, float value) {
-        emit (s + " " + value);
+    private void emit(Method m, String s, float value) {
+        emit(m, s + " " + value);
     }
 
     // For a given label nr, return the string representation
@@ -111,152 +130,152 @@ public class Emitter implements Visitor {
     }
 
     // Emit the defining occurrence of a label:
-    private void emitLabel(int label) {
+    private void emitLabel(Method m, int label) {
         assert(label >= 0);
         String Ind = new String(" ");
         for (int i = 1; i <= LabelIndent; i++) {
            Ind = Ind.concat(" ");
         }
-           emitNoIndent (Ind + "Label" + label + ":");
+           emitNoIndent(m, Ind + "Label" + label + ":");
     }
 
     // Emit an integer constant:
-    private void emitICONST(int value) {
+    private void emitICONST(Method m, int value) {
         if(value == -1) {
-            emit(JVM.ICONST_M1);
+            emit(m, JVM.ICONST_M1);
         } else if(value >= 0 && value <= 5) {
-            emit(JVM.ICONST + "_" + value);
+            emit(m, JVM.ICONST + "_" + value);
         } else if(value >= -128 && value <= 127) {
-            emit(JVM.BIPUSH, value);
+            emit(m, JVM.BIPUSH, value);
         } else if(value >= -32768 && value <= 32767) {
-           emit(JVM.SIPUSH, value);
+           emit(m, JVM.SIPUSH, value);
         } else {
-            emit(JVM.LDC, value);
+            emit(m, JVM.LDC, value);
         }
     }
 
     // Emit a floating point constant:
-    private void emitFCONST(float value) {
+    private void emitFCONST(Method m, float value) {
         if(value == 0.0) {
-            emit(JVM.FCONST_0);
+            emit(m, JVM.FCONST_0);
         } else if(value == 1.0) {
-            emit(JVM.FCONST_1);
+            emit(m, JVM.FCONST_1);
         } else if(value == 2.0) {
-            emit(JVM.FCONST_2);
+            emit(m, JVM.FCONST_2);
         } else {
-            emit(JVM.LDC, value);
+            emit(m, JVM.LDC, value);
         }
     }
 
     // Emit a boolean constant:
-    private void emitBCONST(boolean value) {
+    private void emitBCONST(Method m, boolean value) {
         if(value) {
-            emit(JVM.ICONST_1); // true = 1 with the JVM
+            emit(m, JVM.ICONST_1); // true = 1 with the JVM
         } else {
-            emit(JVM.ICONST_0);
+            emit(m, JVM.ICONST_0);
         }
     }
 
     // Emit an integer load instruction:
-    private void emitILOAD(int LocalVarIndex) {
+    private void emitILOAD(Method m, int LocalVarIndex) {
         if(LocalVarIndex == 0)
-            emit(JVM.ILOAD_0);
+            emit(m, JVM.ILOAD_0);
         else if(LocalVarIndex == 1)
-            emit(JVM.ILOAD_1);
+            emit(m, JVM.ILOAD_1);
         else if(LocalVarIndex == 2)
-            emit(JVM.ILOAD_2);
+            emit(m, JVM.ILOAD_2);
         else if(LocalVarIndex == 3)
-            emit(JVM.ILOAD_3);
+            emit(m, JVM.ILOAD_3);
         else
-            emit(JVM.ILOAD, LocalVarIndex);
+            emit(m, JVM.ILOAD, LocalVarIndex);
     }
 
     // Emit an integer store instruction:
-    private void emitISTORE(int LocalVarIndex) {
+    private void emitISTORE(Method m, int LocalVarIndex) {
        if(LocalVarIndex == 0)
-           emit(JVM.ISTORE_0);
+           emit(m, JVM.ISTORE_0);
        else if(LocalVarIndex == 1)
-           emit(JVM.ISTORE_1);
+           emit(m, JVM.ISTORE_1);
        else if(LocalVarIndex == 2)
-           emit(JVM.ISTORE_2);
+           emit(m, JVM.ISTORE_2);
        else if(LocalVarIndex == 3)
-           emit(JVM.ISTORE_3);
+           emit(m, JVM.ISTORE_3);
        else
-           emit(JVM.ISTORE, LocalVarIndex);
+           emit(m, JVM.ISTORE, LocalVarIndex);
     }
 
     // Emit a floating point load instruction:
-    private void emitFLOAD(int LocalVarIndex) {
+    private void emitFLOAD(Method m, int LocalVarIndex) {
         if(LocalVarIndex == 0)
-            emit(JVM.FLOAD_0);
+            emit(m, JVM.FLOAD_0);
         else if(LocalVarIndex == 1)
-            emit(JVM.FLOAD_1);
+            emit(m, JVM.FLOAD_1);
         else if(LocalVarIndex == 2)
-            emit(JVM.FLOAD_2);
+            emit(m, JVM.FLOAD_2);
         else if(LocalVarIndex == 3)
-            emit(JVM.FLOAD_3);
+            emit(m, JVM.FLOAD_3);
         else
-            emit(JVM.FLOAD, LocalVarIndex);
+            emit(m, JVM.FLOAD, LocalVarIndex);
     }
 
     // Emit a floating point store instruction:
-    private void emitFSTORE(int LocalVarIndex) {
+    private void emitFSTORE(Method m, int LocalVarIndex) {
         if(LocalVarIndex == 0)
-            emit(JVM.FSTORE_0);
+            emit(m, JVM.FSTORE_0);
         else if(LocalVarIndex == 1)
-            emit(JVM.FSTORE_1);
+            emit(m, JVM.FSTORE_1);
         else if(LocalVarIndex == 2)
-            emit(JVM.FSTORE_2);
+            emit(m, JVM.FSTORE_2);
         else if(LocalVarIndex == 3)
-            emit(JVM.FSTORE_3);
+            emit(m, JVM.FSTORE_3);
         else
-            emit(JVM.FSTORE, LocalVarIndex);
+            emit(m, JVM.FSTORE, LocalVarIndex);
     }
 
     // Emit a return statement of a given type:
-    private void emitRETURN(Type T){
+    private void emitRETURN(Method m, Type T){
         if (T.Tequal(StdEnvironment.intType) ||
             T.Tequal(StdEnvironment.boolType)) {
-            emit(JVM.IRETURN);
+            emit(m, JVM.IRETURN);
         } else if(T.Tequal(StdEnvironment.floatType)) {
-            emit(JVM.FRETURN);
+            emit(m, JVM.FRETURN);
         } else if(T.Tequal(StdEnvironment.voidType)) {
-            emit(JVM.RETURN);
+            emit(m, JVM.RETURN);
         }
     }
 
     // Emit the constructor for the class of our MiniC program:
-    private void emitConstructor() {
-        emit ("\n.method public <init>()V");
-        indent++;
-        emit (".limit stack 1");
-        emit (".limit locals 1");
-        emit (".var 0 is this L" + ClassName + "; from Label0 to Label1\n");
-        emitLabel (0);
-        emit ("aload_0");
-        emit ("invokespecial java/lang/Object/<init>()V");
-        emitLabel (1);
-        emit ("return");
-        indent--;
-        emit (".end method");
+    private void emitConstructor(Method m) {
+        emit(m, "\n.method public <init>()V");
+        m.indent++;
+        emit(m, ".limit stack 1");
+        emit(m, ".limit locals 1");
+        emit(m, ".var 0 is this L" + ClassName + "; from Label0 to Label1\n");
+        emitLabel(m, 0);
+        emit(m, "aload_0");
+        emit(m, "invokespecial java/lang/Object/<init>()V");
+        emitLabel(m, 1);
+        emit(m, "return");
+        m.indent--;
+        emit(m, ".end method");
     }
 
     // Emit declarations for the static class variables. Static class variables
     // correspont to MiniC global variables.
     // This function recursively traverses the declarations in the global
     // block of the program.
-    private void emitStaticClassVariableDeclaration(Decl d) {
+    private void emitStaticClassVariableDeclaration(Method m, Decl d) {
        assert (d != null);
-       if (d instanceof DeclSequence) {
-          DeclSequence SD = (DeclSequence) d;
-          emitStaticClassVariableDeclaration(SD.D1);
-          emitStaticClassVariableDeclaration(SD.D2);
+       if (d instanceof DeclList) {
+          for (Decl item : ((DeclList) d).items) {
+             emitStaticClassVariableDeclaration(m, item);
+          }
        } else if (d instanceof VarDecl) {
           VarDecl D = (VarDecl) d;
-          assert (GlobalScope);
+          assert (m.isGlobalScope());
           d.setGlobal();
-          Type T= typeOfDecl (D);
-          emit (".field static " + D.idAST.Lexeme + " "
+          Type T= typeOfDecl(m, D);
+          emit(m, ".field static " + D.idAST.Lexeme + " "
                 + getTypeDescriptorLabel(T));
        }
     }
@@ -264,28 +283,28 @@ public class Emitter implements Visitor {
     // Emit initializers for the static class variables.
     // This function recursively traverses the declarations in the global
     // block of the program.
-    private void emitInitializer(Decl d) {
+    private void emitInitializer(Method m, Decl d) {
        assert (d != null);
-       if (d instanceof DeclSequence) {
-          DeclSequence SD = (DeclSequence) d;
-          emitInitializer(SD.D1);
-          emitInitializer(SD.D2);
+       if (d instanceof DeclList) {
+          for (Decl item : ((DeclList) d).items) {
+             emitInitializer(m, item);
+          }
        } else if (d instanceof VarDecl) {
           VarDecl D = (VarDecl) d;
           assert (d.isGlobal());
-          Type T= typeOfDecl (D);
+          Type T= typeOfDecl(m, D);
 
           if (!(D.eAST instanceof EmptyExpr)) {
-              D.eAST.accept(this);
+              TreeWalker.walk(D.eAST, this, m);
           } else if (T.Tequal(StdEnvironment.intType) ||
                      T.Tequal(StdEnvironment.boolType)) {
-              emit(JVM.ICONST_0);
+              emit(m, JVM.ICONST_0);
           } else if(T.Tequal(StdEnvironment.floatType)) {
-              emit(JVM.FCONST_0);
+              emit(m, JVM.FCONST_0);
           } else {
               assert(false);
           }
-          emitStaticVariableReference(D.idAST, D.tAST, true); 
+          emitStaticVariableReference(m, D.idAST, D.tAST, true); 
        }
     }
 
@@ -293,45 +312,33 @@ public class Emitter implements Visitor {
     // Global MiniC variables correspond to static Java class variables
     // in our code generation model. Our MiniC assembly code needs one
     // class initializer where all class variables are initialized. 
-    private void emitClassInitializer(Decl d) {
-       emit ("\n.method static <clinit>()V");
-       indent++;
-       emit (".limit stack 1");
-       emit (".limit locals 0");
-       emitInitializer(d);
-       emit (JVM.RETURN);
-       indent--;
-       emit (".end method");
+    private void emitClassInitializer(Method m, Decl d) {
+       emit(m, "\n.method static <clinit>()V");
+       m.indent++;
+       emit(m, ".limit stack 1");
+       emit(m, ".limit locals 0");
+       emitInitializer(m, d);
+       emit(m, JVM.RETURN);
+       m.indent--;
+       emit(m, ".end method");
     }
 
     // Get the JVM type descriptor for a given MiniC type:
     private String getTypeDescriptorLabel(Type t) {
-        String l = new String("");
-        assert((t != null) && !(t instanceof ErrorType));
-        if (t.Tequal(StdEnvironment.intType)) {
-            l = new String ("I");
-        } else if (t.Tequal(StdEnvironment.boolType)) {
-            l = new String ("Z");
-        } else if (t.Tequal(StdEnvironment.floatType)) {
-            l = new String ("F");
-        } else if (t.Tequal(StdEnvironment.stringType)) {
-            l = new String ("Ljava/lang/String;");
-        } else if (t.Tequal(StdEnvironment.voidType)) {
-            l = new String ("V");
-        } else {
-            assert(false);
-        }
-        return l;
+        assert((t != null) && !(t instanceof ErrorType) && !(t instanceof ArrayType));
+        return t.descriptor;
     }
 
     // Get the type of a given declaration:
-    private Type typeOfDecl(AST d) {
+    private Type typeOfDecl(Method m, AST d) {
         Type retType;
         Type T;
         assert(d != null);
         assert ((d instanceof FunDecl) || (d instanceof VarDecl)
                 || (d instanceof FormalParamDecl));
-        if (d instanceof FunDecl) {
+        if (((Decl) d).type != null) {
+            T = ((Decl) d).type; // canonical, from semantic analysis
+        } else if (d instanceof FunDecl) {
             T = ((FunDecl) d).tAST;
         } else if (d instanceof VarDecl) {
             T = ((VarDecl) d).tAST;
@@ -339,7 +346,7 @@ public class Emitter implements Visitor {
             T = ((FormalParamDecl) d).astType;
         }
         if (T instanceof ArrayType) {
-            reporter.reportError("Arrays not implemented", "", d.pos);
+            reportError(m, "Arrays not implemented", d.getPosition());
             retType = ((ArrayType) T).astType;
         } else {
             retType = T;
@@ -351,7 +358,7 @@ public class Emitter implements Visitor {
     // References to those variables are generated using this function.
     // The boolean "write" value determines between read access (write=false) and
     // write access (write=true).
-    private void emitStaticVariableReference(ID Ident, Type T, boolean write) {
+    private void emitStaticVariableReference(Method m, ID Ident, Type T, boolean write) {
        String ref;
        if(write)
          ref = new String(JVM.PUTSTATIC);
@@ -359,7 +366,7 @@ public class Emitter implements Visitor {
          ref = new String(JVM.GETSTATIC);
        ref = ref.concat(" " + ClassName + "." + Ident.Lexeme + " "
              + getTypeDescriptorLabel (T));
-       emit (ref);
+       emit(m, ref);
     }
 
     // Returns true if the function declaration passed as parameter must become a static
@@ -391,21 +398,10 @@ public class Emitter implements Visitor {
     //    void foo (int a, bool b){}
     //
     // the return value will be 2.
-    // Note: this function assumes the AST tree layout from Assignment 3.
+    // Note: this function assumes the parameters are a FormalParamDeclList.
     private int GetNrOfFormalParams(FunDecl f) {
-        int NrArgs = 0;
-        Decl D = f.paramsAST;
-        assert ((D instanceof EmptyFormalParamDecl) ||
-                (D instanceof FormalParamDeclSequence));
-        if(D instanceof EmptyFormalParamDecl)
-            return 0;
-        while (D instanceof FormalParamDeclSequence) {
-            NrArgs++;
-            D = ((FormalParamDeclSequence) D).rAST;
-            assert ((D instanceof EmptyFormalParamDecl) ||
-                    (D instanceof FormalParamDeclSequence));
-        }
-        return NrArgs;
+        assert (f.paramsAST instanceof FormalParamDeclList);
+        return ((FormalParamDeclList) f.paramsAST).items.size();
     }
 
     // Given a function declaration FunDecl, this method returns the AST for 
@@ -415,257 +411,364 @@ public class Emitter implements Visitor {
     //    void foo (int a, bool b){}
     //
     // the AST returned will be "bool b".
-    // Note: this function assumes the AST tree layout from Assignment 3.
+    // Note: this function assumes the parameters are a FormalParamDeclList.
     private FormalParamDecl GetFormalParam (FunDecl f, int nr) {
         int fArgs = GetNrOfFormalParams(f);
-        assert(fArgs >= 0);
-        assert (nr <= fArgs);
-        FormalParamDeclSequence S = (FormalParamDeclSequence) f.paramsAST;
-        for (int i = 1; i < nr; i++) {
-            assert(S.rAST instanceof FormalParamDeclSequence);
-            S = (FormalParamDeclSequence) S.rAST;
-        }
-        assert(S.lAST instanceof FormalParamDecl);
-        return (FormalParamDecl) S.lAST;
+        assert (nr >= 1 && nr <= fArgs);
+        return ((FormalParamDeclList) f.paramsAST).items.get(nr - 1);
     }
 
     // Construct the descriptor for a given function declaration.
-    private String getDescriptor(FunDecl f) {
+    private String getDescriptor(Method m, FunDecl f) {
         String ret = new String ("(");
         for (int arg = 1; arg <= GetNrOfFormalParams(f); arg ++) {
             FormalParamDecl D = GetFormalParam (f, arg);
-            ret = ret.concat(getTypeDescriptorLabel(typeOfDecl(D)));
+            ret = ret.concat(getTypeDescriptorLabel(typeOfDecl(m, D)));
         }
         ret = ret.concat(")");
         ret = ret.concat(getTypeDescriptorLabel(f.tAST));
         return ret;
     }
 
+    // Collect the function declarations in the global block of the
+    // program, in source order.
+    private void collectFunctions(Decl d, ArrayList<FunDecl> funs) {
+       if (d instanceof DeclList) {
+          for (Decl item : ((DeclList) d).items) {
+             collectFunctions(item, funs);
+          }
+       } else if (d instanceof DeclSequence) {
+          collectFunctions(((DeclSequence) d).D1, funs);
+          collectFunctions(((DeclSequence) d).D2, funs);
+       } else if (d instanceof FunDecl) {
+          funs.add((FunDecl) d);
+       }
+    }
+
+    // Emit the method for a MiniC function. Everything it changes while
+    // doing so is in the Method it returns, or in the declarations of
+    // the function itself, so functions can be emitted concurrently.
+    private Method emitFunction(FunDecl f, boolean deferErrors) {
+        //Allocate a frame for this function:
+        boolean isMain = f.idAST.Lexeme.equals("main");
+        Method m = new Method(new Frame(isMain), isMain, deferErrors);
+        TreeWalker.walk(f, this, m);
+        return m;
+    }
+
     /*
      *
      * Here the Visitor methods for our code generator start:
      *
+     * They step through their node on the Method, see TreeWalker: each
+     * returns the child to emit next, or null when the node is done, and
+     * is called again with m.step() one more once that child is emitted.
      *
      */
 
-    public void visit(Program x) {
-        emit("; Jassmin assembly code");
-        emit("; MiniC v. 1.0");
-        emit(".class public " + ClassName);
-        emit(".super java/lang/Object");
-        //emit("; Program");
+    public AST visit(Program x, Method m) {
+        emit(m, "; Jassmin assembly code");
+        emit(m, "; MiniC v. 1.0");
+        emit(m, ".class public " + ClassName);
+        emit(m, ".super java/lang/Object");
+        //emit(m, "; Program");
         if(x.D instanceof VarDecl) {
           ((VarDecl) x.D).setGlobal();
         }
-        emitStaticClassVariableDeclaration(x.D);
-        emitClassInitializer(x.D);
-        emitConstructor();
-        x.D.accept(this);
+        emitStaticClassVariableDeclaration(m, x.D);
+        emitClassInitializer(m, x.D);
+        emitConstructor(m);
+        write(m);
+
+        // Each function is emitted into a Method of its own; the global
+        // declarations were all handled above.
+        ArrayList<FunDecl> funs = new ArrayList<FunDecl>();
+        collectFunctions(x.D, funs);
+        if (pool == null || funs.size() < 2) {
+            for (FunDecl F : funs) {
+                write(emitFunction(F, false));
+            }
+        } else {
+            List<Callable<Method>> tasks = new ArrayList<Callable<Method>>();
+            for (FunDecl F : funs) {
+                tasks.add(new Callable<Method>() {
+                    public Method call() {
+                        return emitFunction(F, true);
+                    }
+                });
+            }
+            try {
+                for (Future<Method> f : pool.invokeAll(tasks)) {
+                    write(f.get());
+                }
+            } catch (Exception e) {
+                throw new RuntimeException("parallel code generation failed", e);
+            }
+        }
+        return null;
     }
 
-    public void visit(EmptyDecl x) {
-        //emit("; EmptyDecl");
+    public AST visit(EmptyDecl x, Method m) {
+        //emit(m, "; EmptyDecl");
+        return null;
     }
 
-    public void visit(FunDecl x) {
-        GlobalScope = false;
-        //Allocate a frame for this function:
-        isMain = x.idAST.Lexeme.equals("main");
-        if (isMain) {
-            frame = new Frame(true);
-            emit ("\n.method public static main([Ljava/lang/String;)V");
-            // .var for main"s "this" pointer:
-            //emit (".var 0 is this L" + ClassName + "; from Label0 to Label1");
-            // .var for main's String[] argument:
-            //emit (".var 1 is arg0 [Ljava/lang/String; from Label0 to Label1");
-        } else {
-            frame = new Frame(false);
-            emit ("\n.method public " + x.idAST.Lexeme
-                  + getDescriptor(x));
-            x.paramsAST.accept(this); // process formal parameters to adjust the
-                                      // local variable count.
-        }
-        indent++;
-        int L0 = frame.getNewLabel();
-        int L1 = frame.getNewLabel();
-        emitLabel(L0);
-        if (isMain) {
-           emit("new " + ClassName);
-           emit("dup");
-           emit("invokespecial " + ClassName + "/<init>()V");
-           emit("astore_1");
+    public AST visit(ErrorDecl x, Method m) {
+        emit(m, "; ErrorDecl");
+        assert(false);
+        return null;
+    }
+
+    public AST visit(FunDecl x, Method m) {
+        // "main" has no formal parameters to process, so it skips a step.
+        int step = m.isMain ? m.step() + 1 : m.step();
+        switch (step) {
+        case 0:
+            emit(m, "\n.method public " + x.idAST.Lexeme
+                  + getDescriptor(m, x));
+            return x.paramsAST; // process formal parameters to adjust the
+                                // local variable count.
+        case 1:
+            if (m.isMain) {
+                emit(m, "\n.method public static main([Ljava/lang/String;)V");
+                // .var for main"s "this" pointer:
+                //emit(m, ".var 0 is this L" + ClassName + "; from Label0 to Label1");
+                // .var for main's String[] argument:
+                //emit(m, ".var 1 is arg0 [Ljava/lang/String; from Label0 to Label1");
+            }
+            m.indent++;
+            int L0 = m.frame.getNewLabel();
+            int L1 = m.frame.getNewLabel();
+            m.pushLabels(L0, L1);
+            emitLabel(m, L0);
+            if (m.isMain) {
+               emit(m, "new " + ClassName);
+               emit(m, "dup");
+               emit(m, "invokespecial " + ClassName + "/<init>()V");
+               emit(m, "astore_1");
+            }
+            //x.tAST.accept(this, m);
+            //x.idAST.accept(this, m);
+            return x.stmtAST;
         }
-        //x.tAST.accept(this);
-        //x.idAST.accept(this);
-        x.stmtAST.accept(this);
-        emitLabel(L1);
-        if (isMain) {
-          emit(JVM.RETURN);
+        emitLabel(m, m.secondLabel());
+        m.popLabels();
+        if (m.isMain) {
+          emit(m, JVM.RETURN);
         }
-        emit(".limit locals " + frame.getNewLocalVarIndex());
-        emit(".limit stack " + MaxOperandStackSize);
-        indent--;
-        emit(".end method");
-        GlobalScope = true;
+        emit(m, ".limit locals " + m.frame.getNewLocalVarIndex());
+        emit(m, ".limit stack " + MaxOperandStackSize);
+        m.indent--;
+        emit(m, ".end method");
+        return null;
     }
 
-    public void visit(TypeDecl x) {
+    public AST visit(TypeDecl x, Method m) {
         assert(false); // Can only occur in the StdEnvironment AST!
+        return null;
    }
 
-    public void visit(FormalParamDecl x) {
-        //emit("; FormalParamDecl");
+    public AST visit(FormalParamDecl x, Method m) {
+        //emit(m, "; FormalParamDecl");
         //     here you need to allocate a new local variable index to the
         //     formal parameter.
         //     Relevant: x.index, frame.getNewLocalVarIndex();
-        x.index = frame.getNewLocalVarIndex();
+        x.index = m.frame.getNewLocalVarIndex();
+        return null;
+    }
+
+    public AST visit(FormalParamDeclSequence x, Method m) {
+        //emit(m, "; FormalParamDeclSequence");
+        return TreeWalker.CHILDREN.visit(x, m);
+    }
+
+    public AST visit(FormalParamDeclList x, Method m) {
+        return TreeWalker.CHILDREN.visit(x, m);
     }
 
-    public void visit(FormalParamDeclSequence x) {
-        //emit("; FormalParamDeclSequence");
-        x.lAST.accept(this);
-        x.rAST.accept(this);
+    public AST visit(EmptyFormalParamDecl x, Method m) {
+        //emit(m, "; EmptyFormalParamDecl");
+        return null;
     }
 
-    public void visit(EmptyFormalParamDecl x) {
-        //emit("; EmptyFormalParamDecl");
+    public AST visit(StmtSequence x, Method m) {
+        return TreeWalker.CHILDREN.visit(x, m);
     }
 
-    public void visit(StmtSequence x) {
-        x.s1AST.accept(this);
-        x.s2AST.accept(this);
+    public AST visit(StmtList x, Method m) {
+        return TreeWalker.CHILDREN.visit(x, m);
     }
 
-    public void visit(AssignStmt x) {
-        emit("; AssignStmt, line " + x.pos.StartLine);
-        //x.lAST.accept(this);
-        x.rAST.accept(this);
+    public AST visit(AssignStmt x, Method m) {
+        if (m.step() == 0) {
+            emit(m, "; AssignStmt, line " + x.getLine());
+            //x.lAST.accept(this, m);
+            return x.rAST;
+        }
         if (x.lAST instanceof VarExpr) {
             VarExpr V = (VarExpr) x.lAST;
             Decl D = (Decl) V.Ident.declAST; 
-            Type T = typeOfDecl(D);
+            Type T = typeOfDecl(m, D);
             //     here you have to distinguish between local and global MiniC variables.
             //     Local variables are kept in the JVM's local variable array.
             //     Global variables are kept as static JVM class variables.
             //     The code for the right-hand side of the assignment statement has already
-            //     been generated by the x.rAST.accept(). Now the result of the right-hand side
+            //     been generated by the walk of x.rAST. Now the result of the right-hand side
             //     of the expression needs to be written back from the stack to the left-hand
             //     side variable.
             //
             //     Relevant functions: isGlobal()
-            //                         emitStaticVariableReference()
-            //                         emitISTORE()
-            //                         emitFSTORE()
+            //                         emitStaticVariableReference(m)
+            //                         emitISTORE(m)
+            //                         emitFSTORE(m)
             //
             if (D.isGlobal()) {
-                emitStaticVariableReference(V.Ident, T, true);
+                emitStaticVariableReference(m, V.Ident, T, true);
             } else {
                 if      (T.Tequal(StdEnvironment.intType)
-                      || T.Tequal(StdEnvironment.boolType))  emitISTORE(D.index);
-                else if (T.Tequal(StdEnvironment.floatType)) emitFSTORE(D.index);
+                      || T.Tequal(StdEnvironment.boolType))  emitISTORE(m, D.index);
+                else if (T.Tequal(StdEnvironment.floatType)) emitFSTORE(m, D.index);
                 else                                         assert(false);
             }
         } else {
             assert(false); // Arrays not implemented.
         }
-    }
-
-    public void visit(IfStmt x) {
-        emit("; IfStmt, line " + x.pos.StartLine);
-        // The following code evaluates the condition of the if statement.
-        // After execution of this code, the stack will contain 0 if the condition
-        // evaluated to false, and 1 if the condition evaluated to true.
-        // You should apply the template for if statements from the lecture slides.
-        x.eAST.accept(this);
-        // Allocate 2 new labes for this if statement.
-        int L1 = frame.getNewLabel();
-        int L2 = frame.getNewLabel();
-        
-        emit("ifeq " + getLabelString(L1));
-
-        x.thenAST.accept(this);
-        
-        if (x.elseAST != null) {
-            emit(JVM.GOTO + " " + getLabelString(L2));
-        }
+        return null;
+    }
+
+    public AST visit(IfStmt x, Method m) {
+        switch (m.step()) {
+        case 0:
+            emit(m, "; IfStmt, line " + x.getLine());
+            // The following code evaluates the condition of the if statement.
+            // After execution of this code, the stack will contain 0 if the condition
+            // evaluated to false, and 1 if the condition evaluated to true.
+            // You should apply the template for if statements from the lecture slides.
+            return x.eAST;
+        case 1:
+            // Allocate 2 new labes for this if statement.
+            int L1 = m.frame.getNewLabel();
+            int L2 = m.frame.getNewLabel();
+            m.pushLabels(L1, L2);
+
+            emit(m, "ifeq " + getLabelString(L1));
+
+            return x.thenAST;
+        case 2:
+            if (x.elseAST != null) {
+                emit(m, JVM.GOTO + " " + getLabelString(m.secondLabel()));
+            }
 
-        emitLabel(L1);
+            emitLabel(m, m.firstLabel());
 
-        if (x.elseAST != null) {
-            x.elseAST.accept(this);
-            emitLabel(L2);
+            if (x.elseAST != null) {
+                return x.elseAST;
+            }
+            break;
+        case 3:
+            emitLabel(m, m.secondLabel());
+            break;
         }
+        m.popLabels();
+        return null;
     }
 
-    public void visit(WhileStmt x) {
-        emit("; WhileStmt, line " + x.pos.StartLine);
-        // You should apply the template for while loops from the lecture slides.
-        
-        int L1 = frame.getNewLabel();
-        int L2 = frame.getNewLabel();
+    public AST visit(WhileStmt x, Method m) {
+        switch (m.step()) {
+        case 0:
+            emit(m, "; WhileStmt, line " + x.getLine());
+            // You should apply the template for while loops from the lecture slides.
 
-        emitLabel(L1);
+            int L1 = m.frame.getNewLabel();
+            int L2 = m.frame.getNewLabel();
+            m.pushLabels(L1, L2);
 
-        x.eAST.accept(this);
-        emit("ifeq " + getLabelString(L2));
-        x.stmtAST.accept(this);
-        emit(JVM.GOTO + " " + getLabelString(L1));
+            emitLabel(m, L1);
 
-        emitLabel(L2);
-    }
+            return x.eAST;
+        case 1:
+            emit(m, "ifeq " + getLabelString(m.secondLabel()));
+            return x.stmtAST;
+        }
+        emit(m, JVM.GOTO + " " + getLabelString(m.firstLabel()));
 
-    public void visit(ForStmt x) {
-        emit ("; ForStmt, line " + x.pos.StartLine);
-        // No template was given for "for" loops, but you can find out by compiling a
-        // Java "for" loop to bytecode, use "dejasmin" and look how it is done there.
-        
-        int L1 = frame.getNewLabel();
-        int L2 = frame.getNewLabel();
+        emitLabel(m, m.secondLabel());
+        m.popLabels();
+        return null;
+    }
 
-        x.e1AST.accept(this);
+    public AST visit(ForStmt x, Method m) {
+        switch (m.step()) {
+        case 0:
+            emit(m, "; ForStmt, line " + x.getLine());
+            // No template was given for "for" loops, but you can find out by compiling a
+            // Java "for" loop to bytecode, use "dejasmin" and look how it is done there.
 
-        emitLabel(L1);
+            int L1 = m.frame.getNewLabel();
+            int L2 = m.frame.getNewLabel();
+            m.pushLabels(L1, L2);
 
-        x.e2AST.accept(this);
+            return x.e1AST;
+        case 1:
+            emitLabel(m, m.firstLabel());
 
-        emit("ifeq " + getLabelString(L2));
+            return x.e2AST;
+        case 2:
+            emit(m, "ifeq " + getLabelString(m.secondLabel()));
 
-        x.stmtAST.accept(this);
-        x.e3AST.accept(this);
-        emit(JVM.GOTO + " " + getLabelString(L1)); //Loop
+            return x.stmtAST;
+        case 3:
+            return x.e3AST;
+        }
+        emit(m, JVM.GOTO + " " + getLabelString(m.firstLabel())); //Loop
 
-        emitLabel(L2);
+        emitLabel(m, m.secondLabel());
+        m.popLabels();
+        return null;
     }
 
-    public void visit(ReturnStmt x) {
-        emit("; ReturnStmt, line " + x.pos.StartLine);
-        x.eAST.accept(this);
+    public AST visit(ReturnStmt x, Method m) {
+        if (m.step() == 0) {
+            emit(m, "; ReturnStmt, line " + x.getLine());
+            return x.eAST;
+        }
         if(x.eAST instanceof EmptyExpr) {
-            emitRETURN(StdEnvironment.voidType);
+            emitRETURN(m, StdEnvironment.voidType);
         } else {
-            emitRETURN(x.eAST.type);
+            emitRETURN(m, x.eAST.type);
         }
+        return null;
     }
 
-    public void visit(CompoundStmt x) {
-        x.astDecl.accept(this);
-        x.astStmt.accept(this);
+    public AST visit(CompoundStmt x, Method m) {
+        return TreeWalker.CHILDREN.visit(x, m);
     }
 
-    public void visit(EmptyStmt x) {
-        //emit("; EmptyStmt");
+    public AST visit(EmptyStmt x, Method m) {
+        //emit(m, "; EmptyStmt");
+        return null;
     }
 
-    public void visit(EmptyCompoundStmt x) {
-        //emit("; EmptyCompoundStmt");
+    public AST visit(ErrorStmt x, Method m) {
+        emit(m, "; ErrorStmt");
+        assert(false);
+        return null;
     }
 
-    public void visit(CallStmt x) {
-        emit("; CallStmt, line " + x.pos.StartLine);
-        x.eAST.accept(this);
+    public AST visit(EmptyCompoundStmt x, Method m) {
+        //emit(m, "; EmptyCompoundStmt");
+        return null;
     }
 
-    public void visit(VarDecl x) {
+    public AST visit(CallStmt x, Method m) {
+        if (m.step() == 0) {
+            emit(m, "; CallStmt, line " + x.getLine());
+            return x.eAST;
+        }
+        return null;
+    }
+
+    public AST visit(VarDecl x, Method m) {
         //     if this variable declaration declares a local variable, then
         //     you have to allocate a new local variable index from "frame"
         //     and assign it to x.index.
@@ -673,41 +776,53 @@ public class Emitter implements Visitor {
         //                        isGlobal()
         //                        frame.getNewLocalVarIndex
         if (!x.isGlobal()) {
-            x.tAST.accept(this);
-            x.idAST.accept(this);
-            x.eAST.accept(this);
-            
-            x.index = frame.getNewLocalVarIndex();
-            Type T = x.tAST;
+            switch (m.step()) {
+            case 0: return x.tAST;
+            case 1: return x.idAST;
+            case 2: return x.eAST;
+            }
+
+            x.index = m.frame.getNewLocalVarIndex();
+            Type T = x.type;
 
             if (!(x.eAST instanceof EmptyExpr)) {
                 if (T.Tequal(StdEnvironment.intType) ||
                     T.Tequal(StdEnvironment.boolType)) {
-                    emitISTORE(x.index);
+                    emitISTORE(m, x.index);
                 } else if (T.Tequal(StdEnvironment.floatType)) {
-                    emitFSTORE(x.index);
+                    emitFSTORE(m, x.index);
                 } else {
                     assert(false);
                 }
             }
         }
+        return null;
     }
 
-    public void visit(DeclSequence x){
-        if((x.D1 instanceof VarDecl) && GlobalScope) {
-          ((VarDecl) x.D1).setGlobal();
+    public AST visit(DeclSequence x, Method m) {
+        if (m.step() == 0) {
+            if((x.D1 instanceof VarDecl) && m.isGlobalScope()) {
+              ((VarDecl) x.D1).setGlobal();
+            }
+            if((x.D2 instanceof VarDecl) && m.isGlobalScope()) {
+              ((VarDecl) x.D2).setGlobal();
+            }
         }
-        if((x.D2 instanceof VarDecl) && GlobalScope) {
-          ((VarDecl) x.D2).setGlobal();
+        return TreeWalker.CHILDREN.visit(x, m);
+    }
+
+    public AST visit(DeclList x, Method m) {
+        AST D = TreeWalker.CHILDREN.visit(x, m);
+        if ((D instanceof VarDecl) && m.isGlobalScope()) {
+            ((VarDecl) D).setGlobal();
         }
-        x.D1.accept(this);
-        x.D2.accept(this);
+        return D;
     }
 
-    public void visit(VarExpr x) {
+    public AST visit(VarExpr x, Method m) {
         //Here we are dealing with read-accesses of applied occurrences of variables.
         //Why only read-access? Basically, no left-hand side of an assignment statement
-        //will occur here, because we do not invoke accept() on left-hand sides of
+        //will occur here, because we do not walk the left-hand sides of
         //assignment statements. This means that left-hand sides of assignments are not
         //traversed; they are handled right at the visit method for AssignStmt.
         //
@@ -724,38 +839,41 @@ public class Emitter implements Visitor {
         // - if x is a local variable, you need to emit an ILOAD or an FLOAD,
         //   depending on the type of variable (ILOAD for int and bool).
         //     Relevant functions: isGlobal()
-        //                         emitStaticVariableReference()
-        //                         emitILOAD(), emitFLOAD
+        //                         emitStaticVariableReference(m)
+        //                         emitILOAD(m), emitFLOAD
         Decl D = (Decl) x.Ident.declAST;
-        Type T = typeOfDecl (D);
+        Type T = typeOfDecl(m, D);
 
         if (D.isGlobal()) {
-            emitStaticVariableReference(x.Ident, T, false);
+            emitStaticVariableReference(m, x.Ident, T, false);
         } else {
             if      (T.Tequal(StdEnvironment.intType)
-                  || T.Tequal(StdEnvironment.boolType))  emitILOAD(D.index);
-            else if (T.Tequal(StdEnvironment.floatType)) emitFLOAD(D.index);
+                  || T.Tequal(StdEnvironment.boolType))  emitILOAD(m, D.index);
+            else if (T.Tequal(StdEnvironment.floatType)) emitFLOAD(m, D.index);
             else                                         assert(false);
         }
+        return null;
     }
 
-    public void visit(AssignExpr x) {
-        emit("; AssignExpr");
-        //x.lAST.accept(this);
-        //x.rAST.accept(this);
-        x.rAST.accept(this);
+    public AST visit(AssignExpr x, Method m) {
+        if (m.step() == 0) {
+            emit(m, "; AssignExpr");
+            //x.lAST.accept(this, m);
+            //x.rAST.accept(this, m);
+            return x.rAST;
+        }
         if (x.lAST instanceof VarExpr) {
            VarExpr V = (VarExpr) x.lAST;
            Decl D = (Decl) V.Ident.declAST; 
-           Type T = typeOfDecl(D);
+           Type T = typeOfDecl(m, D);
            if(D.isGlobal()) {
-              emitStaticVariableReference(V.Ident, typeOfDecl(V.Ident.declAST), true);
+              emitStaticVariableReference(m, V.Ident, typeOfDecl(m, V.Ident.declAST), true);
            } else {
               if(T.Tequal(StdEnvironment.intType)
                  || T.Tequal(StdEnvironment.boolType)) {
-                 emitISTORE(D.index);
+                 emitISTORE(m, D.index);
               } else if (T.Tequal(StdEnvironment.floatType)) {
-                 emitFSTORE(D.index);
+                 emitFSTORE(m, D.index);
               } else {
                  assert(false);
               }
@@ -763,145 +881,168 @@ public class Emitter implements Visitor {
         } else {
            assert(false); // Arrays not implemented.
         }
+        return null;
     }
 
-    public void visit(IntExpr x) {
-        x.astIL.accept(this);
+    public AST visit(IntExpr x, Method m) {
+        return TreeWalker.CHILDREN.visit(x, m);
     }
 
-    public void visit(FloatExpr x) {
-        x.astFL.accept(this);
+    public AST visit(FloatExpr x, Method m) {
+        return TreeWalker.CHILDREN.visit(x, m);
     }
 
-    public void visit(BoolExpr x) {
-        x.astBL.accept(this);
+    public AST visit(BoolExpr x, Method m) {
+        return TreeWalker.CHILDREN.visit(x, m);
     }
 
-    public void visit(StringExpr x) {
-        x.astSL.accept(this);
+    public AST visit(StringExpr x, Method m) {
+        return TreeWalker.CHILDREN.visit(x, m);
     }
 
-    public void visit(ArrayExpr x) {
-        emit("; ArrayExpr");
-        x.idAST.accept(this);
-        x.indexAST.accept(this);
+    public AST visit(ArrayExpr x, Method m) {
+        switch (m.step()) {
+        case 0:
+            emit(m, "; ArrayExpr");
+            return x.idAST;
+        case 1:
+            return x.indexAST;
+        }
+        return null;
     }
 
-    public void visit(BinaryExpr x) {
-        //emit("; BinaryExpr");
-        String Op = new String(x.oAST.Lexeme);
+    public AST visit(BinaryExpr x, Method m) {
+        //emit(m, "; BinaryExpr");
+        OpKind Op = x.oAST.kind;
         boolean isFloat = x.oAST.type.Tequal(StdEnvironment.floatType);
 
-        if (Op.equals("&&")) {
-            int L1 = frame.getNewLabel();
-            int L2 = frame.getNewLabel();
-
-            //     implement the code template for && short circuit evaluation
-            //     from the lecture slides.
-            x.lAST.accept(this);
-            emit("ifeq " + getLabelString(L1));
-            x.rAST.accept(this);
-            emit("ifeq " + getLabelString(L1));
+        if (Op == OpKind.AND) {
+            switch (m.step()) {
+            case 0:
+                int L1 = m.frame.getNewLabel();
+                int L2 = m.frame.getNewLabel();
+                m.pushLabels(L1, L2);
+
+                //     implement the code template for && short circuit evaluation
+                //     from the lecture slides.
+                return x.lAST;
+            case 1:
+                emit(m, "ifeq " + getLabelString(m.firstLabel()));
+                return x.rAST;
+            }
+            emit(m, "ifeq " + getLabelString(m.firstLabel()));
             
-            emitICONST(1);
-            emit(JVM.GOTO + " " + getLabelString(L2));
+            emitICONST(m, 1);
+            emit(m, JVM.GOTO + " " + getLabelString(m.secondLabel()));
 
-            emitLabel(L1);
-            emitICONST(0);
+            emitLabel(m, m.firstLabel());
+            emitICONST(m, 0);
 
-            emitLabel(L2);
-            return;
+            emitLabel(m, m.secondLabel());
+            m.popLabels();
+            return null;
         }
-        if (Op.equals("||")) {
-            int L1 = frame.getNewLabel();
-            int L2 = frame.getNewLabel();
-
-            //     implement || short circuit evaluation.
-            //     Similar to &&, you may use a Java example to figure it out..
-            x.lAST.accept(this);
-            emit("ifne " + getLabelString(L1));
-            x.rAST.accept(this);
-            emit("ifne " + getLabelString(L1));
+        if (Op == OpKind.OR) {
+            switch (m.step()) {
+            case 0:
+                int L1 = m.frame.getNewLabel();
+                int L2 = m.frame.getNewLabel();
+                m.pushLabels(L1, L2);
+
+                //     implement || short circuit evaluation.
+                //     Similar to &&, you may use a Java example to figure it out..
+                return x.lAST;
+            case 1:
+                emit(m, "ifne " + getLabelString(m.firstLabel()));
+                return x.rAST;
+            }
+            emit(m, "ifne " + getLabelString(m.firstLabel()));
             
-            emitICONST(1);
-            emit(JVM.GOTO + " " + getLabelString(L2));
+            emitICONST(m, 1);
+            emit(m, JVM.GOTO + " " + getLabelString(m.secondLabel()));
 
-            emitLabel(L1);
-            emitICONST(0);
+            emitLabel(m, m.firstLabel());
+            emitICONST(m, 0);
 
-            emitLabel(L2);
+            emitLabel(m, m.secondLabel());
+            m.popLabels();
 
-            return;
+            return null;
         }
         /*
          * Here we treat +, -, *, / >, >=, <, <=, ==, !=
          * See the code templates in the lecture slides. Remaining cases are
          * similar, you can check how the javac compiler does it.
          */
-        x.lAST.accept(this);
-        x.rAST.accept(this);
+        switch (m.step()) {
+        case 0: return x.lAST;
+        case 1: return x.rAST;
+        }
         
         switch (Op) {
-        case ">": case "<": case ">=": case "<=": case "==": case "!=":
-            int L1 = frame.getNewLabel();
-            int L2 = frame.getNewLabel();
+        case GREATER: case LESS: case GREATEREQ: case LESSEQ: case EQ: case NOTEQ:
+            int L1 = m.frame.getNewLabel();
+            int L2 = m.frame.getNewLabel();
 
             if (isFloat) {
                 switch (Op) {
-                    case "<": case ">=": case "==": case "!=":
-                    emit("fcmpg"); break;
-                    case ">": case "<=":
-                    emit("fcmpl"); break;
+                    case LESS: case GREATEREQ: case EQ: case NOTEQ:
+                    emit(m, "fcmpg"); break;
+                    case GREATER: case LESSEQ:
+                    emit(m, "fcmpl"); break;
                 }
 
                 switch (Op) {
-                    case ">":  emit(JVM.IFGT + " " + getLabelString(L1)); break;
-                    case "<":  emit(JVM.IFLT + " " + getLabelString(L1)); break;
-                    case ">=": emit(JVM.IFGE + " " + getLabelString(L1)); break;
-                    case "<=": emit(JVM.IFLE + " " + getLabelString(L1)); break;
-                    case "==": emit(JVM.IFEQ + " " + getLabelString(L1)); break;
-                    case "!=": emit(JVM.IFNE + " " + getLabelString(L1)); break;
+                    case GREATER:   emit(m, JVM.IFGT + " " + getLabelString(L1)); break;
+                    case LESS:      emit(m, JVM.IFLT + " " + getLabelString(L1)); break;
+                    case GREATEREQ: emit(m, JVM.IFGE + " " + getLabelString(L1)); break;
+                    case LESSEQ:    emit(m, JVM.IFLE + " " + getLabelString(L1)); break;
+                    case EQ:        emit(m, JVM.IFEQ + " " + getLabelString(L1)); break;
+                    case NOTEQ:     emit(m, JVM.IFNE + " " + getLabelString(L1)); break;
                 }
             } else {
                 switch (Op) {
-                    case ">":  emit(JVM.IF_ICMPGT + " " + getLabelString(L1)); break;
-                    case "<":  emit(JVM.IF_ICMPLT + " " + getLabelString(L1)); break;
-                    case ">=": emit(JVM.IF_ICMPGE + " " + getLabelString(L1)); break;
-                    case "<=": emit(JVM.IF_ICMPLE + " " + getLabelString(L1)); break;
-                    case "==": emit(JVM.IF_ICMPEQ + " " + getLabelString(L1)); break;
-                    case "!=": emit(JVM.IF_ICMPNE + " " + getLabelString(L1)); break;
+                    case GREATER:   emit(m, JVM.IF_ICMPGT + " " + getLabelString(L1)); break;
+                    case LESS:      emit(m, JVM.IF_ICMPLT + " " + getLabelString(L1)); break;
+                    case GREATEREQ: emit(m, JVM.IF_ICMPGE + " " + getLabelString(L1)); break;
+                    case LESSEQ:    emit(m, JVM.IF_ICMPLE + " " + getLabelString(L1)); break;
+                    case EQ:        emit(m, JVM.IF_ICMPEQ + " " + getLabelString(L1)); break;
+                    case NOTEQ:     emit(m, JVM.IF_ICMPNE + " " + getLabelString(L1)); break;
                 }
             }
 
-            emitICONST(0);
-            emit(JVM.GOTO + " " + getLabelString(L2));
-            emitLabel(L1);
-            emitICONST(1);
-            emitLabel(L2);
+            emitICONST(m, 0);
+            emit(m, JVM.GOTO + " " + getLabelString(L2));
+            emitLabel(m, L1);
+            emitICONST(m, 1);
+            emitLabel(m, L2);
 
             break;
-        case "+": case "-": case "*": case "/":
+        case PLUS: case MINUS: case TIMES: case DIV:
             String opstr = isFloat ? "f" : "i";
             
             switch (Op) {
-                case "+": opstr += "add"; break;
-                case "-": opstr += "sub"; break;
-                case "*": opstr += "mul"; break;
-                case "/": opstr += "div"; break;
+                case PLUS: opstr += "add"; break;
+                case MINUS: opstr += "sub"; break;
+                case TIMES: opstr += "mul"; break;
+                case DIV: opstr += "div"; break;
             }
-            emit(opstr);
+            emit(m, opstr);
 
             break;
         default:
             assert(false);
         }
 
+        return null;
     }
 
-    public void visit(UnaryExpr x) {
-        //emit("; UnaryExpr");
-        String Op = new String(x.oAST.Lexeme);
-        x.eAST.accept(this);
+    public AST visit(UnaryExpr x, Method m) {
+        //emit(m, "; UnaryExpr");
+        if (m.step() == 0) {
+            return x.eAST;
+        }
+        OpKind Op = x.oAST.kind;
         // Here we treat the following cases:
         //   unary "-": emit JVM.INEG for integers
         //   unary "+": do nothing
@@ -915,137 +1056,165 @@ public class Emitter implements Visitor {
         //              iconst_0
         //           Label2:
         switch (Op) {
-        case "-": emit(JVM.INEG); break;
-        case "+": break;
-        case "!":
-            int L1 = frame.getNewLabel();
-            int L2 = frame.getNewLabel();
-            emit(JVM.IFNE + " " + getLabelString(L1));
-            emitICONST(1);
-            emit(JVM.GOTO + " " + getLabelString(L2));
-            emitLabel(L1);
-            emitICONST(0);
-            emitLabel(L2);
+        case MINUS: emit(m, JVM.INEG); break;
+        case PLUS: break;
+        case NOT:
+            int L1 = m.frame.getNewLabel();
+            int L2 = m.frame.getNewLabel();
+            emit(m, JVM.IFNE + " " + getLabelString(L1));
+            emitICONST(m, 1);
+            emit(m, JVM.GOTO + " " + getLabelString(L2));
+            emitLabel(m, L1);
+            emitICONST(m, 0);
+            emitLabel(m, L2);
             break;
-        case "i2f": emit(JVM.I2F); break;
+        case I2F: emit(m, JVM.I2F); break;
         default: assert(false);
         }
+        return null;
+    }
+
+    public AST visit(EmptyExpr x, Method m) {
+        // emit(m, "; EmptyExpr");
+        return null;
     }
 
-    public void visit(EmptyExpr x) {
-        // emit("; EmptyExpr");
+    public AST visit(ActualParam x, Method m) {
+        if (m.step() == 0) {
+            emit(m, "; ActualParam");
+            return x.pAST;
+        }
+        return null;
     }
 
-    public void visit(ActualParam x) {
-        emit("; ActualParam");
-        x.pAST.accept(this);
+    public AST visit(EmptyActualParam x, Method m) {
+        // emit(m, "; EmptyActualParam");
+        return null;
     }
 
-    public void visit(EmptyActualParam x) {
-        // emit("; EmptyActualParam");
+    public AST visit(ActualParamSequence x, Method m) {
+        // emit(m, "; ActualParamSequence");
+        return TreeWalker.CHILDREN.visit(x, m);
     }
 
-    public void visit(ActualParamSequence x) {
-        // emit("; ActualParamSequence");
-        x.lAST.accept(this);
-        x.rAST.accept(this);
+    public AST visit(ActualParamList x, Method m) {
+        return TreeWalker.CHILDREN.visit(x, m);
     }
 
-    public void visit(CallExpr x) {
-        emit("; CallExpr");
-        //x.idAST.accept(this);
+    public AST visit(CallExpr x, Method m) {
         assert(x.idAST.declAST instanceof FunDecl);
         FunDecl F = (FunDecl )x.idAST.declAST;
-        if (!isStaticMethod(F)) {
-            emit("; \"this\"-pointer is the first ActualParam with instance methods:");
-            if (isMain)
-                emit(JVM.ALOAD_1);
-            else
-                emit(JVM.ALOAD_0);
+        if (m.step() == 0) {
+            emit(m, "; CallExpr");
+            //x.idAST.accept(this, m);
+            if (!isStaticMethod(F)) {
+                emit(m, "; \"this\"-pointer is the first ActualParam with instance methods:");
+                if (m.isMain)
+                    emit(m, JVM.ALOAD_1);
+                else
+                    emit(m, JVM.ALOAD_0);
+            }
+            return x.paramAST;
         }
-        x.paramAST.accept(this);
         if (isStaticMethod(F)) {
-            emit(JVM.INVOKESTATIC + " lang/System/" +
-                 x.idAST.Lexeme + getDescriptor(F));
+            emit(m, JVM.INVOKESTATIC + " lang/System/" +
+                 x.idAST.Lexeme + getDescriptor(m, F));
         } else {
         //     in case of an instance method, you need emit an JVM.INVOKEVIRTUAL instruction.
         //     the name of the function consists of <ClassName>/<functionname><functiondescriptor>.
         //     Relevant variables/functions: see above for static methods.
-            emit(JVM.INVOKEVIRTUAL + " " +
-                 ClassName + "/" + x.idAST.Lexeme + getDescriptor(F));
+            emit(m, JVM.INVOKEVIRTUAL + " " +
+                 ClassName + "/" + x.idAST.Lexeme + getDescriptor(m, F));
         }
+        return null;
+    }
+
+    public AST visit(ExprSequence x, Method m) {
+        // emit(m, "; ExprSequence");
+        return TreeWalker.CHILDREN.visit(x, m);
     }
 
-    public void visit(ExprSequence x) {
-        // emit("; ExprSequence");
-        x.lAST.accept(this);
-        x.rAST.accept(this);
+    public AST visit(ExprList x, Method m) {
+        return TreeWalker.CHILDREN.visit(x, m);
     }
 
-    public void visit(ID x) {
-        // emit("; ID: " + x.Lexeme);
+    public AST visit(ID x, Method m) {
+        // emit(m, "; ID: " + x.Lexeme);
+        return null;
     }
 
-    public void visit(Operator x) {
-        // emit("; Operator: " + x.Lexeme);
+    public AST visit(Operator x, Method m) {
+        // emit(m, "; Operator: " + x.Lexeme);
+        return null;
     } 
 
-    public void visit(IntLiteral x) {
-        //emit("; IntLiteral: " + x.Lexeme + "\n");
+    public AST visit(IntLiteral x, Method m) {
+        //emit(m, "; IntLiteral: " + x.Lexeme + "\n");
         //     here you have to emit an ICONST instruction to load the integer literal
         //     onto the JVM stack. (see emitICONST).
-        emitICONST(x.GetValue());
+        emitICONST(m, x.GetValue());
+        return null;
     } 
 
-    public void visit(FloatLiteral x) {
-        //emit("; FloatLiteral: " + x.Lexeme + "\n");
+    public AST visit(FloatLiteral x, Method m) {
+        //emit(m, "; FloatLiteral: " + x.Lexeme + "\n");
         //     same for float
-        emitFCONST(Float.parseFloat(x.Lexeme));
+        emitFCONST(m, Float.parseFloat(x.Lexeme));
+        return null;
     } 
 
-    public void visit(BoolLiteral x) {
-        //emit("; BoolLiteral: " + x.Lexeme + "\n");
+    public AST visit(BoolLiteral x, Method m) {
+        //emit(m, "; BoolLiteral: " + x.Lexeme + "\n");
         if (x.Lexeme.equals("false")) {
-            emitICONST(0);
+            emitICONST(m, 0);
         } else if (x.Lexeme.equals("true")) {
-            emitICONST(1);
+            emitICONST(m, 1);
         } else {
             assert(false);
         }
+        return null;
     }
 
-    public void visit(StringLiteral x) {
-        //emit("; StringLiteral: " + x.Lexeme);
-        emit(JVM.LDC + " \"" + x.Lexeme +"\"");
+    public AST visit(StringLiteral x, Method m) {
+        //emit(m, "; StringLiteral: " + x.Lexeme);
+        emit(m, JVM.LDC + " \"" + x.Lexeme +"\"");
+        return null;
     } 
 
-    public void visit(IntType x) {
-        //emit("; IntType");
+    public AST visit(IntType x, Method m) {
+        //emit(m, "; IntType");
+        return null;
     }
 
-    public void visit(FloatType x) {
-        //emit("; FloatType");
+    public AST visit(FloatType x, Method m) {
+        //emit(m, "; FloatType");
+        return null;
     }
 
-    public void visit(BoolType x) {
-        //emit("; BoolType");
+    public AST visit(BoolType x, Method m) {
+        //emit(m, "; BoolType");
+        return null;
     }
 
-    public void visit(StringType x) {
-        //emit("; StringType");
+    public AST visit(StringType x, Method m) {
+        //emit(m, "; StringType");
+        return null;
     }
 
-    public void visit(VoidType x) {
-        //emit("; VoidType");
+    public AST visit(VoidType x, Method m) {
+        //emit(m, "; VoidType");
+        return null;
     }
 
-    public void visit(ArrayType x) {
-        //emit("; ArrayType");
+    public AST visit(ArrayType x, Method m) {
+        //emit(m, "; ArrayType");
+        return null;
     }
 
-    public void visit(ErrorType x) {
-        emit("; ErrorType");
+    public AST visit(ErrorType x, Method m) {
+        emit(m, "; ErrorType");
         assert(false);
+        return null;
     }
 
 }
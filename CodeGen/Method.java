@@ -0,0 +1,76 @@
+package MiniC.CodeGen;
+
+import java.util.ArrayList;
+import MiniC.Scanner.SourcePos;
+import MiniC.AstGen.TreeWalker;
+
+// The context the Emitter generates one Jasmin method in: the text
+// emitted so far with its indentation, the frame of the MiniC function
+// and whether it is "main". The class header, static fields and the
+// methods that are not MiniC functions are emitted in a Method without
+// a frame, which stands for the global scope.
+//
+// A Method emitted concurrently with others keeps the errors found on
+// the way, to be reported when its text is written out, so that they
+// come in source order however the methods are emitted.
+//
+// The Emitter walks the AST of the method on the Method itself; the
+// labels a statement or expression jumps to between its children are
+// kept on a stack here, two for each, while it is being walked.
+class Method extends TreeWalker {
+
+    final StringBuilder text;
+    int indent;
+    final Frame frame;
+    final boolean isMain;
+
+    final boolean deferErrors;
+    final ArrayList<String> errors;
+    final ArrayList<SourcePos> errorPositions;
+
+    private int[] labels;
+    private int nlabels;
+
+    Method (Frame frame, boolean isMain, boolean deferErrors) {
+	this.text = new StringBuilder();
+	this.indent = 0;
+	this.frame = frame;
+	this.isMain = isMain;
+	this.deferErrors = deferErrors;
+	this.errors = new ArrayList<String>();
+	this.errorPositions = new ArrayList<SourcePos>();
+	this.labels = new int[16];
+	this.nlabels = 0;
+    }
+
+    // true if we are in the outermost "global" scope.
+    boolean isGlobalScope() {
+	return frame == null;
+    }
+
+    void deferError(String message, SourcePos pos) {
+	errors.add(message);
+	errorPositions.add(pos);
+    }
+
+    void pushLabels(int first, int second) {
+	if (nlabels == labels.length) {
+	    labels = java.util.Arrays.copyOf(labels, 2 * nlabels);
+	}
+	labels[nlabels++] = first;
+	labels[nlabels++] = second;
+    }
+
+    int firstLabel() {
+	return labels[nlabels - 2];
+    }
+
+    int secondLabel() {
+	return labels[nlabels - 1];
+    }
+
+    void popLabels() {
+	nlabels -= 2;
+    }
+
+}
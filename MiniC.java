@@ -2,15 +2,23 @@ package MiniC;
 
 import MiniC.Scanner.Scanner;
 import MiniC.Scanner.SourceFile;
+import MiniC.Scanner.Token;
+import MiniC.Scanner.ParallelScanner;
+import MiniC.Scanner.TokenBuffer;
+import MiniC.Scanner.TokenCache;
 import MiniC.Parser.Parser;
+import MiniC.Parser.ParallelParser;
 import MiniC.SemanticAnalysis.SemanticAnalysis;
 import MiniC.CodeGen.Emitter;
 import MiniC.StdEnvironment;
+import MiniC.AstGen.FlatAST;
 import MiniC.AstGen.Program;
 import MiniC.TreeDrawer.Drawer;
 import MiniC.TreePrinter.Printer;
 import MiniC.Unparser.Unparser;
 
+import java.util.concurrent.ForkJoinPool;
+
 public class MiniC{
 
     private static Scanner scanner;
@@ -28,8 +36,10 @@ public class MiniC{
     private static Program AST;
     //commandline args:
     private static String sourceName;
-    private static boolean DrawTree1, DrawTree2, DrawStdEnvTree, PrintTree, UnparseTree;
-    private static String PrintTreeF, UnparseTreeF;
+    private static boolean DrawTree1, DrawTree2, DrawStdEnvTree, PrintTree, PrintFlatTree, UnparseTree;
+    private static boolean LexOnly, SwitchScanner, ParallelScan, CacheTokens, ParallelParse, ParallelGen;
+    private static int MaxErrors;
+    private static String PrintTreeF, PrintFlatTreeF, UnparseTreeF;
 
 
     static void compileProgram (String sourceName) {
@@ -41,23 +51,53 @@ public class MiniC{
 
         SourceFile source = new SourceFile(sourceName);
 
-        if (source == null) {
+        if (source.isUnreadable()) {
             System.out.println("Error opening file " + sourceName);
             System.exit(1);
         }
 
         scanner  = new Scanner(source);
+        scanner.setTableDriven(!SwitchScanner);
         /*
          * Enable this to observe the sequence of tokens
          * delivered by the scanner:
          *
          */
         //scanner.enableDebugging();
+        if (LexOnly) {
+            System.out.println("Lexical Analysis ...");
+            scanner.enableSharedTokens();
+            Token token;
+            do {
+                token = scanner.scan();
+                int number = scanner.getTokenCount();
+                token.print(number, scanner.getSourcePos(number));
+            } while (token.kind != Token.EOF);
+            return;
+        }
         reporter = new ErrorReporter();
 	stdenv   = new StdEnvironment();
-        parser   = new Parser(scanner, reporter);
+        if (CacheTokens) {
+            java.io.File cache = TokenCache.cacheFileFor(sourceName);
+            TokenBuffer tokens = TokenCache.load(source, cache);
+            if (tokens == null) {
+                tokens = ParallelScan ? ParallelScanner.scanAll(source) : scanner.scanAll();
+                TokenCache.store(source, tokens, cache);
+            }
+            parser = new Parser(tokens, reporter);
+        } else if (ParallelScan) {
+            parser = new Parser(ParallelScanner.scanAll(source), reporter);
+        } else if (ParallelParse) {
+            parser = new Parser(scanner.scanAll(), reporter);
+        } else {
+            parser = new Parser(scanner, reporter);
+        }
+        parser.setMaxErrors(MaxErrors);
 	sem      = new SemanticAnalysis(reporter);
         emitter  = new Emitter(sourceName, reporter);
+        if (ParallelGen) {
+            emitter.setPool(ForkJoinPool.commonPool());
+        }
         drawer   = new Drawer();
 	printer  = new Printer();
 	unparser = new Unparser();
@@ -68,12 +108,19 @@ public class MiniC{
 	}
 
         System.out.println("Syntax Analysis ...");
-        AST = parser.parse();	    // 1st pass
+        if (ParallelParse) {
+            AST = ParallelParser.parse(parser);	    // 1st pass
+        } else {
+            AST = parser.parse();	    // 1st pass
+        }
 
         if (reporter.numErrors == 0) {
 	    if(PrintTree) {
 		printer.print(AST, PrintTreeF);
 	    }
+	    if(PrintFlatTree) {
+		printer.print(FlatAST.from(AST), PrintFlatTreeF);
+	    }
 	    if(UnparseTree) {
 		unparser.unparse(AST, UnparseTreeF);
 	    }
@@ -105,7 +152,15 @@ public class MiniC{
 	System.out.println("Option: -ast2 to draw the AST after semantic analysis");
 	System.out.println("Option: -envast to draw the StdEnvironment AST"); 
 	System.out.println("Option: -t <file> to dump the AST to <file>");
+	System.out.println("Option: -tflat <file> to dump the AST to <file> from its flat form");
 	System.out.println("Option: -u <file> to unparse the AST to <file>");
+	System.out.println("Option: -lex to only scan the source, printing its tokens");
+	System.out.println("Option: -switchscan to run the scanner FSM without its transition table");
+	System.out.println("Option: -pscan to scan large sources in parallel");
+	System.out.println("Option: -tokcache to keep the tokens in <filename>.tokens for the next run");
+	System.out.println("Option: -maxerrors <n> to report up to <n> syntax errors (default 1)");
+	System.out.println("Option: -pparse to parse the top-level declarations in parallel");
+	System.out.println("Option: -pgen to generate the code of the functions in parallel");
 	System.exit(1);
     }
 
@@ -115,8 +170,17 @@ public class MiniC{
 	DrawStdEnvTree = false;
 	PrintTree = false;
 	PrintTreeF = "";
+	PrintFlatTree = false;
+	PrintFlatTreeF = "";
 	UnparseTree = false;
 	UnparseTreeF = "";
+	LexOnly = false;
+	SwitchScanner = false;
+	ParallelScan = false;
+	CacheTokens = false;
+	ParallelParse = false;
+	ParallelGen = false;
+	MaxErrors = 1;
         sourceName = "";
 	int arg_index = 0;
 	while (arg_index < args.length) {
@@ -129,6 +193,35 @@ public class MiniC{
 	    } else if (args[arg_index].equals("-envast")) {
 		DrawStdEnvTree = true;
 		arg_index++;
+	    } else if (args[arg_index].equals("-lex")) {
+		LexOnly = true;
+		arg_index++;
+	    } else if (args[arg_index].equals("-switchscan")) {
+		SwitchScanner = true;
+		arg_index++;
+	    } else if (args[arg_index].equals("-pscan")) {
+		ParallelScan = true;
+		arg_index++;
+	    } else if (args[arg_index].equals("-tokcache")) {
+		CacheTokens = true;
+		arg_index++;
+	    } else if (args[arg_index].equals("-pparse")) {
+		ParallelParse = true;
+		arg_index++;
+	    } else if (args[arg_index].equals("-pgen")) {
+		ParallelGen = true;
+		arg_index++;
+	    } else if (args[arg_index].equals("-maxerrors")) {
+		if (arg_index + 1 >= args.length) {
+		    usage();
+		}
+		arg_index++;
+		try {
+		    MaxErrors = Integer.parseInt(args[arg_index]);
+		} catch (NumberFormatException e) {
+		    usage();
+		}
+		arg_index++;
 	    } else if (args[arg_index].equals("-t")) {
 		PrintTree = true;
 		if (args.length < arg_index + 1) {
@@ -138,6 +231,14 @@ public class MiniC{
                     PrintTreeF = args[arg_index];
                     arg_index++;
 		}
+	    } else if (args[arg_index].equals("-tflat")) {
+		if (arg_index + 1 >= args.length) {
+		    usage();
+		}
+		PrintFlatTree = true;
+		arg_index++;
+		PrintFlatTreeF = args[arg_index];
+		arg_index++;
 	    } else if (args[arg_index].equals("-u")) {
 		UnparseTree = true;
 		if (args.length < arg_index + 1) {
@@ -0,0 +1,87 @@
+package MiniC.Parser;
+
+import MiniC.Parser.Parser;
+import MiniC.Scanner.Scanner;
+import MiniC.Scanner.SourceFile;
+import MiniC.AstGen.*;
+import MiniC.TreePrinter.FlatTreePrinter;
+import MiniC.TreePrinter.TreePrinterVisitor;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.List;
+
+// Test driver for the flat AST:
+//   java MiniC.Parser.FlatCheck file
+// parses file, turns its program into a FlatAST and that back into
+// AstGen objects with toAST(), and checks the rebuilt tree against the
+// parsed one node by node with their positions, as ReparseCheck does.
+// The -t print of both trees and the -tflat print of the FlatAST must
+// be the same as well.
+public class FlatCheck {
+
+  public static void main(String[] args) {
+    if (args.length != 1) {
+      System.out.println("Usage: FlatCheck file");
+      System.exit(1);
+    }
+    SourceFile source = new SourceFile(args[0]);
+    if (source.isUnreadable()) {
+      System.out.println("Error opening file " + args[0]);
+      System.exit(1);
+    }
+    Program program = new Parser(new Scanner(source).scanAll(), null).parse();
+    if (program == null) {
+      System.out.println("syntax error");
+      System.exit(1);
+    }
+    FlatAST flat = FlatAST.from(program);
+    AST rebuilt = flat.toAST();
+    System.out.print(flat.size() + " nodes");
+
+    List<String> nodes = ReparseCheck.dump(rebuilt), expectedNodes = ReparseCheck.dump(program);
+    int i = 0;
+    while (i < nodes.size() && i < expectedNodes.size()
+           && nodes.get(i).equals(expectedNodes.get(i))) {
+      i++;
+    }
+    if (i < nodes.size() || i < expectedNodes.size()) {
+      System.out.println(", MISMATCH at node " + i);
+      System.out.println("  parse:    " + ((i < expectedNodes.size()) ? expectedNodes.get(i) : "none"));
+      System.out.println("  rebuilt:  " + ((i < nodes.size()) ? nodes.get(i) : "none"));
+      return;
+    }
+    String tree = print(program), rebuiltTree = print(rebuilt), flatTree = print(flat);
+    if (!rebuiltTree.equals(tree)) {
+      System.out.println(", MISMATCH: -t prints the rebuilt tree differently");
+    } else if (!flatTree.equals(tree)) {
+      System.out.println(", MISMATCH: -tflat prints differently from -t");
+    } else {
+      System.out.println(", rebuilt tree same as the parse");
+    }
+  }
+
+  // what -t writes for the tree at root
+  static String print(AST root) {
+    StringWriter s = new StringWriter();
+    try (BufferedWriter out = new BufferedWriter(s)) {
+      TreeWalker.walk(root, new TreePrinterVisitor(out));
+    } catch (IOException e) {
+      throw new java.io.UncheckedIOException(e);
+    }
+    return s.toString();
+  }
+
+  // what -tflat writes for ast
+  static String print(FlatAST ast) {
+    StringWriter s = new StringWriter();
+    try (BufferedWriter out = new BufferedWriter(s)) {
+      ast.walk(new FlatTreePrinter(out));
+    } catch (IOException e) {
+      throw new java.io.UncheckedIOException(e);
+    }
+    return s.toString();
+  }
+
+}
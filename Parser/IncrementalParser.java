@@ -0,0 +1,255 @@
+package MiniC.Parser;
+
+import MiniC.ErrorReporter;
+import MiniC.Parser.Parser;
+import MiniC.Scanner.Scanner;
+import MiniC.Scanner.SourceFile;
+import MiniC.Scanner.SourcePos;
+import MiniC.Scanner.TokenBuffer;
+import MiniC.AstGen.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Keeps the program of a source that is being edited up to date. An
+// edit rescans the source around it (Scanner.rescan()) and reparses
+// only the top-level declarations whose tokens changed. The new
+// declarations are spliced into the DeclList of the program in
+// place of the old ones, and those after them are moved
+// down by the number of lines the edit added. All other declarations
+// stay the same objects, so later passes can skip them; the result
+// is the program Parser.parse() would give for the edited source.
+//
+// After a syntax error the whole program is parsed again, reporting
+// the errors, on every edit until it parses again.
+public final class IncrementalParser {
+
+  private SourceFile source;
+  private TokenBuffer tokens;
+  private ErrorReporter reporter;
+  private Program program;
+
+  // The top-level declarations in source order, as the parser returned
+  // them, and the token each starts at, the index of EOF last. decls
+  // is null when there is no program to update.
+  private ArrayList<Decl> decls;
+  private int[] starts;
+
+  // the declarations parsed by the last edit
+  private List<Decl> changed;
+
+  public IncrementalParser(SourceFile source, ErrorReporter reporter) {
+    this.source = source;
+    this.reporter = reporter;
+    tokens = new Scanner(source).scanAll();
+    parseAll();
+  }
+
+  // The program, or null if the source has a syntax error.
+  public Program getProgram() {
+    return program;
+  }
+
+  public SourceFile getSource() {
+    return source;
+  }
+
+  public TokenBuffer getTokens() {
+    return tokens;
+  }
+
+  // The top-level declarations the last edit, or the constructor,
+  // parsed; all others are unchanged.
+  public List<Decl> getChangedDecls() {
+    return changed;
+  }
+
+  // Replaces removed characters at offset by text, and returns the
+  // program of the edited source; null if it has a syntax error.
+  public Program edit(int offset, int removed, String text) {
+    TokenBuffer oldTokens = tokens;
+    source = source.edit(offset, removed, text);
+    tokens = Scanner.rescan(oldTokens, source, offset, removed, text.length());
+    boolean reparsed = false;
+    try {
+      reparsed = decls != null && reparse(oldTokens, offset, removed, text.length());
+    } finally {
+      // nothing to update after an exception
+      if (!reparsed) {
+        decls = null;
+        program = null;
+      }
+    }
+    if (!reparsed) {
+      parseAll();
+    }
+    return program;
+  }
+
+  private void parseAll() {
+    Parser parser = new Parser(tokens, reporter);
+    program = parser.parse();
+    decls = null;
+    changed = (program == null) ? new ArrayList<Decl>() : parser.topLevelDecls;
+    if (program == null) {
+      return;
+    }
+    starts = ParallelParser.declStarts(tokens);
+    if (starts == null || starts.length != changed.size() + 1) {
+      return;
+    }
+
+    decls = new ArrayList<Decl>(changed);
+  }
+
+  // the number of items decl takes in the DeclList of the program
+  private static int itemCount(Decl decl) {
+    return (decl instanceof DeclList) ? ((DeclList) decl).items.size() : 1;
+  }
+
+  // the items of the declarations [from, to) of decls
+  private int itemCount(int from, int to) {
+    int count = 0;
+    for (int k = from; k < to; k++) {
+      count += itemCount(decls.get(k));
+    }
+    return count;
+  }
+
+  // Reparses the declarations the edit touched; false if this takes
+  // a full parse.
+  private boolean reparse(TokenBuffer old, int offset, int removed, int inserted) {
+    int oldSize = old.size();
+    int size = tokens.size();
+    int delta = inserted - removed;
+    if (decls.isEmpty()) {
+      return false;
+    }
+
+    // old tokens [same, oldSize - sameEnd) became new tokens
+    // [same, size - sameEnd); equal() does not compare the text, so
+    // only tokens clear of the edit count as the same
+    int same = 0;
+    while (same + 1 < oldSize && same + 1 < size && old.posEnd[same] < offset
+           && equal(old, same, same, 0)) {
+      same++;
+    }
+    int sameEnd = 1;
+    while (same + sameEnd < oldSize && same + sameEnd < size
+           && old.pos[oldSize - 1 - sameEnd] > offset + removed
+           && equal(old, oldSize - 1 - sameEnd, size - 1 - sameEnd, delta)) {
+      sameEnd++;
+    }
+
+    // the declarations holding a changed token or the edit...
+    int first = declAt(Math.min(same, tokenAt(old, offset)));
+    int last = declAt(Math.max(oldSize - sameEnd - 1, tokenAt(old, offset + removed)));
+    // ... and those starting on the line the edit ends on, as their
+    // columns may have changed
+    int editLine = old.getSource().lineOf(offset + removed);
+    while (last + 1 < decls.size() && old.getStartLine(starts[last + 1]) == editLine) {
+      last++;
+    }
+
+    int from = starts[first];
+    int to = starts[last + 1] + size - oldSize;
+    if (to < from || to >= size) {
+      return false;
+    }
+    TokenBuffer part = tokens.slice(from, to);
+    int[] partStarts = ParallelParser.declStarts(part);
+    ArrayList<Decl> parsed = new Parser(part, null).parseDecls();
+    if (parsed == null || partStarts == null || partStarts.length != parsed.size() + 1) {
+      return false;
+    }
+
+    // move the declarations after them
+    if (last + 1 < decls.size()) {
+      int lines = tokens.getStartLine(to) - old.getStartLine(starts[last + 1]);
+      if (lines != 0) {
+        PositionShifter shifter = new PositionShifter(lines);
+        for (int k = last + 1; k < decls.size(); k++) {
+          shifter.shift(decls.get(k));
+        }
+      }
+    }
+
+    // splice in the new declarations
+    DeclList list = (DeclList) program.D;
+    int item = itemCount(0, first);
+    List<Decl> items = list.items.subList(item, item + itemCount(first, last + 1));
+    items.clear();
+    for (Decl decl : parsed) {
+      if (decl instanceof DeclList) {
+        items.addAll(((DeclList) decl).items);
+      } else {
+        items.add(decl);
+      }
+    }
+
+    decls.subList(first, last + 1).clear();
+    decls.addAll(first, parsed);
+    int[] newStarts = new int[decls.size() + 1];
+    System.arraycopy(starts, 0, newStarts, 0, first);
+    for (int k = 0; k < parsed.size(); k++) {
+      newStarts[first + k] = from + partStarts[k];
+    }
+    for (int k = last + 1; k < starts.length; k++) {
+      newStarts[k - last - 1 + first + parsed.size()] = starts[k] + size - oldSize;
+    }
+    starts = newStarts;
+    changed = parsed;
+
+    // The DeclList of the program, and the program itself, end at the
+    // last token before EOF, as Parser.linkDecls() has it.
+    SourcePos lastPos = new SourcePos();
+    if (size > 1) {
+      tokens.getSourcePos(size - 2, lastPos);
+    }
+    list.setPosition(lastPos);
+    lastPos.StartLine = tokens.getStartLine(0);
+    lastPos.StartCol = tokens.getStartCol(0);
+    program.setPosition(lastPos);
+    tokens.printMessages(size - 1);
+    return true;
+  }
+
+  // whether old token i and new token j are the same, but for delta
+  private boolean equal(TokenBuffer old, int i, int j, int delta) {
+    return old.kind[i] == tokens.kind[j]
+        && old.start[i] + delta == tokens.start[j]
+        && old.end[i] + delta == tokens.end[j]
+        && old.pos[i] + delta == tokens.pos[j]
+        && old.posEnd[i] + delta == tokens.posEnd[j];
+  }
+
+  // index of the last old token starting at or before offset, or 0
+  private static int tokenAt(TokenBuffer old, int offset) {
+    int lo = 0, hi = old.size() - 1;
+    while (lo < hi) {
+      int mid = (lo + hi + 1) >>> 1;
+      if (old.pos[mid] <= offset) {
+        lo = mid;
+      } else {
+        hi = mid - 1;
+      }
+    }
+    return lo;
+  }
+
+  // index of the declaration holding old token i; that of the last
+  // one for EOF
+  private int declAt(int i) {
+    int lo = 0, hi = decls.size() - 1;
+    while (lo < hi) {
+      int mid = (lo + hi + 1) >>> 1;
+      if (starts[mid] <= i) {
+        lo = mid;
+      } else {
+        hi = mid - 1;
+      }
+    }
+    return lo;
+  }
+
+}
@@ -0,0 +1,165 @@
+package MiniC.Parser;
+
+import MiniC.Parser.Parser;
+import MiniC.Scanner.Token;
+import MiniC.Scanner.TokenBuffer;
+import MiniC.AstGen.Decl;
+import MiniC.AstGen.Program;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+// Parses the top-level declarations of a program in chunks on a
+// ForkJoinPool, each with a Parser of its own, and links them into
+// the program Parser.parse() gives.
+//
+// A pre-pass over the token kinds finds where the declarations start:
+// a function-def ends with the "}" matching its first "{", and a
+// variable-def with the first ";" outside braces. The chunks are
+// parsed without an ErrorReporter. If any of them has a syntax error,
+// the whole program is parsed again in one piece, so that errors are
+// reported just as without this mode, in source order.
+public final class ParallelParser {
+
+  // programs with fewer tokens than this per chunk are not split;
+  // -DMiniC.pparse.minChunk=<n> lowers it, e.g. to test small programs
+  static final int MIN_CHUNK =
+    Math.max(1, Integer.getInteger("MiniC.pparse.minChunk", 16 * 1024));
+
+  // chunks per worker, to even out the load
+  static final int CHUNKS_PER_THREAD = 4;
+
+  // parser must have been given all tokens up front
+  public static Program parse(Parser parser) {
+    return parse(parser, ForkJoinPool.commonPool());
+  }
+
+  public static Program parse(Parser parser, ForkJoinPool pool) {
+    TokenBuffer tokens = parser.getTokens();
+    if (tokens == null) {
+      return parser.parse();
+    }
+    return parse(parser, pool, Math.min(pool.getParallelism() * CHUNKS_PER_THREAD,
+                                        tokens.size() / MIN_CHUNK));
+  }
+
+  static Program parse(Parser parser, ForkJoinPool pool, int chunks) {
+    TokenBuffer tokens = parser.getTokens();
+    int[] cuts = (tokens != null && chunks > 1) ? splitPoints(tokens, chunks) : null;
+    if (cuts == null) {
+      return parser.parse();
+    }
+
+    List<Callable<ArrayList<Decl>>> tasks = new ArrayList<Callable<ArrayList<Decl>>>();
+    for (int c = 0; c + 1 < cuts.length; c++) {
+      final int from = cuts[c];
+      final int to = cuts[c + 1];
+      tasks.add(new Callable<ArrayList<Decl>>() {
+        public ArrayList<Decl> call() {
+          return new Parser(tokens.slice(from, to), null).parseDecls();
+        }
+      });
+    }
+
+    ArrayList<Decl> decls = new ArrayList<Decl>();
+    try {
+      for (Future<ArrayList<Decl>> f : pool.invokeAll(tasks)) {
+        ArrayList<Decl> part = f.get();
+        if (part == null) {
+          // a syntax error: report it (and any others) in order
+          return parser.parse();
+        }
+        decls.addAll(part);
+      }
+    } catch (Exception e) {
+      throw new RuntimeException("parallel parse failed", e);
+    }
+    return parser.linkProgram(decls);
+  }
+
+  // Token indexes at which to start the chunks, the first being 0 and
+  // the last that of EOF, which ends the last chunk; null if the
+  // program should be parsed in one piece. Each cut is the first
+  // declaration start at or after an even share of the tokens.
+  static int[] splitPoints(TokenBuffer tokens, int chunks) {
+    int[] starts = declStarts(tokens);
+    if (starts == null) {
+      return null;
+    }
+    int n = tokens.size();
+    int[] cuts = new int[chunks + 1];
+    int count = 1;
+    long nextTarget = (long) n / chunks;
+    for (int d = 1; d + 1 < starts.length && count < chunks; d++) {
+      if (starts[d] >= nextTarget) {
+        cuts[count++] = starts[d];
+        nextTarget = (long) n * count / chunks;
+      }
+    }
+    if (count == 1) {
+      return null;
+    }
+    cuts[count++] = n - 1;
+    return java.util.Arrays.copyOf(cuts, count);
+  }
+
+  // Token indexes at which the top-level declarations start, followed
+  // by that of EOF; null if the tokens are not a plain sequence of
+  // declarations.
+  static int[] declStarts(TokenBuffer tokens) {
+    int[] kind = tokens.kind;
+    int[] starts = new int[16];
+    int count = 0;
+
+    int i = 0;
+    while (kind[i] != Token.EOF) {
+      if (count + 1 == starts.length) {
+        starts = java.util.Arrays.copyOf(starts, 2 * starts.length);
+      }
+      starts[count++] = i;
+      // typespecifier ID ( function-def | variable-def )
+      if (!isTypeSpecifier(kind[i]) || kind[i + 1] != Token.ID) {
+        return null;
+      }
+      i += 2;
+      boolean function = (kind[i] == Token.LEFTPAREN);
+      if (function) {
+        while (kind[i] != Token.LEFTBRACE) {
+          if (kind[i] == Token.SEMICOLON || kind[i] == Token.EOF) {
+            return null;
+          }
+          i++;
+        }
+      }
+      int depth = 0;
+      for (;; i++) {
+        if (kind[i] == Token.EOF) {
+          return null;
+        } else if (kind[i] == Token.LEFTBRACE) {
+          depth++;
+        } else if (kind[i] == Token.RIGHTBRACE) {
+          if (--depth < 0) {
+            return null;
+          }
+          if (depth == 0 && function) {
+            break;
+          }
+        } else if (kind[i] == Token.SEMICOLON && depth == 0 && !function) {
+          break;
+        }
+      }
+      i++;
+    }
+    starts[count++] = i;
+    return java.util.Arrays.copyOf(starts, count);
+  }
+
+  private static boolean isTypeSpecifier(int kind) {
+    return kind == Token.VOID || kind == Token.INT ||
+           kind == Token.BOOL || kind == Token.FLOAT;
+  }
+
+}
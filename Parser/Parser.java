@@ -2,6 +2,7 @@ package MiniC.Parser;
 
 import MiniC.Scanner.Scanner;
 import MiniC.Scanner.Token;
+import MiniC.Scanner.TokenBuffer;
 import MiniC.Scanner.SourcePos;
 import MiniC.Parser.SyntaxError;
 import MiniC.ErrorReporter;
@@ -12,20 +13,50 @@ public class Parser {
 
     private Scanner scanner;
     private ErrorReporter errorReporter;
-    private Token currentToken;
+    // The tokens are pulled from the scanner in batches, unless the
+    // parser is given all of them up front; currentToken indexes them.
+    private static final int BATCH_SIZE = 4096;
+    private TokenBuffer tokens;
+    private int currentToken;
+    private int currentKind;
     private SourcePos previousTokenPosition;
+    // Syntax errors reported so far; after each of the first
+    // maxErrors - 1 the parser recovers and goes on.
+    private int syntaxErrors;
+    private int maxErrors = 1;
+    // The top-level declarations last parsed by parseProgram(), each
+    // a FunDecl, the DeclList of a variable-def or an ErrorDecl.
+    java.util.ArrayList<Decl> topLevelDecls;
 
     public Parser(Scanner lexer, ErrorReporter reporter) {
         scanner = lexer;
         errorReporter = reporter;
     }
 
+    // tokens must end with EOF; without a reporter, as when parsing
+    // speculatively, syntax errors are not reported.
+    public Parser(TokenBuffer tokens, ErrorReporter reporter) {
+        this.tokens = tokens;
+        errorReporter = reporter;
+    }
+
+    // The whole token buffer, or null if the tokens come from a scanner.
+    TokenBuffer getTokens() {
+        return (scanner == null) ? tokens : null;
+    }
+
+    // Sets how many syntax errors are reported before the parser gives
+    // up; the default of 1 stops at the first one.
+    public void setMaxErrors(int maxErrors) {
+        this.maxErrors = Math.max(maxErrors, 1);
+    }
+
     // for debug
     void debug(String message) {
         System.out.printf("DEBUG] %s\n", message);
     }
     void debug() {
-//        currentToken.print();
+//        tokens.getToken(currentToken).print();
     }
     void debug(SourcePos pos) {
         debug("sourcePos: " + pos.StartCol + ":" + pos.EndCol);
@@ -35,9 +66,9 @@ public class Parser {
     // If so, it fetches the next token.
     // If not, it reports a syntax error.
     void accept (int tokenExpected) throws SyntaxError {
-        if (currentToken.kind == tokenExpected) {debug();
-            previousTokenPosition = currentToken.GetSourcePos();
-            currentToken = scanner.scan();
+        if (currentKind == tokenExpected) {debug();
+            tokens.getSourcePos(currentToken, previousTokenPosition);
+            nextToken();
         } else {
             syntaxError("\"%\" expected here", Token.spell(tokenExpected));
         }
@@ -46,16 +77,29 @@ public class Parser {
     // acceptIt() unconditionally accepts the current token
     // and fetches the next token from the scanner.
     void acceptIt() {debug();
-        previousTokenPosition = currentToken.GetSourcePos();
-        currentToken = scanner.scan();
+        tokens.getSourcePos(currentToken, previousTokenPosition);
+        nextToken();
+    }
+
+    // nextToken() moves to the next token, fetching the next
+    // batch from the scanner once the current one is used up.
+    void nextToken() {
+        if (currentToken + 1 < tokens.size()) {
+            currentToken++;
+        } else if (scanner != null) {
+            tokens = scanner.scanBatch(BATCH_SIZE);
+            currentToken = 0;
+        }
+        currentKind = tokens.kind[currentToken];
+        tokens.printMessages(currentToken);
     }
 
     // start records the position of the start of a phrase.
     // This is defined to be the position of the first
     // character of the first token of the phrase.
     void start(SourcePos position) {
-        position.StartCol = currentToken.GetSourcePos().StartCol;
-        position.StartLine = currentToken.GetSourcePos().StartLine;
+        position.StartCol = tokens.getStartCol(currentToken);
+        position.StartLine = tokens.getStartLine(currentToken);
     }
 
     // finish records the position of the end of a phrase.
@@ -74,11 +118,67 @@ public class Parser {
     }
 
     void syntaxError(String messageTemplate, String tokenQuoted) throws SyntaxError {
-        SourcePos pos = currentToken.GetSourcePos();
-        errorReporter.reportError(messageTemplate, tokenQuoted, pos);
+        if (errorReporter != null) {
+            SourcePos pos = tokens.getSourcePos(currentToken);
+            errorReporter.reportError(messageTemplate, tokenQuoted, pos);
+        }
+        syntaxErrors++;
         throw(new SyntaxError());
     }
 
+    // The lists in which the parser recovers from syntax errors:
+    static final int TOP_LEVEL = 0, LOCAL_DECLS = 1, STMTS = 2;
+
+    // recover() continues after the syntax error s in a phrase of the
+    // list where, starting at pos, unless maxErrors errors have been
+    // reported: the rest of the phrase is skipped in panic mode, and
+    // pos is set to span it, for the error node taking its place.
+    void recover(SyntaxError s, SourcePos pos, int where) throws SyntaxError {
+        if (syntaxErrors >= maxErrors) {
+            throw s;
+        }
+        skipPhrase(where);
+        finish(pos);
+    }
+
+    // skipPhrase() skips tokens up to and including the next ";" or
+    // the "}" closing a block opened among them (and its else part).
+    // Inside a block it stops before the "}" closing the block. In a
+    // declaration list it stops before a type specifier that may start
+    // the next declaration, one that does not follow "(" or ",".
+    void skipPhrase(int where) {
+        int depth = 0;
+        int previousKind = -1;
+        while (currentKind != Token.EOF) {
+            if (currentKind == Token.LEFTBRACE) {
+                depth++;
+            } else if (currentKind == Token.RIGHTBRACE) {
+                if (depth == 0 && where != TOP_LEVEL) {
+                    return;
+                }
+                depth--;
+                if (depth <= 0) {
+                    acceptIt();
+                    if (currentKind != Token.ELSE || where != STMTS) {
+                        return;
+                    }
+                    depth = 0;
+                }
+            } else if (depth == 0) {
+                if (currentKind == Token.SEMICOLON) {
+                    acceptIt();
+                    return;
+                }
+                if (where != STMTS && isTypeSpecifier() &&
+                    previousKind != Token.LEFTPAREN && previousKind != Token.COMMA) {
+                    return;
+                }
+            }
+            previousKind = currentKind;
+            acceptIt();
+        }
+    }
+
 
     ///////////////////////////////////////////////////////////////////////////////
     //
@@ -90,23 +190,61 @@ public class Parser {
 
         Program ProgramAST = null;
 
+        startParse();
+
+        // with errors below maxErrors, a program with error nodes
+        try {
+            ProgramAST = parseProgram();
+        }
+        catch (SyntaxError s) { return null; }
+        return ProgramAST;
+    }
+
+    // startParse() makes the first token current.
+    void startParse() {
         previousTokenPosition = new SourcePos();
         previousTokenPosition.StartLine = 0;
         previousTokenPosition.StartCol = 0;
         previousTokenPosition.EndLine = 0;
         previousTokenPosition.EndCol = 0;
 
-        currentToken = scanner.scan(); // get first token from scanner...
+        if (scanner != null) {
+            tokens = scanner.scanBatch(BATCH_SIZE); // get first tokens from scanner...
+        }
+        currentToken = 0;
+        currentKind = tokens.kind[currentToken];
+        tokens.printMessages(currentToken);
+    }
 
+    // parseDecls() parses the top-level declarations of a slice of the
+    // token buffer for ParallelParser; null on a syntax error.
+    java.util.ArrayList<Decl> parseDecls() {
+        java.util.ArrayList<Decl> Decls = new java.util.ArrayList<Decl>();
+        startParse();
         try {
-            ProgramAST = parseProgram();
-            if (currentToken.kind != Token.EOF) {
-                syntaxError("\"%\" not expected after end of program",
-                               currentToken.GetLexeme());
-            }
+            parseTopLevelDecls(Decls);
         }
         catch (SyntaxError s) { return null; }
-        return ProgramAST;
+        return Decls;
+    }
+
+    // linkProgram() builds the program from all of its top-level
+    // declarations, parsed elsewhere from the whole token buffer,
+    // as parseProgram() would have built it.
+    Program linkProgram(java.util.ArrayList<Decl> Decls) {
+        startParse();
+        SourcePos pos = new SourcePos();
+        start(pos);
+        // the last token before EOF was accepted last
+        currentToken = tokens.size() - 1;
+        currentKind = tokens.kind[currentToken];
+        if (currentToken > 0) {
+            tokens.getSourcePos(currentToken - 1, previousTokenPosition);
+        }
+        tokens.printMessages(currentToken);
+        Decl D = linkDecls(Decls);
+        finish(pos);
+        return new Program (D, pos);
     }
 
    
@@ -127,27 +265,52 @@ public class Parser {
         return P;
     }
 
-    // parseProgramHelper: recursive helper function to facilitate AST construction.
+    // parseProgramHelper: parses the declarations of the program in a
+    // loop and puts them into one DeclList, see linkDecls().
     Decl parseProgramHelper () throws SyntaxError {
-        if ( !isTypeSpecifier() ) {
-           return new EmptyDecl(previousTokenPosition);
+        java.util.ArrayList<Decl> Decls = new java.util.ArrayList<Decl>();
+        topLevelDecls = Decls;
+        parseTopLevelDecls(Decls);
+        return linkDecls(Decls);
+    }
+
+    void parseTopLevelDecls (java.util.ArrayList<Decl> Decls) throws SyntaxError {
+        while ( currentKind != Token.EOF ) {
+           SourcePos pos = getNewPos();
+           try {
+              if ( !isTypeSpecifier() ) {
+                 syntaxError("\"%\" not expected after end of program",
+                             tokens.getLexeme(currentToken));
+              }
+
+              Type T = parseTypeSpecifier();
+              ID Ident = parseID();
+
+              if (currentKind == Token.LEFTPAREN) {
+                 Decls.add(parseFunction_def(T, Ident, pos));
+              } else {
+                 Decls.add(parseVariable_def(T, Ident, pos));
+              }
+           } catch (SyntaxError s) {
+              recover(s, pos, TOP_LEVEL);
+              Decls.add(new ErrorDecl(pos));
+           }
         }
+    }
 
-        SourcePos pos = getNewPos();
-
-        Type T = parseTypeSpecifier();
-        ID Ident = parseID();
-
-        if (currentToken.kind == Token.LEFTPAREN) {
-           Decl newD = parseFunction_def(T, Ident, pos);
-           return new DeclSequence(newD, parseProgramHelper(), previousTokenPosition);
-        } else {
-           DeclSequence Vars = parseVariable_def(T, Ident, pos);
-           DeclSequence VarsTail = Vars.GetRightmostDeclSequenceNode();
-           Decl RemainderDecls = parseProgramHelper();
-           VarsTail.SetRightSubtree (RemainderDecls);
-           return Vars;
+    // linkDecls: puts the declarations in Decls into one DeclList, the
+    // VarDecls of each variable definition in place of its DeclList.
+    // Like all lists it gets the position of its last token.
+    DeclList linkDecls (java.util.ArrayList<Decl> Decls) {
+        java.util.ArrayList<Decl> Items = new java.util.ArrayList<Decl>(Decls.size());
+        for (Decl D : Decls) {
+           if (D instanceof DeclList) {
+              Items.addAll(((DeclList) D).items);
+           } else {
+              Items.add(D);
+           }
         }
+        return new DeclList(Items, previousTokenPosition);
     }
 
     ///////////////////////////////////////////////////////////////////////////////
@@ -160,18 +323,18 @@ public class Parser {
 
     public Type parseTypeSpecifier() throws SyntaxError {
         Type T = null;
-        switch (currentToken.kind) {
+        switch (currentKind) {
         case Token.INT:
-            T = new IntType(currentToken.GetSourcePos());
+            T = new IntType(tokens.getSourcePos(currentToken));
             break;
         case Token.FLOAT:
-            T = new FloatType(currentToken.GetSourcePos());
+            T = new FloatType(tokens.getSourcePos(currentToken));
             break;
         case Token.BOOL:
-            T = new BoolType(currentToken.GetSourcePos());
+            T = new BoolType(tokens.getSourcePos(currentToken));
             break;
         case Token.VOID:
-            T = new VoidType(currentToken.GetSourcePos());
+            T = new VoidType(tokens.getSourcePos(currentToken));
             break;
         default:
             syntaxError("Type specifier expected", "");
@@ -181,7 +344,7 @@ public class Parser {
     }
 
     boolean isTypeSpecifier() {
-        int token = currentToken.kind;
+        int token = currentKind;
         if (token == Token.VOID ||
             token == Token.INT  ||
             token == Token.BOOL ||
@@ -218,19 +381,16 @@ public class Parser {
     //
     ///////////////////////////////////////////////////////////////////////////////
 
-    public Decl parseParams_list() throws SyntaxError {
-        if ( !isTypeSpecifier() ) {
-           return new EmptyFormalParamDecl(previousTokenPosition);
-        }
-        
-        SourcePos pos = getNewPos();
-        Decl PDecl = parseParams_decl();
-        finish(pos);
+    public FormalParamDeclList parseParams_list() throws SyntaxError {
+        java.util.ArrayList<FormalParamDecl> Params = new java.util.ArrayList<FormalParamDecl>();
+        while ( isTypeSpecifier() ) {
+            Params.add(parseParams_decl());
 
-        if (currentToken.kind == Token.COMMA) {
-            acceptIt();
+            if (currentKind == Token.COMMA) {
+                acceptIt();
+            }
         }
-        return new FormalParamDeclSequence (PDecl, parseParams_list(), pos);
+        return new FormalParamDeclList(Params, previousTokenPosition);
     } 
 
 
@@ -242,16 +402,16 @@ public class Parser {
     //
     ///////////////////////////////////////////////////////////////////////////////
 
-    public Decl parseParams_decl() throws SyntaxError {
+    public FormalParamDecl parseParams_decl() throws SyntaxError {
         Type T = null;
-        Decl D = null;
+        FormalParamDecl D = null;
 
         SourcePos pos = getNewPos();
         if ( isTypeSpecifier() ) {
             T = parseTypeSpecifier();
         } else {
             syntaxError("Type specifier instead of % expected",
-                        Token.spell(currentToken.kind));
+                        Token.spell(currentKind));
         }
         D = parseDeclarator(T, pos);
         return D;
@@ -265,9 +425,9 @@ public class Parser {
     //
     ///////////////////////////////////////////////////////////////////////////////
 
-    public Decl parseDeclarator(Type T, SourcePos pos) throws SyntaxError {
+    public FormalParamDecl parseDeclarator(Type T, SourcePos pos) throws SyntaxError {
         ID Ident = parseID();
-        if (currentToken.kind == Token.LEFTBRACKET) {
+        if (currentKind == Token.LEFTBRACKET) {
             ArrayType ArrT = parseArrayIndexDecl(T);
             finish(pos);
             return new FormalParamDecl (ArrT, Ident, pos);
@@ -299,17 +459,17 @@ public class Parser {
     //
     ///////////////////////////////////////////////////////////////////////////////
 
-    public DeclSequence parseVariable_def(Type T, ID Ident, SourcePos pos) throws SyntaxError {
+    public DeclList parseVariable_def(Type T, ID Ident, SourcePos pos) throws SyntaxError {
         Type theType = T;
         Decl D;
-        DeclSequence Seq;
+        DeclList Seq;
         Expr E;
 
-        if (currentToken.kind == Token.LEFTBRACKET) {
+        if (currentKind == Token.LEFTBRACKET) {
             theType = parseArrayIndexDecl(T);
         }
         
-        if (currentToken.kind == Token.ASSIGN) {
+        if (currentKind == Token.ASSIGN) {
             acceptIt();
             E = parseInitializer();
         } else {
@@ -318,23 +478,19 @@ public class Parser {
         
         finish(pos);
         D = new VarDecl(theType, Ident, E, pos);
-        Seq = parseVariableHelper(T, D);
+        java.util.ArrayList<Decl> Vars = new java.util.ArrayList<Decl>();
+        Vars.add(D);
+        while (currentKind == Token.COMMA) {
+            acceptIt();
+            Vars.add(parseInit_decl(T, getNewPos()));
+        }
+        Seq = linkDecls(Vars);
 
         accept(Token.SEMICOLON);
 
         return Seq;
     }
 
-    DeclSequence parseVariableHelper(Type T, Decl D) throws SyntaxError {
-        if (currentToken.kind == Token.COMMA) {
-            acceptIt();
-            return new DeclSequence(D, parseInit_decl(T, getNewPos()), previousTokenPosition);
-        } else {
-            return new DeclSequence(D, new EmptyDecl(previousTokenPosition),
-                previousTokenPosition);
-        }
-    }
-
     ///////////////////////////////////////////////////////////////////////////////
     //
     // parseInit_decl():
@@ -343,18 +499,18 @@ public class Parser {
     //
     ///////////////////////////////////////////////////////////////////////////////
 
-    public DeclSequence parseInit_decl(Type T, SourcePos pos) throws SyntaxError {
+    public Decl parseInit_decl(Type T, SourcePos pos) throws SyntaxError {
         Decl D;
         ID Ident;
         Type theType = T;
         Expr E;
 
         Ident = parseID();
-        if (currentToken.kind == Token.LEFTBRACKET) {
+        if (currentKind == Token.LEFTBRACKET) {
             theType = parseArrayIndexDecl(T);
         }
 
-        if (currentToken.kind == Token.ASSIGN) {
+        if (currentKind == Token.ASSIGN) {
             acceptIt();
             E = parseInitializer();
         } else {
@@ -364,7 +520,7 @@ public class Parser {
         finish(pos);
         D = new VarDecl(theType, Ident, E, pos);
 
-        return parseVariableHelper(T, D);
+        return D;
     }
 
     //////////////////////////////////////////////////////////////////////////////
@@ -376,9 +532,15 @@ public class Parser {
     //////////////////////////////////////////////////////////////////////////////
 
     public Expr parseInitializer() throws SyntaxError {
-        if (currentToken.kind == Token.LEFTBRACE) {
+        if (currentKind == Token.LEFTBRACE) {
             acceptIt();
-            Expr E = new ExprSequence(parseExpr(), parseInitializerHelper(), previousTokenPosition);
+            java.util.ArrayList<Expr> Exprs = new java.util.ArrayList<Expr>();
+            Exprs.add(parseExpr());
+            while ( currentKind != Token.RIGHTBRACE ) {
+                accept(Token.COMMA);
+                Exprs.add(parseExpr());
+            }
+            Expr E = new ExprList(Exprs, previousTokenPosition);
             accept(Token.RIGHTBRACE);
 
             return E;
@@ -387,14 +549,6 @@ public class Parser {
         }
     }
 
-    Expr parseInitializerHelper() throws SyntaxError {
-        if ( currentToken.kind == Token.RIGHTBRACE )
-            return new EmptyExpr(previousTokenPosition);
-
-        accept(Token.COMMA);
-        return new ExprSequence(parseExpr(), parseInitializerHelper(), previousTokenPosition);
-    }
-
     ///////////////////////////////////////////////////////////////////////////////
     //
     // parseExpr():
@@ -404,11 +558,11 @@ public class Parser {
     ///////////////////////////////////////////////////////////////////////////////
 
     public Expr parseExpr() throws SyntaxError {
-        return parseOr_expr();
+        return parseBinary_expr(OR_LEVEL);
     }
 
     boolean isExpr() {
-        switch (currentToken.kind) {
+        switch (currentKind) {
            case Token.PLUS:
            case Token.MINUS:
            case Token.NOT:
@@ -426,142 +580,88 @@ public class Parser {
 
     ///////////////////////////////////////////////////////////////////////////////
     //
-    // parseOr_expr():
-    //
-    // or-expr ::= and-expr ("||" and-expr)*
-    //
-    ///////////////////////////////////////////////////////////////////////////////
-
-    public Expr parseOr_expr() throws SyntaxError {
-        SourcePos pos = getNewPos();
-        Expr LE = parseAnd_expr();
-
-        return parseOr_exprHelper(LE, pos);
-    }
-
-    Expr parseOr_exprHelper(Expr LE, SourcePos pos) throws SyntaxError {
-        if (currentToken.kind == Token.OR) {
-            Operator oper = parseOperator();
-            Expr RE = parseAnd_expr();
-            finish(pos);
-            
-            LE = new BinaryExpr(LE, oper, RE, pos);
-            return parseOr_exprHelper(LE,  getNewPos());
-        }
-        return LE;
-    }
-
-    ///////////////////////////////////////////////////////////////////////////////
-    //
-    // parseAnd_expr():
-    //
-    // and-expr ::= rel-expr ("&&" rel-expr)*
-    //
-    ///////////////////////////////////////////////////////////////////////////////
-
-    public Expr parseAnd_expr() throws SyntaxError {
-        SourcePos pos = getNewPos();
-        Expr LE = parseRel_expr();
-
-        return parseAnd_exprHelper(LE, pos);
-    }
-
-    Expr parseAnd_exprHelper(Expr LE, SourcePos pos) throws SyntaxError {
-        if (currentToken.kind == Token.AND) {
-            Operator oper = parseOperator();
-            Expr RE = parseRel_expr();
-            finish(pos);
-            
-            LE = new BinaryExpr(LE, oper, RE, pos);
-            return parseAnd_exprHelper(LE,  getNewPos());
-        }
-        return LE;
-    }
-
-    ///////////////////////////////////////////////////////////////////////////////
-    //
-    // parseRel_expr():
-    //
-    // rel-expr ::= add-expr (("==" | "!=" | "<" | "<=" | ">" | ">=") add-expr)?
-    //
-    ///////////////////////////////////////////////////////////////////////////////
-
-    public Expr parseRel_expr() throws SyntaxError {
-        SourcePos pos = getNewPos();
-        Expr LE = parseAdd_expr();
-
-        if ( isRelOper() ) {
-            Operator oper = parseOperator();
-            Expr RE = parseAdd_expr();
-
-            finish(pos);
-            return new BinaryExpr(LE, oper, RE, pos);
-        }
-
-        return LE;
-    }
-
-    boolean isRelOper() {
-        switch (currentToken.kind) {
-            case Token.EQ:      case Token.NOTEQ:
-            case Token.LESS:    case Token.LESSEQ:
-            case Token.GREATER: case Token.GREATEREQ: return true;
-            default: return false;
-        }
-    }
-
-    ///////////////////////////////////////////////////////////////////////////////
-    //
-    // parseAdd_expr():
-    //
-    // add-expr ::= mult-expr (("+" | "-") mult-expr)*
-    //
-    ///////////////////////////////////////////////////////////////////////////////
-
-    public Expr parseAdd_expr() throws SyntaxError {
-        SourcePos pos = getNewPos();
-        Expr LE = parseMult_expr();
-
-        return parseAdd_exprHelper(LE, pos);
-    }
-
-    Expr parseAdd_exprHelper(Expr LE, SourcePos pos) throws SyntaxError {
-        if (currentToken.kind == Token.PLUS ||
-            currentToken.kind == Token.MINUS) {
-            Operator oper = parseOperator();
-            Expr RE = parseMult_expr();
-            finish(pos);
-            
-            LE = new BinaryExpr(LE, oper, RE, pos);
-            return parseAdd_exprHelper(LE,  getNewPos());
-        }
-        return LE;
-    }
-
-    ///////////////////////////////////////////////////////////////////////////////
-    //
-    // parseMult_expr():
+    // parseBinary_expr(int minLevel):
     //
+    // or-expr   ::= and-expr ("||" and-expr)*
+    // and-expr  ::= rel-expr ("&&" rel-expr)*
+    // rel-expr  ::= add-expr (("==" | "!=" | "<" | "<=" | ">" | ">=") add-expr)?
+    // add-expr  ::= mult-expr (("+" | "-") mult-expr)*
     // mult-expr ::= unary-expr (("*" | "/") unary-expr)*
     //
+    // Parses the binary operators of level minLevel and above by
+    // precedence climbing, instead of with one method per level.
+    //
     ///////////////////////////////////////////////////////////////////////////////
 
-    public Expr parseMult_expr() throws SyntaxError {
+    // Binary operator levels, by token kind; 0 for tokens that are
+    // no binary operator. Operators of the same level associate to the
+    // left, unless the level is in NONASSOC.
+    static final int OR_LEVEL = 1, AND_LEVEL = 2, REL_LEVEL = 3,
+                     ADD_LEVEL = 4, MULT_LEVEL = 5;
+    static final int[] BINARY_LEVEL = new int[Token.EOF + 1];
+    static final boolean[] NONASSOC = new boolean[MULT_LEVEL + 1];
+    static {
+        BINARY_LEVEL[Token.OR] = OR_LEVEL;
+        BINARY_LEVEL[Token.AND] = AND_LEVEL;
+        BINARY_LEVEL[Token.EQ] = REL_LEVEL;
+        BINARY_LEVEL[Token.NOTEQ] = REL_LEVEL;
+        BINARY_LEVEL[Token.LESS] = REL_LEVEL;
+        BINARY_LEVEL[Token.LESSEQ] = REL_LEVEL;
+        BINARY_LEVEL[Token.GREATER] = REL_LEVEL;
+        BINARY_LEVEL[Token.GREATEREQ] = REL_LEVEL;
+        BINARY_LEVEL[Token.PLUS] = ADD_LEVEL;
+        BINARY_LEVEL[Token.MINUS] = ADD_LEVEL;
+        BINARY_LEVEL[Token.TIMES] = MULT_LEVEL;
+        BINARY_LEVEL[Token.DIV] = MULT_LEVEL;
+        NONASSOC[REL_LEVEL] = true;
+    }
+
+    // The operator each token kind stands for, null for the others.
+    static final OpKind[] OPERATOR_KIND = new OpKind[Token.EOF + 1];
+    static {
+        OPERATOR_KIND[Token.PLUS] = OpKind.PLUS;
+        OPERATOR_KIND[Token.MINUS] = OpKind.MINUS;
+        OPERATOR_KIND[Token.TIMES] = OpKind.TIMES;
+        OPERATOR_KIND[Token.DIV] = OpKind.DIV;
+        OPERATOR_KIND[Token.LESS] = OpKind.LESS;
+        OPERATOR_KIND[Token.LESSEQ] = OpKind.LESSEQ;
+        OPERATOR_KIND[Token.GREATER] = OpKind.GREATER;
+        OPERATOR_KIND[Token.GREATEREQ] = OpKind.GREATEREQ;
+        OPERATOR_KIND[Token.EQ] = OpKind.EQ;
+        OPERATOR_KIND[Token.NOTEQ] = OpKind.NOTEQ;
+        OPERATOR_KIND[Token.AND] = OpKind.AND;
+        OPERATOR_KIND[Token.OR] = OpKind.OR;
+        OPERATOR_KIND[Token.NOT] = OpKind.NOT;
+    }
+
+    public Expr parseBinary_expr(int minLevel) throws SyntaxError {
         SourcePos pos = getNewPos();
         Expr LE = parseUnary_expr();
-
-        return parseMult_exprHelper(LE, pos);
-    }
-
-    Expr parseMult_exprHelper(Expr LE, SourcePos pos) throws SyntaxError {
-        if (currentToken.kind == Token.TIMES ||
-            currentToken.kind == Token.DIV) {
+        int lastLevel = 0;
+
+        while (BINARY_LEVEL[currentKind] >= minLevel) {
+            int level = BINARY_LEVEL[currentKind];
+            if (lastLevel != 0 && level > lastLevel) {
+                // left over by the right operand, which stopped at a
+                // second non-associative operator
+                break;
+            }
+            // The first operator of a level spans from the start of the
+            // whole operand, later ones of that level from the operator,
+            // as the one-method-per-level parser had it.
+            SourcePos opPos = pos;
+            if (level == lastLevel) {
+                if (NONASSOC[level]) {
+                    break;
+                }
+                opPos = getNewPos();
+            }
             Operator oper = parseOperator();
-            Expr RE = parseUnary_expr();
-            finish(pos);
-            
-            LE = new BinaryExpr(LE, oper, RE, pos);
-            return parseMult_exprHelper(LE,  getNewPos());
+            Expr RE = parseBinary_expr(level + 1);
+            finish(opPos);
+
+            LE = new BinaryExpr(LE, oper, RE, opPos);
+            lastLevel = level;
         }
         return LE;
     }
@@ -575,9 +675,9 @@ public class Parser {
     ///////////////////////////////////////////////////////////////////////////////
 
     public Expr parseUnary_expr() throws SyntaxError {
-        if (currentToken.kind == Token.PLUS  ||
-            currentToken.kind == Token.MINUS ||
-            currentToken.kind == Token.NOT) {
+        if (currentKind == Token.PLUS  ||
+            currentKind == Token.MINUS ||
+            currentKind == Token.NOT) {
             SourcePos pos = getNewPos();
             Operator oper = parseOperator();
             Expr E = parseUnary_expr();
@@ -600,11 +700,11 @@ public class Parser {
     public Expr parsePrim_expr() throws SyntaxError {
         SourcePos pos = getNewPos();
 
-        switch (currentToken.kind) {
+        switch (currentKind) {
         case Token.ID:
             ID Ident = parseID();
 
-            if (currentToken.kind == Token.LEFTBRACKET) {
+            if (currentKind == Token.LEFTBRACKET) {
                 // array
                 VarExpr varexpr = parseVarExpr(Ident);
                 acceptIt();
@@ -652,44 +752,58 @@ public class Parser {
         SourcePos pos = new SourcePos();
         start(pos);
         accept(Token.LEFTBRACE);
-        Decl D = parseCompoundDeclsHelper();
-        Stmt S = parseCompoundStmtsHelper();
+        DeclList D = parseCompoundDeclsHelper();
+        StmtList S = parseCompoundStmtsHelper();
         accept(Token.RIGHTBRACE);
         finish(pos);
-        if ( (D.getClass() == EmptyDecl.class) &&
-             (S.getClass() == EmptyStmt.class)) {
+        if (D.items.isEmpty() && S.items.isEmpty()) {
            return new EmptyCompoundStmt (previousTokenPosition);
         } else {
            return new CompoundStmt (D, S, pos);
         }
     }
 
-    public Decl parseCompoundDeclsHelper () throws SyntaxError {
-        if ( !isTypeSpecifier() ) {
-           return new EmptyDecl (previousTokenPosition);
+    public DeclList parseCompoundDeclsHelper () throws SyntaxError {
+        java.util.ArrayList<Decl> Decls = new java.util.ArrayList<Decl>();
+        while ( isTypeSpecifier() ) {
+           SourcePos pos = getNewPos();
+           try {
+              Type T = parseTypeSpecifier();
+              ID Ident = parseID();
+              Decls.add(parseVariable_def(T, Ident, pos));
+           } catch (SyntaxError s) {
+              recover(s, pos, LOCAL_DECLS);
+              Decls.add(new ErrorDecl(pos));
+           }
         }
-        SourcePos pos = getNewPos();
-        Type T = parseTypeSpecifier();
-        ID Ident = parseID();
-        DeclSequence Vars = parseVariable_def(T, Ident, pos);
-        DeclSequence VarsTail = Vars.GetRightmostDeclSequenceNode();
-        Decl RemainderDecls = parseCompoundDeclsHelper();
-        VarsTail.SetRightSubtree(RemainderDecls);
-        return Vars;       
-    }
-
-    public Stmt parseCompoundStmtsHelper () throws SyntaxError {
-        if (! (currentToken.kind == Token.LEFTBRACE ||
-               currentToken.kind == Token.IF ||
-               currentToken.kind == Token.WHILE ||
-               currentToken.kind == Token.FOR ||
-               currentToken.kind == Token.RETURN ||
-               currentToken.kind == Token.ID)
-            ) {
-            return new EmptyStmt (previousTokenPosition);
+        return linkDecls(Decls);
+    }
+
+    public StmtList parseCompoundStmtsHelper () throws SyntaxError {
+        java.util.ArrayList<Stmt> Stmts = new java.util.ArrayList<Stmt>();
+        while (currentKind != Token.RIGHTBRACE && currentKind != Token.EOF) {
+            // only looked up into a SourcePos on an error
+            int first = tokens.pos[currentToken];
+            try {
+                if (! (currentKind == Token.LEFTBRACE ||
+                       currentKind == Token.IF ||
+                       currentKind == Token.WHILE ||
+                       currentKind == Token.FOR ||
+                       currentKind == Token.RETURN ||
+                       currentKind == Token.ID)
+                    ) {
+                    // as parseCompound_stmt() would report it
+                    accept(Token.RIGHTBRACE);
+                }
+                Stmts.add(parseStmt());
+            } catch (SyntaxError s) {
+                SourcePos pos = new SourcePos();
+                tokens.getSource().getSourcePos(first, first, pos);
+                recover(s, pos, STMTS);
+                Stmts.add(new ErrorStmt(pos));
+            }
         }
-        Stmt S = parseStmt();
-        return new StmtSequence (S, parseCompoundStmtsHelper(), previousTokenPosition);
+        return new StmtList (Stmts, previousTokenPosition);
     }
 
     ///////////////////////////////////////////////////////////////////////////////
@@ -701,7 +815,7 @@ public class Parser {
     ///////////////////////////////////////////////////////////////////////////////
 
     public Stmt parseStmt() throws SyntaxError {
-        switch (currentToken.kind) {
+        switch (currentKind) {
             case Token.LEFTBRACE:   return parseCompound_stmt();
             case Token.IF:          return parseIf_stmt();
             case Token.WHILE:       return parseWhile_stmt();
@@ -716,26 +830,41 @@ public class Parser {
     //
     // if-stmt ::= IF "(" expr ")" stmt (ELSE stmt)?
     //
+    // An "else if" chain is parsed in a loop instead of by recursion, so
+    // that chains of any length can be parsed. The IfStmt nodes are linked
+    // up from the last one back; they all end where the chain ends.
+    //
     ///////////////////////////////////////////////////////////////////////////////
 
     public IfStmt parseIf_stmt() throws SyntaxError {
-        SourcePos pos = new SourcePos();
-        start(pos);
-
-        accept(Token.IF);
-        accept(Token.LEFTPAREN);
-        Expr E = parseExpr();
-        accept(Token.RIGHTPAREN);
-        Stmt S = parseStmt();
+        java.util.ArrayList<SourcePos> Positions = new java.util.ArrayList<SourcePos>();
+        java.util.ArrayList<Expr> Conds = new java.util.ArrayList<Expr>();
+        java.util.ArrayList<Stmt> Thens = new java.util.ArrayList<Stmt>();
         Stmt Else = null;
-        
-        if (currentToken.kind == Token.ELSE) {
+
+        while (true) {
+            Positions.add(getNewPos());
+            accept(Token.IF);
+            accept(Token.LEFTPAREN);
+            Conds.add(parseExpr());
+            accept(Token.RIGHTPAREN);
+            Thens.add(parseStmt());
+            if (currentKind != Token.ELSE) {
+                break;
+            }
             acceptIt();
-            Else = parseStmt();
+            if (currentKind != Token.IF) {
+                Else = parseStmt();
+                break;
+            }
         }
 
-        finish(pos);
-        return new IfStmt (E, S, Else, pos);
+        for (int i = Conds.size() - 1; i >= 0; i--) {
+            SourcePos pos = Positions.get(i);
+            finish(pos);
+            Else = new IfStmt (Conds.get(i), Thens.get(i), Else, pos);
+        }
+        return (IfStmt) Else;
     }
 
     ///////////////////////////////////////////////////////////////////////////////
@@ -804,7 +933,7 @@ public class Parser {
         return new AssignExpr(Var, E, pos);
     }
 
-    boolean isAsgnexpr() { return currentToken.kind == Token.ID; }
+    boolean isAsgnexpr() { return currentKind == Token.ID; }
 
     ///////////////////////////////////////////////////////////////////////////////
     //
@@ -861,7 +990,7 @@ public class Parser {
         VarExpr var = new VarExpr(Ident, previousTokenPosition);
 
         // array check
-        if (currentToken.kind == Token.LEFTBRACKET) {
+        if (currentKind == Token.LEFTBRACKET) {
             acceptIt();
             Expr index = parseExpr();
             accept(Token.RIGHTBRACKET);
@@ -884,27 +1013,24 @@ public class Parser {
     public Expr parseArglist() throws SyntaxError {
         accept(Token.LEFTPAREN);
 
-        if (currentToken.kind == Token.RIGHTPAREN) {
+        java.util.ArrayList<ActualParam> Args = new java.util.ArrayList<ActualParam>();
+        if (currentKind == Token.RIGHTPAREN) {
             acceptIt();
-            return new EmptyActualParam (previousTokenPosition);
+            return new ActualParamList (Args, previousTokenPosition);
         }
 
-        Expr Params = new ActualParamSequence (parseArg(), parseArglistHelper(), previousTokenPosition);
+        Args.add(parseArg());
+        while (currentKind != Token.RIGHTPAREN) {
+            accept(Token.COMMA);
+            Args.add(parseArg());
+        }
+        Expr Params = new ActualParamList (Args, previousTokenPosition);
 
         accept(Token.RIGHTPAREN);
         return Params;
     }
 
-    public Expr parseArglistHelper() throws SyntaxError {
-        if (currentToken.kind == Token.RIGHTPAREN) {
-            return new EmptyActualParam (previousTokenPosition);
-        }
-
-        accept(Token.COMMA);
-        return new ActualParamSequence (parseArg(), parseArglistHelper(), previousTokenPosition);
-    }
-
-    boolean isArglist() { return currentToken.kind == Token.LEFTPAREN; }
+    boolean isArglist() { return currentKind == Token.LEFTPAREN; }
 
     ///////////////////////////////////////////////////////////////////////////////
     //
@@ -914,7 +1040,7 @@ public class Parser {
     //
     ///////////////////////////////////////////////////////////////////////////////
 
-    public Expr parseArg() throws SyntaxError {
+    public ActualParam parseArg() throws SyntaxError {
         return new ActualParam (parseExpr(), previousTokenPosition);
     }
 
@@ -925,41 +1051,43 @@ public class Parser {
     ///////////////////////////////////////////////////////////////////////////////
 
     public ID parseID() throws SyntaxError {
-        ID Ident = new ID(currentToken.GetLexeme(), currentToken.GetSourcePos());
+        ID Ident = new ID(tokens.getLexeme(currentToken), tokens.getSourcePos(currentToken));
         accept(Token.ID);
         return Ident;
     }
 
     public IntLiteral parseIntLiteral() throws SyntaxError {
         IntLiteral L = new IntLiteral
-            (currentToken.GetLexeme(), currentToken.GetSourcePos());
+            (tokens.getLexeme(currentToken), tokens.getSourcePos(currentToken));
         accept(Token.INTLITERAL);
         return L;
     }
 
     public BoolLiteral parseBoolLiteral() throws SyntaxError {
         BoolLiteral L = new BoolLiteral
-            (currentToken.GetLexeme(), currentToken.GetSourcePos());
+            (tokens.getLexeme(currentToken), tokens.getSourcePos(currentToken));
         accept(Token.BOOLLITERAL);
         return L;
     }
 
     public FloatLiteral parseFloatLiteral() throws SyntaxError {
         FloatLiteral L = new FloatLiteral
-            (currentToken.GetLexeme(), currentToken.GetSourcePos());
+            (tokens.getLexeme(currentToken), tokens.getSourcePos(currentToken));
         accept(Token.FLOATLITERAL);
         return L;
     }
 
     public StringLiteral parseStringLiteral() throws SyntaxError {
         StringLiteral L = new StringLiteral
-            (currentToken.GetLexeme(), currentToken.GetSourcePos());
+            (tokens.getLexeme(currentToken), tokens.getSourcePos(currentToken));
         accept(Token.STRINGLITERAL);
         return L;
     }
 
     public Operator parseOperator() throws SyntaxError {
-        Operator opAST = new Operator (currentToken.GetLexeme(), previousTokenPosition);
+        Operator opAST = new Operator (tokens.getLexeme(currentToken),
+                                       OPERATOR_KIND[currentKind],
+                                       previousTokenPosition);
         acceptIt();
         return opAST;
     }
@@ -975,7 +1103,7 @@ public class Parser {
     }
 
     public VarExpr parseVarExpr(ID Ident) throws SyntaxError {
-        return new VarExpr(Ident, Ident.pos);
+        return new VarExpr(Ident, Ident.getPosition());
     }
 
     public IntExpr parseIntExpr() throws SyntaxError {
@@ -983,7 +1111,7 @@ public class Parser {
     }
 
     public IntExpr parseIntExpr(IntLiteral literal) throws SyntaxError {
-        return new IntExpr (literal, literal.pos);
+        return new IntExpr (literal, literal.getPosition());
     }
 
     public BoolExpr parseBoolExpr() throws SyntaxError {
@@ -991,7 +1119,7 @@ public class Parser {
     }
 
     public BoolExpr parseBoolExpr(BoolLiteral literal) throws SyntaxError {
-        return new BoolExpr (literal, literal.pos);
+        return new BoolExpr (literal, literal.getPosition());
     }
 
     public FloatExpr parseFloatExpr() throws SyntaxError {
@@ -999,7 +1127,7 @@ public class Parser {
     }
 
     public FloatExpr parseFloatExpr(FloatLiteral literal) throws SyntaxError {
-        return new FloatExpr (literal, literal.pos);
+        return new FloatExpr (literal, literal.getPosition());
     }
 
     public StringExpr parseStringExpr() throws SyntaxError {
@@ -1007,6 +1135,6 @@ public class Parser {
     }
 
     public StringExpr parseStringExpr(StringLiteral literal) throws SyntaxError {
-        return new StringExpr (literal, literal.pos);
+        return new StringExpr (literal, literal.getPosition());
     }
 }
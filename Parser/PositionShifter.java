@@ -0,0 +1,44 @@
+package MiniC.Parser;
+
+import MiniC.AstGen.*;
+
+// Moves the positions of all nodes of a subtree down by a number of
+// lines, for the IncrementalParser. Only the syntactic children are
+// followed, not types or declarations linked in by semantic analysis.
+// Nodes reached twice, like the type shared by the declarators of one
+// variable-def, are moved once.
+class PositionShifter implements WalkVisitor {
+
+    private int lines;
+    private java.util.IdentityHashMap<AST, Boolean> moved =
+        new java.util.IdentityHashMap<AST, Boolean>();
+
+    PositionShifter(int lines) {
+	this.lines = lines;
+    }
+
+    // Moves the subtree x.
+    void shift(AST x) {
+	if (x != null) {
+	    TreeWalker.walk(x, this);
+	}
+    }
+
+    // Moves the node x only; false if it was moved before.
+    boolean move(AST x) {
+	if (x == null || moved.put(x, Boolean.TRUE) != null) {
+	    return false;
+	}
+	x.shiftLines(lines);
+	return true;
+    }
+
+    // The children of a node moved before are skipped.
+    public boolean enter(AST x, TreeWalker w) {
+	return move(x);
+    }
+
+    public void leave(AST x, TreeWalker w) {
+    }
+
+}
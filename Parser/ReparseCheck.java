@@ -0,0 +1,86 @@
+package MiniC.Parser;
+
+import MiniC.Parser.IncrementalParser;
+import MiniC.Parser.Parser;
+import MiniC.Scanner.RescanCheck;
+import MiniC.Scanner.Scanner;
+import MiniC.Scanner.SourceFile;
+import MiniC.Scanner.SourcePos;
+import MiniC.AstGen.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Test driver for incremental parsing:
+//   java MiniC.Parser.ReparseCheck file edits
+// applies the edits to file one after the other with an
+// IncrementalParser, and checks its program after each against a
+// full parse of the edited source, node by node with their positions.
+// The edits are written as for RescanCheck.
+public class ReparseCheck {
+
+  public static void main(String[] args) {
+    if (args.length != 2) {
+      System.out.println("Usage: ReparseCheck file edits");
+      System.exit(1);
+    }
+    SourceFile source = new SourceFile(args[0]);
+    if (source.isUnreadable()) {
+      System.out.println("Error opening file " + args[0]);
+      System.exit(1);
+    }
+    List<String> edits = RescanCheck.readEdits(args[1]);
+
+    IncrementalParser parser = new IncrementalParser(source, null);
+    System.out.println(parser.getChangedDecls().size() + " declarations");
+    for (String edit : edits) {
+      source = parser.getSource();
+      Program program = parser.edit(RescanCheck.offsetOf(source, edit),
+                                    RescanCheck.removedOf(edit),
+                                    RescanCheck.textOf(edit));
+      Program expected = new Parser(new Scanner(parser.getSource()).scanAll(), null).parse();
+      System.out.print(edit + ": ");
+      if (program == null) {
+        System.out.println("syntax error" + ((expected == null) ? "" : ", MISMATCH: a full parse has none"));
+        continue;
+      }
+      System.out.print("reparsed " + parser.getChangedDecls().size() + " declarations");
+      if (expected == null) {
+        System.out.println(", MISMATCH: a full parse has a syntax error");
+        continue;
+      }
+      List<String> nodes = dump(program), expectedNodes = dump(expected);
+      int i = 0;
+      while (i < nodes.size() && i < expectedNodes.size()
+             && nodes.get(i).equals(expectedNodes.get(i))) {
+        i++;
+      }
+      if (i == nodes.size() && i == expectedNodes.size()) {
+        System.out.println(", same as a full parse");
+      } else {
+        System.out.println(", MISMATCH at node " + i);
+        System.out.println("  full parse: " + ((i < expectedNodes.size()) ? expectedNodes.get(i) : "none"));
+        System.out.println("  reparse:    " + ((i < nodes.size()) ? nodes.get(i) : "none"));
+      }
+    }
+  }
+
+  // The nodes of the tree at root in preorder, each as its depth, its
+  // class, the lexeme of a terminal and its position.
+  static List<String> dump(AST root) {
+    final List<String> nodes = new ArrayList<String>();
+    TreeWalker.walk(root, new WalkVisitor() {
+      public boolean enter(AST x, TreeWalker w) {
+        SourcePos p = x.getPosition();
+        String lexeme = (x instanceof Terminal) ? " \"" + ((Terminal) x).Lexeme + "\"" : "";
+        nodes.add(w.depth() + " " + x.getClass().getSimpleName() + lexeme + " "
+                  + p.StartLine + ":" + p.StartCol + ".." + p.EndLine + ":" + p.EndCol);
+        return true;
+      }
+      public void leave(AST x, TreeWalker w) {
+      }
+    });
+    return nodes;
+  }
+
+}
@@ -0,0 +1,71 @@
+package MiniC.Scanner;
+
+import MiniC.Scanner.ParallelScanner;
+import MiniC.Scanner.Scanner;
+import MiniC.Scanner.SourceFile;
+import MiniC.Scanner.TokenBuffer;
+
+import java.util.concurrent.ForkJoinPool;
+
+// Scaling benchmark for the parallel scanner:
+//   java MiniC.Scanner.LexBenchmark file [maxThreads [runs]]
+// scans file sequentially and then on pools of 1..maxThreads workers,
+// checks that every result equals the sequential one, and prints the
+// best time of each.
+public class LexBenchmark {
+
+  public static void main(String[] args) {
+    if (args.length < 1) {
+      System.out.println("Usage: LexBenchmark file [maxThreads [runs]]");
+      System.exit(1);
+    }
+    int maxThreads = (args.length > 1) ? Integer.parseInt(args[1])
+                                       : Runtime.getRuntime().availableProcessors();
+    int runs = (args.length > 2) ? Integer.parseInt(args[2]) : 10;
+    SourceFile source = new SourceFile(args[0]);
+    if (source.isUnreadable()) {
+      System.out.println("Error opening file " + args[0]);
+      System.exit(1);
+    }
+
+    TokenBuffer expected = null;
+    long best = Long.MAX_VALUE;
+    for (int r = 0; r < runs; r++) {
+      long t0 = System.nanoTime();
+      expected = new Scanner(source).scanAll();
+      best = Math.min(best, System.nanoTime() - t0);
+    }
+    System.out.printf("%d chars, %d tokens%n", source.length(), expected.size());
+    System.out.printf("sequential: %8.1f ms%n", best / 1e6);
+    double sequential = best;
+
+    for (int threads = 1; threads <= maxThreads; threads++) {
+      ForkJoinPool pool = new ForkJoinPool(threads);
+      best = Long.MAX_VALUE;
+      for (int r = 0; r < runs; r++) {
+        long t0 = System.nanoTime();
+        TokenBuffer tokens = ParallelScanner.scanAll(source, pool);
+        best = Math.min(best, System.nanoTime() - t0);
+        if (!same(expected, tokens)) {
+          System.out.println("MISMATCH with " + threads + " threads");
+          System.exit(1);
+        }
+      }
+      pool.shutdown();
+      System.out.printf("%2d threads: %8.1f ms  speedup %.2f%n",
+                        threads, best / 1e6, sequential / best);
+    }
+  }
+
+  static boolean same(TokenBuffer a, TokenBuffer b) {
+    if (a.size() != b.size()) return false;
+    for (int i = 0; i < a.size(); i++) {
+      if (a.kind[i] != b.kind[i] || a.start[i] != b.start[i] || a.end[i] != b.end[i]
+          || a.pos[i] != b.pos[i] || a.posEnd[i] != b.posEnd[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+}
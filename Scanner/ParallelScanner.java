@@ -0,0 +1,140 @@
+package MiniC.Scanner;
+
+import MiniC.Scanner.Scanner;
+import MiniC.Scanner.SourceFile;
+import MiniC.Scanner.Token;
+import MiniC.Scanner.TokenBuffer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+// Scans a large source in chunks on a ForkJoinPool and stitches the
+// chunks into one token buffer, equal to what Scanner.scanAll() gives.
+//
+// Chunks are cut at line starts where the sequential scanner is sure
+// to begin a new token: every newline outside string literals and
+// block comments ends the token before it (or, in a line comment,
+// the comment itself). A pre-scan that only tracks strings and
+// comments finds these points. Token positions are source offsets,
+// so the chunks need no fixing up when stitched.
+public final class ParallelScanner {
+
+  // sources with fewer characters than this per chunk are not split;
+  // -DMiniC.pscan.minChunk=<n> lowers it, e.g. to test small sources
+  static final int MIN_CHUNK =
+    Math.max(1, Integer.getInteger("MiniC.pscan.minChunk", 256 * 1024));
+
+  // chunks per worker, to even out the load
+  static final int CHUNKS_PER_THREAD = 4;
+
+  public static TokenBuffer scanAll(SourceFile source) {
+    return scanAll(source, ForkJoinPool.commonPool());
+  }
+
+  public static TokenBuffer scanAll(SourceFile source, ForkJoinPool pool) {
+    int chunks = Math.min(pool.getParallelism() * CHUNKS_PER_THREAD,
+                          source.length() / MIN_CHUNK);
+    int[] cuts = (chunks > 1) ? splitPoints(source, chunks) : null;
+    if (cuts == null) {
+      return new Scanner(source).scanAll();
+    }
+
+    List<Callable<TokenBuffer>> tasks = new ArrayList<Callable<TokenBuffer>>();
+    for (int c = 0; c < cuts.length; c++) {
+      final int from = cuts[c];
+      final int limit = (c + 1 < cuts.length) ? cuts[c + 1] : Integer.MAX_VALUE;
+      tasks.add(new Callable<TokenBuffer>() {
+        public TokenBuffer call() {
+          return new Scanner(source, from).scanRange(limit);
+        }
+      });
+    }
+
+    List<TokenBuffer> parts = new ArrayList<TokenBuffer>();
+    try {
+      for (Future<TokenBuffer> f : pool.invokeAll(tasks)) {
+        parts.add(f.get());
+      }
+    } catch (Exception e) {
+      throw new RuntimeException("parallel scan failed", e);
+    }
+
+    int total = 0;
+    for (TokenBuffer part : parts) {
+      total += part.size();
+    }
+    TokenBuffer tokens = new TokenBuffer(source, total);
+    for (TokenBuffer part : parts) {
+      tokens.append(part);
+    }
+    return tokens;
+  }
+
+  // Pre-scan states:
+  private static final int CODE = 0, LINE_COMMENT = 1, BLOCK_COMMENT = 2,
+                           STRING = 3, ESCAPE = 4;
+
+  // Offsets at which to start the chunks, the first being 0; null if
+  // the source should be scanned in one piece. Each cut is the first
+  // safe line start at or after an even share of the source.
+  static int[] splitPoints(SourceFile source, int chunks) {
+    int length = source.length();
+    int[] cuts = new int[chunks];
+    int count = 1;
+    long nextTarget = (long) length / chunks;
+
+    int state = CODE;
+    char prev = '\n';
+    for (int i = 0; i < length; i++) {
+      char c = source.charAt(i);
+      if (c == '\u0000') {
+        // the scanner takes an embedded EOT for the end of file
+        return null;
+      }
+      if (prev == '\n' && state == CODE && i >= nextTarget && count < chunks) {
+        cuts[count++] = i;
+        nextTarget = (long) length * count / chunks;
+      }
+      switch (state) {
+      case CODE:
+        if (c == '"') {
+          state = STRING;
+        } else if (c == '/') {
+          char next = source.charAt(i + 1);
+          if (next == '/') {
+            state = LINE_COMMENT; i++;
+          } else if (next == '*') {
+            state = BLOCK_COMMENT; i++;
+          }
+        }
+        break;
+      case LINE_COMMENT:
+        if (c == '\n') state = CODE;
+        break;
+      case BLOCK_COMMENT:
+        if (c == '*' && source.charAt(i + 1) == '/') {
+          state = CODE; i++;
+        }
+        break;
+      case STRING:
+        // an unterminated string ends before the newline
+        if (c == '"' || c == '\n') state = CODE;
+        else if (c == '\\') state = ESCAPE;
+        break;
+      case ESCAPE:
+        // the escaped character is kept, even a newline
+        state = STRING;
+        break;
+      }
+      prev = source.charAt(i);
+    }
+    if (count == 1) {
+      return null;
+    }
+    return java.util.Arrays.copyOf(cuts, count);
+  }
+
+}
@@ -0,0 +1,145 @@
+package MiniC.Scanner;
+
+import MiniC.Scanner.Scanner;
+import MiniC.Scanner.SourceFile;
+import MiniC.Scanner.SourcePos;
+import MiniC.Scanner.Token;
+import MiniC.Scanner.TokenBuffer;
+
+import java.io.BufferedReader;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+// Test driver for incremental scanning:
+//   java MiniC.Scanner.RescanCheck file edits
+// applies the edits to file one after the other, rescanning the tokens
+// with Scanner.rescan() after each, and checks them against a full
+// scan of the edited source, positions included. Each line of edits
+// reads "line:col removed text": the removed characters from line:col
+// on are replaced by the rest of the line, in which \n, \t and \\
+// stand for a newline, a tab and a backslash.
+public class RescanCheck {
+
+  public static void main(String[] args) {
+    if (args.length != 2) {
+      System.out.println("Usage: RescanCheck file edits");
+      System.exit(1);
+    }
+    SourceFile source = new SourceFile(args[0]);
+    if (source.isUnreadable()) {
+      System.out.println("Error opening file " + args[0]);
+      System.exit(1);
+    }
+    List<String> edits = readEdits(args[1]);
+
+    TokenBuffer tokens = new Scanner(source).scanAll();
+    System.out.println(tokens.size() + " tokens");
+    for (String edit : edits) {
+      int offset = offsetOf(source, edit);
+      int removed = removedOf(edit);
+      String text = textOf(edit);
+      source = source.edit(offset, removed, text);
+      tokens = Scanner.rescan(tokens, source, offset, removed, text.length());
+      TokenBuffer expected = new Scanner(source).scanAll();
+      System.out.print(edit + ": " + tokens.size() + " tokens");
+      int i = mismatch(expected, tokens);
+      if (i < 0) {
+        System.out.println(", same as a full scan");
+      } else {
+        System.out.println(", MISMATCH at token " + i);
+        System.out.println("  full scan: " + describe(expected, i));
+        System.out.println("  rescan:    " + describe(tokens, i));
+      }
+    }
+  }
+
+  // The lines of the edits file (UTF-8), but for blank ones and //
+  // comments.
+  public static List<String> readEdits(String filename) {
+    List<String> edits = new ArrayList<String>();
+    try (BufferedReader in = new BufferedReader(new InputStreamReader(
+                               new FileInputStream(filename), StandardCharsets.UTF_8))) {
+      String line;
+      while ((line = in.readLine()) != null) {
+        if (!line.trim().isEmpty() && !line.startsWith("//")) {
+          edits.add(line);
+        }
+      }
+    } catch (IOException e) {
+      System.out.println("Error opening file " + filename);
+      System.exit(1);
+    }
+    return edits;
+  }
+
+  // the offset in source of the line:col an edit starts at
+  public static int offsetOf(SourceFile source, String edit) {
+    String at = edit.substring(0, edit.indexOf(' '));
+    int line = Integer.parseInt(at.substring(0, at.indexOf(':')));
+    int col = Integer.parseInt(at.substring(at.indexOf(':') + 1));
+    int offset = 0;
+    for (int l = 1; l < line && offset < source.length(); offset++) {
+      if (source.charAt(offset) == '\n') {
+        l++;
+      }
+    }
+    return offset + col - 1;
+  }
+
+  public static int removedOf(String edit) {
+    String[] parts = edit.split(" ", 3);
+    return Integer.parseInt(parts[1]);
+  }
+
+  public static String textOf(String edit) {
+    String[] parts = edit.split(" ", 3);
+    String text = (parts.length > 2) ? parts[2] : "";
+    StringBuilder sb = new StringBuilder();
+    for (int i = 0; i < text.length(); i++) {
+      char c = text.charAt(i);
+      if (c == '\\' && i + 1 < text.length()) {
+        c = text.charAt(++i);
+        if (c == 'n') {
+          c = '\n';
+        } else if (c == 't') {
+          c = '\t';
+        }
+      }
+      sb.append(c);
+    }
+    return sb.toString();
+  }
+
+  // index of the first token in which a and b differ, or -1
+  static int mismatch(TokenBuffer a, TokenBuffer b) {
+    SourcePos pa = new SourcePos(), pb = new SourcePos();
+    for (int i = 0; i < Math.max(a.size(), b.size()); i++) {
+      if (i >= a.size() || i >= b.size()
+          || a.kind[i] != b.kind[i] || a.start[i] != b.start[i] || a.end[i] != b.end[i]
+          || a.pos[i] != b.pos[i] || a.posEnd[i] != b.posEnd[i]) {
+        return i;
+      }
+      a.getSourcePos(i, pa);
+      b.getSourcePos(i, pb);
+      if (pa.StartLine != pb.StartLine || pa.StartCol != pb.StartCol
+          || pa.EndLine != pb.EndLine || pa.EndCol != pb.EndCol) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  static String describe(TokenBuffer tokens, int i) {
+    if (i >= tokens.size()) {
+      return "none";
+    }
+    SourcePos p = tokens.getSourcePos(i);
+    return Token.spell(tokens.kind[i]) + " \"" + tokens.getLexeme(i) + "\" "
+        + p.StartLine + ":" + p.StartCol + ".." + p.EndLine + ":" + p.EndCol;
+  }
+
+}
@@ -2,52 +2,56 @@ package MiniC.Scanner;
 
 import MiniC.Scanner.SourceFile;
 import MiniC.Scanner.Token;
+import MiniC.Scanner.TokenBuffer;
 
 public final class Scanner {
 
   private SourceFile sourceFile;
 
-  private final class State {
-    private char posChar;
-    private StringBuffer lexeme;
-    private int lineNr;
-    private int colNr;
-    private Status status;
-
-    public State() {
-      this.lineNr = 1;
-      this.colNr = 1;
-    }
-
-    // copy constructor
-    public State(State other) {
-      this.posChar = other.posChar;
-      this.lexeme = new StringBuffer(other.lexeme.toString());
-      this.lineNr = other.lineNr;
-      this.colNr = other.colNr;
-      this.status = other.status;
-    }
-
-    public boolean addCurrentChar = true;
-    public void takeIt() {
-      if (this.addCurrentChar) this.lexeme.append(this.posChar);
-      this.addCurrentChar = true;
-    }
-
-    public void setLine() {
-      if (this.posChar == '\n') {
-        this.lineNr++;
-        this.colNr = 0;
-      }
-      this.colNr++;
-    }
-  }
-
-  private State currentState, origState;
+  // cursor into the source buffer and the character under it;
+  // lines and columns are looked up from offsets by the SourceFile
+  private int offset;
+  private char currentChar;
+  private Status status;
+
+  // extent of the lexeme of the token being scanned
+  private int lexemeStart;
+  private int lexemeEnd;
+
+  // backtracking mark, set on the first look-ahead character
+  private boolean marked;
+  private int markOffset;
+  private Status markStatus;
+
+  // the token found by nextToken(): its lexeme spans lexemeStart to
+  // tokenEnd, the token itself (quotes included) tokenPos to tokenPosEnd
+  private int tokenKind;
+  private int tokenEnd;
+  private int tokenPos;
+  private int tokenPosEnd;
+
+  // reused by scanBatch()
+  private TokenBuffer batch;
+
+  // number of tokens scanned so far
+  private int nrTokens;
+
+  // With shared tokens, scan() returns the shared Token of each fixed
+  // spelling kind, and the positions of all tokens it returned are
+  // kept in these side arrays, by token number.
+  private boolean sharedTokens;
+  private int[] sidePos;
+  private int[] sidePosEnd;
+
+  // while scanning into a buffer, error messages are kept with the
+  // token they precede instead of being printed right away
+  private TokenBuffer target;
 
   private boolean verbose;
-  // buffer values
-  private StringBuffer buffer;
+
+  // run the FSM from the generated transition table (default) or
+  // through the hand-written switch in step()
+  private boolean tableDriven;
 
   private static final int NEEDS_CHECK = 100;
   private static final int WHITESPACES = 200;
@@ -72,8 +76,6 @@ public final class Scanner {
 
     // GL, GLE, Arith_op
     LESSEQ(7), LESS(8), GREATER(9), GREATEREQ(10), PLUS(11), MINUS(12), TIMES(13),
-    // keywords
-    BOOL(19), ELSE(20), FLOAT(21), FOR(22), IF(23), INT(24), RETURN(25), VOID(26), WHILE(27), BOOLLITERAL(17),
     // Separator
     LEFTBRACE(28), RIGHTBRACE(29), LEFTBRACKET(30), RIGHTBRACKET(31),
     LEFTPAREN(32), RIGHTPAREN(33), COMMA(34), SEMICOLON(35),
@@ -97,113 +99,334 @@ public final class Scanner {
   // Public Methods
 
   public Scanner(SourceFile source) {
+    this(source, 0);
+  }
+
+  // A scanner that starts at offset, which must be a point where the
+  // scanner from the start of the source would begin a new token.
+  Scanner(SourceFile source, int offset) {
     sourceFile = source;
     verbose = false;
-    buffer = new StringBuffer();
-    currentState = new State();
-
-    readChar();
+    tableDriven = true;
+    this.offset = offset;
+    currentChar = sourceFile.charAt(offset);
   }
 
   public void enableDebugging() {
     verbose = true;
   }
 
+  public void setTableDriven(boolean tableDriven) {
+    this.tableDriven = tableDriven;
+  }
+
+  public void enableSharedTokens() {
+    sharedTokens = true;
+    sidePos = new int[1024];
+    sidePosEnd = new int[1024];
+  }
+
+  public int getTokenCount() {
+    return nrTokens;
+  }
+
+  // Position of token number (from 1), as returned by scan() in
+  // shared token mode.
+  public SourcePos getSourcePos(int number) {
+    if (!sharedTokens || number > nrTokens || number < 1) {
+      throw new IllegalArgumentException("no position kept for token " + number);
+    }
+    int i = number - 1;
+    SourcePos pos = new SourcePos();
+    sourceFile.getSourcePos(sidePos[i], sidePosEnd[i], pos);
+    return pos;
+  }
+
   public Token scan() {
     Token currentToken;
-    SourcePos pos;
- 
-    pos = new SourcePos();
 
+    nextToken();
+    if (sharedTokens) {
+      return sharedToken();
+    }
+    currentToken = newToken();
+
+    if (verbose) currentToken.print();
+    return currentToken;
+  }
+
+  // Keeps the position of the token just scanned and returns it, as the
+  // shared Token if its kind has a fixed spelling.
+  private Token sharedToken() {
+    int i = nrTokens - 1;
+    if (i == sidePos.length) {
+      sidePos = java.util.Arrays.copyOf(sidePos, 2 * i);
+      sidePosEnd = java.util.Arrays.copyOf(sidePosEnd, 2 * i);
+    }
+    sidePos[i] = tokenPos;
+    sidePosEnd[i] = tokenPosEnd;
+    Token token = Token.hasFixedSpelling(tokenKind) ? Token.shared(tokenKind) : newToken();
+    if (verbose) {
+      newToken().print();
+    }
+    return token;
+  }
+
+  private Token newToken() {
+    return new Token(tokenKind, sourceFile, lexemeStart, tokenEnd - lexemeStart,
+                     tokenPos, tokenPosEnd, nrTokens);
+  }
+
+  // The FSM decides where a token ends after looking at no more than
+  // this many characters past it (as in "1e+x", scanned as "1").
+  private static final int LOOKAHEAD = 3;
+
+  // Incremental scanning: old holds the tokens of a source since
+  // edited into source, by replacing the removed characters at offset
+  // with inserted ones. Only the tokens around the edit are scanned
+  // again, until a token starts where one started before the edit;
+  // the tokens after it are taken from old, shifted by the edit.
+  public static TokenBuffer rescan(TokenBuffer old, SourceFile source,
+                                   int offset, int removed, int inserted) {
+    int delta = inserted - removed;
+
+    // keep the tokens that end well before the edit; binary search
+    // for the first one that does not
+    int lo = 0, hi = old.size() - 1;
+    while (lo < hi) {
+      int mid = (lo + hi) >>> 1;
+      if (old.posEnd[mid] + LOOKAHEAD < offset) {
+        lo = mid + 1;
+      } else {
+        hi = mid;
+      }
+    }
+    int keep = lo;
+
+    Scanner scanner = new Scanner(source, (keep > 0) ? old.posEnd[keep - 1] : 0);
+    TokenBuffer fresh = new TokenBuffer(source, 64);
+    scanner.target = fresh;
+    int editEnd = offset + inserted;
+    int next = keep;
+    boolean resynced = false;
+    do {
+      scanner.nextToken();
+      scanner.append(fresh);
+      if (scanner.tokenPos >= editEnd) {
+        // same text from here on; did a token start here before?
+        int oldPos = scanner.tokenPos - delta;
+        while (next < old.size() && old.pos[next] < oldPos) {
+          next++;
+        }
+        resynced = next < old.size() && old.pos[next] == oldPos;
+      }
+    } while (!resynced && scanner.tokenKind != Token.EOF);
+
+    TokenBuffer tokens = new TokenBuffer(source, keep + fresh.size() + old.size() - next);
+    tokens.append(old, 0, keep, 0);
+    tokens.append(fresh);
+    if (resynced) {
+      tokens.append(old, next + 1, old.size(), delta);
+    }
+    return tokens;
+  }
+
+  // Scans the rest of the source into a new buffer; the last token
+  // in it is EOF.
+  public TokenBuffer scanAll() {
+    TokenBuffer tokens = new TokenBuffer(sourceFile);
+    target = tokens;
+    do {
+      nextToken();
+      append(tokens);
+    } while (tokenKind != Token.EOF);
+    target = null;
+    return tokens;
+  }
+
+  // Scans the tokens that start before limit into a new buffer.
+  TokenBuffer scanRange(int limit) {
+    TokenBuffer tokens = new TokenBuffer(sourceFile);
+    target = tokens;
+    while (true) {
+      int messages = tokens.messageCount();
+      nextToken();
+      if (tokenPos >= limit) {
+        // the next range scans this token again
+        tokens.truncateMessages(messages);
+        break;
+      }
+      append(tokens);
+      if (tokenKind == Token.EOF) break;
+    }
+    target = null;
+    return tokens;
+  }
+
+  // Scans up to n tokens into the scanner's own buffer, which is
+  // cleared and reused by every call. A batch stops early after EOF;
+  // the batches after that hold EOF alone.
+  public TokenBuffer scanBatch(int n) {
+    if (batch == null) {
+      batch = new TokenBuffer(sourceFile, n);
+    }
+    batch.clear();
+    target = batch;
+    do {
+      nextToken();
+      append(batch);
+    } while (tokenKind != Token.EOF && batch.size() < n);
+    target = null;
+    return batch;
+  }
+
+  private void append(TokenBuffer tokens) {
+    tokens.add(tokenKind, lexemeStart, tokenEnd, tokenPos, tokenPosEnd);
+    if (verbose) tokens.getToken(tokens.size() - 1, nrTokens).print();
+  }
+
+  // Scans the next token into the token fields.
+  private void nextToken() {
     do {
-      currentState.lexeme = new StringBuffer("");
+      skipTrivia();
+      lexemeStart = offset;
+      lexemeEnd = -1;
 
-      pos.StartLine  = currentState.lineNr;
-      pos.EndLine    = currentState.lineNr;
-      pos.StartCol   = currentState.colNr;
+      tokenPos = offset;
 
-      currentState.status = Status.init;
+      status = Status.init;
       scanToken();
 
-      pos.EndCol     = currentState.colNr - 1;
+      tokenPosEnd = offset;
 
     // skip comments and whitespaces
-    } while (currentState.status.isWhitespace());
+    } while (status.isWhitespace());
+
+    postCheck();
+    nrTokens++;
+    tokenEnd = (lexemeEnd < 0) ? offset : lexemeEnd;
+    tokenKind = status.getValue();
+    if (tokenKind == Token.ID) {
+      tokenKind = Token.keyword(sourceFile, lexemeStart, tokenEnd - lexemeStart);
+    }
+  }
 
-    currentToken = new Token(currentState.status.getValue(), currentState.lexeme.toString(), pos);
+  // Skips blanks and complete comments ahead of the FSM, searching
+  // the source a word at a time. A comment that runs into the end of
+  // the source is left to the FSM, which reports it.
+  private void skipTrivia() {
+    int i = offset;
+    while (true) {
+      i = sourceFile.skipBlanks(i);
+      if (sourceFile.charAt(i) != '/') break;
+
+      char next = sourceFile.charAt(i + 1);
+      if (next == '/') {
+        int eol = sourceFile.indexOf('\n', '\u0000', i + 2);
+        if (sourceFile.charAt(eol) != '\n') break;
+        i = eol + 1;
+      } else if (next == '*') {
+        int end = commentEnd(i + 2);
+        if (end < 0) break;
+        i = end;
+      } else {
+        break;
+      }
+    }
+    if (i != offset) {
+      offset = i;
+      currentChar = sourceFile.charAt(offset);
+    }
+  }
 
-    if (verbose) currentToken.print();
-    return currentToken;
+  // Offset just past the "*/" closing a block comment whose body
+  // starts at from, or -1 if the comment is not closed.
+  private int commentEnd(int from) {
+    while (true) {
+      int star = sourceFile.indexOf('*', '\u0000', from);
+      if (sourceFile.charAt(star) != '*') return -1;
+      if (sourceFile.charAt(star + 1) == '/') return star + 2;
+      from = star + 1;
+    }
+  }
+
+  private void report(String message) {
+    if (target != null) {
+      target.addMessage(message);
+    } else {
+      System.out.println(message);
+    }
   }
+
     void debug(String message) {
         System.out.printf("DEBUG] %s\n", message);
     }
+
+  // The lexeme is a span of the source buffer; string literals
+  // leave out their quotes and the end of file is spelled "$".
+  private String currentLexeme() {
+    if (status == Status.EOF) return "$";
+    int end = (lexemeEnd < 0) ? offset : lexemeEnd;
+    return sourceFile.substring(lexemeStart, end);
+  }
+
 //////////////////////////////////////
 // character read
 
   private void takeIt() {
     acceptLexeme();
-    currentState.setLine();
-    currentState.takeIt();
   }
 
   private void lookAt() {
-    if (origState == null) origState = new State(currentState);
+    if (!marked) mark();
+  }
 
-    currentState.setLine();
-    currentState.takeIt();
+  // remember where to resume if the look-ahead is rejected
+  private void mark() {
+    marked = true;
+    markOffset = offset;
+    markStatus = status;
   }
 
   private void acceptLexeme() {
-    if (origState != null) origState = null;
+    marked = false;
   }
 
   private void rejectLexeme() {
-    if (origState == null) return ;
-    buffer.insert(0, currentState.posChar);
-    if (origState.lexeme.length() < currentState.lexeme.length()) {
-      buffer.insert(0, currentState.lexeme.substring( origState.lexeme.length() + 1 ));
-    }
-    currentState = new State(origState);
-    origState = null;
+    if (!marked) return ;
+    offset = markOffset;
+    currentChar = sourceFile.charAt(offset);
+    status = markStatus;
+    marked = false;
   }
 
   private void readChar() {
-    if (buffer.length() > 0) {
-      currentState.posChar = buffer.charAt(0);
-      buffer.deleteCharAt(0);
-    } else {
-      currentState.posChar = sourceFile.readChar();
-    }
+    offset++;
+    currentChar = sourceFile.charAt(offset);
   }
 
 //////////////////////////////////////////////
-// currentChar groups
+// character groups
 
-  private boolean isDigit() {
-    char pChar = currentState.posChar;
+  private static boolean isDigit(char pChar) {
     return pChar >= '0' && pChar <= '9';
   }
-  private boolean isLetter() {
-    char pChar = currentState.posChar;
+  private static boolean isLetter(char pChar) {
     return (pChar >= 'a' && pChar <= 'z') ||
            (pChar >= 'A' && pChar <= 'Z') ||
             pChar == '_';
   }
-  private boolean isExp() {
-    char pChar = currentState.posChar;
+  private static boolean isExp(char pChar) {
     return pChar == 'e' || pChar == 'E';
   }
-  private boolean isWhitespace() {
-    char pChar = currentState.posChar;
+  private static boolean isWhitespace(char pChar) {
     return pChar == ' '  ||
            pChar == '\f' ||
            pChar == '\r' ||
            pChar == '\t' ||
            pChar == '\n';
   }
-  private boolean isSeparator() {
-    char pChar = currentState.posChar;
+  private static boolean isSeparator(char pChar) {
     switch (pChar) {
     case '[': case ']': case '{': case '}': case '(': case ')': case ';': case ',':
       return true;
@@ -211,8 +434,7 @@ public final class Scanner {
       return false;
     }
   }
-  private boolean isUseNewline() {
-    Status status = currentState.status;
+  private static boolean isUseNewline(Status status) {
     switch (status) {
     case init: case comment_in: case comment_blk_in:
     case comment_blk_end: case string_temp: case escape:
@@ -221,8 +443,7 @@ public final class Scanner {
       return false;
     }
   }
-  private boolean isUseNull() {
-    Status status = currentState.status;
+  private static boolean isUseNull(Status status) {
     switch (status) {
     case init: case comment_blk_in: case comment_blk_end:
       return true;
@@ -232,181 +453,265 @@ public final class Scanner {
   }
 
 //////////////////////////////////////////////
+// FSM transitions
+
+  // Results of step() other than the ordinal of the next status:
+  private static final int STOP = -1;     // the token ends before this char
+  private static final int BREAK = -2;    // newline/EOT the status does not take
+  private static final int UNKNOWN = -3;  // status is not part of the FSM
+
+  // One transition of the FSM, from status on currentChar.
+  private static int step(Status status, char currentChar) {
+    if ( (currentChar == '\n' && !isUseNewline(status)) ||
+         (currentChar == '\u0000' && !isUseNull(status)) ) {
+      return BREAK;
+    }
 
-  private void scanToken() {
-    boolean onStatus = true;
-    Status nextStatus = currentState.status;
-
-    // FSM
-    while (onStatus) {
-      char currentChar = currentState.posChar;
-
-//      System.out.format("Current state: %s. currentChar = [%c]\n", currentState.status.name(), currentChar);
-
-      if ( (currentChar == '\n' && !isUseNewline()) ||
-           (currentChar == '\u0000' && !isUseNull()) ) {
-        onStatus = false;
-        break;
-      }
-
-      switch (currentState.status) {
-      case init:
-             if (isDigit())      { nextStatus = Status.Integer;     }
-        else if (isLetter())     { nextStatus = Status.ID;          }
-        else if (isWhitespace()) { nextStatus = Status.Whitespaces; }
-        else if (isSeparator())  { nextStatus = Status.Separator;   }
-
-        else {
-          switch (currentChar) {
-          case '\u0000':
-                    nextStatus = Status.EOF; currentState.posChar = '$'; break;
-          case '*': case '+': case '-':
-                    nextStatus = Status.Arith_op; break;
-          case '/': nextStatus = Status.Div; break;
-          case '&': nextStatus = Status.and_temp; break;
-          case '|': nextStatus = Status.or_temp; break;
-          case '=': nextStatus = Status.Assign; break;
-          case '!': nextStatus = Status.Not; break;
-          case '"': nextStatus = Status.string_temp; currentState.addCurrentChar = false; break;
-          case '.': nextStatus = Status.frac; break;
-          case '<': case '>':
-                    nextStatus = Status.GL; break;
-
-          default:  nextStatus = Status.Err_token; break;
-          }
-        }
-        break;
-
-      case Whitespaces:
-        if (!isWhitespace()) onStatus = false;
-        break;
-
-      case Div:
-        if (currentChar == '/') nextStatus = Status.comment_in;
-        else if (currentChar == '*') nextStatus = Status.comment_blk_in;
-        else onStatus = false;
-        break;
-
-      case comment_in:
-        if (currentChar == '\n') nextStatus = Status.Comment;
-        break;
-
-      case comment_blk_in:
-        if (currentChar == '*') nextStatus = Status.comment_blk_end;
-        else if (currentChar == '\u0000') nextStatus = Status.Err_comment;
-        break;
-
-      case comment_blk_end:
-        if (currentChar == '/') nextStatus = Status.Comment_blk;
-        else if (currentChar == '\u0000') nextStatus = Status.Err_comment;
-        else if (currentChar != '*') {
-          // 1. accept current lexeme
-          acceptLexeme();
-          // 2. set state to comment_blk_in
-          nextStatus = Status.comment_blk_in;
+    Status nextStatus = status;
+    switch (status) {
+    case init:
+           if (isDigit(currentChar))      { nextStatus = Status.Integer;     }
+      else if (isLetter(currentChar))     { nextStatus = Status.ID;          }
+      else if (isWhitespace(currentChar)) { nextStatus = Status.Whitespaces; }
+      else if (isSeparator(currentChar))  { nextStatus = Status.Separator;   }
+
+      else {
+        switch (currentChar) {
+        case '\u0000':
+                  nextStatus = Status.EOF; break;
+        case '*': case '+': case '-':
+                  nextStatus = Status.Arith_op; break;
+        case '/': nextStatus = Status.Div; break;
+        case '&': nextStatus = Status.and_temp; break;
+        case '|': nextStatus = Status.or_temp; break;
+        case '=': nextStatus = Status.Assign; break;
+        case '!': nextStatus = Status.Not; break;
+        case '"': nextStatus = Status.string_temp; break;
+        case '.': nextStatus = Status.frac; break;
+        case '<': case '>':
+                  nextStatus = Status.GL; break;
+
+        default:  nextStatus = Status.Err_token; break;
         }
-        break;
-
-      case ID:
-        if (!isLetter() && !isDigit()) onStatus = false;
-        break;
-
-      case Integer:
-        if (isDigit()) break;
-        else if (currentChar == '.') nextStatus = Status.Float_frac;
-        else if (isExp()) nextStatus = Status.exp;
-        else onStatus = false;
-        break;
-
-      case frac:
-        if (isDigit()) nextStatus = Status.Float_frac;
-        else onStatus = false;
-        break;
+      }
+      break;
+
+    case Whitespaces:
+      if (!isWhitespace(currentChar)) return STOP;
+      break;
+
+    case Div:
+      if (currentChar == '/') nextStatus = Status.comment_in;
+      else if (currentChar == '*') nextStatus = Status.comment_blk_in;
+      else return STOP;
+      break;
+
+    case comment_in:
+      if (currentChar == '\n') nextStatus = Status.Comment;
+      break;
+
+    case comment_blk_in:
+      if (currentChar == '*') nextStatus = Status.comment_blk_end;
+      else if (currentChar == '\u0000') nextStatus = Status.Err_comment;
+      break;
+
+    case comment_blk_end:
+      if (currentChar == '/') nextStatus = Status.Comment_blk;
+      else if (currentChar == '\u0000') nextStatus = Status.Err_comment;
+      // comment_blk_in is accepted, so taking the char drops the mark:
+      else if (currentChar != '*') nextStatus = Status.comment_blk_in;
+      break;
+
+    case ID:
+      if (!isLetter(currentChar) && !isDigit(currentChar)) return STOP;
+      break;
+
+    case Integer:
+      if (isDigit(currentChar)) break;
+      else if (currentChar == '.') nextStatus = Status.Float_frac;
+      else if (isExp(currentChar)) nextStatus = Status.exp;
+      else return STOP;
+      break;
+
+    case frac:
+      if (isDigit(currentChar)) nextStatus = Status.Float_frac;
+      else return STOP;
+      break;
+
+    case exp:
+      if (currentChar == '+' || currentChar == '-') nextStatus = Status.exp_pm;
+      else if (isDigit(currentChar)) nextStatus = Status.Float_with_exp;
+      else return STOP;
+      break;
+
+    case exp_pm:
+      if (isDigit(currentChar)) nextStatus = Status.Float_with_exp;
+      else return STOP;
+      break;
+
+    case Float_frac:
+      if (isDigit(currentChar)) break;
+      else if (isExp(currentChar)) nextStatus = Status.exp;
+      else return STOP;
+      break;
+
+    case Float_with_exp:
+      if (!isDigit(currentChar)) return STOP;
+      break;
+
+    case Not:
+      if (currentChar == '=') nextStatus = Status.Not_eq;
+      else return STOP; break;
+
+    case and_temp:
+      if (currentChar == '&') nextStatus = Status.And;
+      else return STOP; break;
+
+    case or_temp:
+      if (currentChar == '|') nextStatus = Status.Or;
+      else return STOP; break;
+
+    case Assign:
+      if (currentChar == '=') nextStatus = Status.Compare;
+      else return STOP; break;
+
+    case GL:
+      if (currentChar == '=') nextStatus = Status.GLE;
+      else return STOP; break;
+
+    case string_temp:
+      if (currentChar == '"') nextStatus = Status.String;
+      else if (currentChar == '\\') nextStatus = Status.escape;
+      else if (currentChar == '\n') nextStatus = Status.Err_string;
+      break;
+
+    case escape:
+      if (currentChar == 'n') nextStatus = Status.string_temp;
+      else                    nextStatus = Status.Err_escape;
+      break;
+
+    case Separator: case Arith_op: case String:
+    case Not_eq: case GLE: case Compare: case And: case Or:
+    case EOF: case Comment: case Comment_blk:
+      return STOP;
 
-      case exp:
-        if (currentChar == '+' || currentChar == '-') nextStatus = Status.exp_pm;
-        else if (isDigit()) nextStatus = Status.Float_with_exp;
-        else onStatus = false;
-        break;
+    default:
+      return UNKNOWN;
+    } // end FSM
 
-      case exp_pm:
-        if (isDigit()) nextStatus = Status.Float_with_exp;
-        else onStatus = false;
-        break;
+    return nextStatus.ordinal();
+  }
 
-      case Float_frac:
-        if (isDigit()) break;
-        else if (isExp()) nextStatus = Status.exp;
-        else onStatus = false;
-        break;
+//////////////////////////////////////////////
+// transition tables
+
+  // The table engine runs the same FSM as step(), compiled into a
+  // dense transition table over character classes. Two characters
+  // share a class iff step() treats them alike in every status;
+  // all characters beyond ASCII behave like '\u0080'.
+
+  private static final Status[] STATUS = Status.values();
+  private static final byte[] CHAR_CLASS = new byte[128];
+  private static final int NON_ASCII_CLASS;
+  private static final int[][] TRANSITIONS;
+
+  // Kinds of the single character operators and separators:
+  private static final Status[] PUNCTUATION = new Status[128];
+
+  static {
+    java.util.List<int[]> classes = new java.util.ArrayList<int[]>();
+    int[] classOf = new int[129];
+    for (char c = 0; c <= 128; c++) {
+      int[] row = new int[STATUS.length];
+      for (Status s : STATUS) {
+        row[s.ordinal()] = step(s, c);
+      }
+      int cls = 0;
+      while (cls < classes.size() && !java.util.Arrays.equals(classes.get(cls), row)) {
+        cls++;
+      }
+      if (cls == classes.size()) {
+        classes.add(row);
+      }
+      classOf[c] = cls;
+    }
+    for (char c = 0; c < 128; c++) {
+      CHAR_CLASS[c] = (byte) classOf[c];
+    }
+    NON_ASCII_CLASS = classOf[128];
 
-      case Float_with_exp:
-        if (!isDigit()) onStatus = false;
-        break;
+    TRANSITIONS = new int[STATUS.length][classes.size()];
+    for (int cls = 0; cls < classes.size(); cls++) {
+      for (Status s : STATUS) {
+        TRANSITIONS[s.ordinal()][cls] = classes.get(cls)[s.ordinal()];
+      }
+    }
 
-      case Not:
-        if (currentChar == '=') nextStatus = Status.Not_eq;
-        else onStatus = false; break;
+    PUNCTUATION['<'] = Status.LESS;      PUNCTUATION['>'] = Status.GREATER;
+    PUNCTUATION['+'] = Status.PLUS;      PUNCTUATION['-'] = Status.MINUS;
+    PUNCTUATION['*'] = Status.TIMES;
+    PUNCTUATION['{'] = Status.LEFTBRACE;   PUNCTUATION['}'] = Status.RIGHTBRACE;
+    PUNCTUATION['['] = Status.LEFTBRACKET; PUNCTUATION[']'] = Status.RIGHTBRACKET;
+    PUNCTUATION['('] = Status.LEFTPAREN;   PUNCTUATION[')'] = Status.RIGHTPAREN;
+    PUNCTUATION[','] = Status.COMMA;       PUNCTUATION[';'] = Status.SEMICOLON;
+  }
 
-      case and_temp:
-        if (currentChar == '&') nextStatus = Status.And;
-        else onStatus = false; break;
+  private static int charClass(char c) {
+    return c < 128 ? CHAR_CLASS[c] : NON_ASCII_CLASS;
+  }
 
-      case or_temp:
-        if (currentChar == '|') nextStatus = Status.Or;
-        else onStatus = false; break;
+//////////////////////////////////////////////
 
-      case Assign:
-        if (currentChar == '=') nextStatus = Status.Compare;
-        else onStatus = false; break;
+  private void scanToken() {
+    boolean onStatus = true;
+    Status nextStatus = status;
 
-      case GL:
-        if (currentChar == '=') nextStatus = Status.GLE;
-        else onStatus = false; break;
+    // FSM
+    while (onStatus) {
+//      System.out.format("Current state: %s. currentChar = [%c]\n", status.name(), currentChar);
 
-      case string_temp:
-        if (currentChar == '"')     { nextStatus = Status.String; currentState.addCurrentChar = false; }
-        else if (currentChar == '\\') nextStatus = Status.escape;
-        else if (currentChar == '\n') nextStatus = Status.Err_string;
-        break;
+      int next;
+      if (tableDriven) {
+        next = TRANSITIONS[status.ordinal()][charClass(currentChar)];
+      } else {
+        next = step(status, currentChar);
+      }
 
-      case escape:
-        if (currentChar == 'n') nextStatus = Status.string_temp;
-        else                    nextStatus = Status.Err_escape;
+      if (next == BREAK) {
+        onStatus = false;
         break;
-
-      case Separator: case Arith_op: case String:
-      case Not_eq: case GLE: case Compare: case And: case Or:
-      case EOF: case Comment: case Comment_blk:
-        onStatus = false; break;
-
-      default:
+      } else if (next == STOP) {
+        onStatus = false;
+      } else if (next == UNKNOWN) {
         // Unknown Status!
         System.out.format("ERROR: unknown state %s\n", nextStatus.name());
         onStatus = false;
-      } // end FSM
+      } else {
+        nextStatus = STATUS[next];
+      }
 
       // error control
       if (nextStatus.isError()) {
         switch (nextStatus) {
         case Err_escape:
-          System.out.println("ERROR: illegal escape sequence");
+          report("ERROR: illegal escape sequence");
           nextStatus = Status.string_temp;
           break;
         case Err_string:
-          System.out.println("ERROR: unterminated string literal");
+          report("ERROR: unterminated string literal");
           nextStatus = Status.String;
           acceptLexeme();
           onStatus = false;
           break;
         case Err_comment:
-          System.out.println("ERROR: unterminated multi-line comment.");
+          report("ERROR: unterminated multi-line comment.");
           nextStatus = Status.Comment_blk;
           acceptLexeme();
           onStatus = false;
           break;
         case Err_token:
           takeIt();
+          readChar();
           onStatus = false;
           break;
         }
@@ -414,13 +719,20 @@ public final class Scanner {
 
       // exit check
       if (!onStatus) {
-        currentState.status = nextStatus;
-        if (origState != null && origState.status.isAccepted()) {
+        status = nextStatus;
+        if (marked && markStatus.isAccepted()) {
           rejectLexeme(); 
         }
         break;
       }
 
+      // string literals leave out their quotes
+      if (nextStatus == Status.string_temp && status == Status.init) {
+        lexemeStart++;
+      } else if (nextStatus == Status.String) {
+        lexemeEnd = offset;
+      }
+
       // take it or look at
       if (nextStatus.isAccepted()) {
         takeIt();
@@ -428,47 +740,52 @@ public final class Scanner {
         lookAt();
       }
 
-      currentState.status = nextStatus;
+      status = nextStatus;
       readChar();
     } // while
 
     // post check
-    if (!currentState.status.isAccepted()) {
+    if (!status.isAccepted()) {
       acceptLexeme();
-      currentState.status = Status.Err_token;
+      status = Status.Err_token;
     }
-    if (currentState.status == Status.ID || currentState.status.isNeedCheck()) {
-      switch (currentState.lexeme.toString()) {
-      case "bool":   currentState.status = Status.BOOL;    break;
-      case "else":   currentState.status = Status.ELSE;    break;
-      case "float":  currentState.status = Status.FLOAT;   break;
-      case "for":    currentState.status = Status.FOR;     break;
-      case "if":     currentState.status = Status.IF;      break;
-      case "int":    currentState.status = Status.INT;     break;
-      case "return": currentState.status = Status.RETURN;  break;
-      case "void":   currentState.status = Status.VOID;    break;
-      case "while":  currentState.status = Status.WHILE;   break;
-
-      case "true":
-      case "false":  currentState.status = Status.BOOLLITERAL; break;
-
-      case "<":      currentState.status = Status.LESS;      break;
-      case ">":      currentState.status = Status.GREATER;   break;
-      case "<=":     currentState.status = Status.LESSEQ;    break;
-      case ">=":     currentState.status = Status.GREATEREQ; break;
-      case "+":      currentState.status = Status.PLUS;      break;
-      case "-":      currentState.status = Status.MINUS;     break;
-      case "*":      currentState.status = Status.TIMES;     break;
-
-      case "{":      currentState.status = Status.LEFTBRACE;    break;
-      case "}":      currentState.status = Status.RIGHTBRACE;   break;
-      case "[":      currentState.status = Status.LEFTBRACKET;  break;
-      case "]":      currentState.status = Status.RIGHTBRACKET; break;
-      case "(":      currentState.status = Status.LEFTPAREN;    break;
-      case ")":      currentState.status = Status.RIGHTPAREN;   break;
-      case ",":      currentState.status = Status.COMMA;        break;
-      case ";":      currentState.status = Status.SEMICOLON;    break;
-      }
-    } // post check end
   } // end function
+
+  // operators/separators that share an FSM state are told apart by
+  // their spelling; keywords are left to Token.keyword():
+  private void postCheck() {
+    if (!status.isNeedCheck()) return;
+
+    if (!tableDriven) {
+      postCheck(currentLexeme());
+    } else {
+      char first = sourceFile.charAt(lexemeStart);
+      if (status == Status.GLE) {
+        status = first == '<' ? Status.LESSEQ : Status.GREATEREQ;
+      } else {
+        status = PUNCTUATION[first];
+      }
+    }
+  }
+
+  private void postCheck(String lexeme) {
+    switch (lexeme) {
+    case "<":      status = Status.LESS;      break;
+    case ">":      status = Status.GREATER;   break;
+    case "<=":     status = Status.LESSEQ;    break;
+    case ">=":     status = Status.GREATEREQ; break;
+    case "+":      status = Status.PLUS;      break;
+    case "-":      status = Status.MINUS;     break;
+    case "*":      status = Status.TIMES;     break;
+
+    case "{":      status = Status.LEFTBRACE;    break;
+    case "}":      status = Status.RIGHTBRACE;   break;
+    case "[":      status = Status.LEFTBRACKET;  break;
+    case "]":      status = Status.RIGHTBRACKET; break;
+    case "(":      status = Status.LEFTPAREN;    break;
+    case ")":      status = Status.RIGHTPAREN;   break;
+    case ",":      status = Status.COMMA;        break;
+    case ";":      status = Status.SEMICOLON;    break;
+    }
+  }
 } // end class
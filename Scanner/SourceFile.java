@@ -3,31 +3,423 @@ package MiniC.Scanner;
 public class SourceFile {
 
   java.io.File source_file;
-  java.io.FileInputStream source;
   final char EOL = '\n';
   final char EOT = '\u0000';
 
+  // Files at least this large are mapped into memory, smaller files
+  // (and streams such as stdin) are read into a byte array in one go.
+  static final long MAP_THRESHOLD = 64 * 1024;
+
+  // The source is UTF-8, optionally with a byte order mark. Pure ASCII
+  // sources are read straight from their bytes (text starting at
+  // base); anything else is decoded into chars. Exactly one of these
+  // holds the source text:
+  private java.nio.MappedByteBuffer mapped;
+  private byte[] bytes;
+  private char[] chars;
+  private int base;
+
+  static final char REPLACEMENT = '\uFFFD';
+  private static final long HIGH_BITS = 0x8080808080808080L;
+
+  private int length;
+  private int readPos;
+
+  // set if the source could not be read; it is then empty
+  private boolean unreadable;
+
+  // lineStarts[k] is the offset of the first character of line k+1;
+  // built on the first position lookup. lastLine caches the line
+  // found last, since lookups mostly move forward a little at a time.
+  // Lookups from several threads take no lock: the table is published
+  // through the volatile field, and lastLine is only a hint that is
+  // checked before use.
+  private volatile int[] lineStarts;
+  private int lineCount;
+  private int lastLine;
+
   public SourceFile (String filename) {
-    try {
-       source_file = new java.io.File(filename);
-       source = new java.io.FileInputStream(source_file);
+    source_file = new java.io.File(filename);
+    try (java.io.FileInputStream in = new java.io.FileInputStream(source_file)) {
+       java.nio.channels.FileChannel channel = in.getChannel();
+       long size = channel.size();
+       if (size > Integer.MAX_VALUE) {
+          throw new java.io.IOException("source file too large");
+       }
+       if (size >= MAP_THRESHOLD) {
+          // the mapping stays valid after the channel is closed:
+          mapped = channel.map(java.nio.channels.FileChannel.MapMode.READ_ONLY,
+                               0, size);
+          mapped.order(java.nio.ByteOrder.LITTLE_ENDIAN);
+          if (!loadText(mapped, (int) size)) {
+             mapped = null;
+          }
+       } else {
+          readAll(in);
+       }
     } catch (java.io.IOException e) {
        source_file = null;
-       source = null;
+       mapped = null;
+       bytes = null;
+       chars = new char[0];
+       length = 0;
+       unreadable = true;
+    }
+  }
+
+  public SourceFile (java.io.InputStream in) {
+    source_file = null;
+    try {
+       readAll(in);
+    } catch (java.io.IOException e) {
+       chars = new char[0];
+       length = 0;
+       unreadable = true;
+    }
+  }
+
+  private SourceFile (java.io.File file, byte[] text) {
+    source_file = file;
+    bytes = text;
+    length = text.length;
+  }
+
+  private SourceFile (java.io.File file, char[] text) {
+    source_file = file;
+    chars = text;
+    length = text.length;
+  }
+
+  // The source after the removed characters at offset are replaced
+  // by text. An ASCII source stays in bytes if text is ASCII as well.
+  public SourceFile edit(int offset, int removed, String text) {
+    int tail = length - offset - removed;
+    boolean ascii = (chars == null);
+    for (int i = 0; i < text.length() && ascii; i++) {
+       ascii = text.charAt(i) < 0x80;
+    }
+    if (ascii) {
+       byte[] edited = new byte[offset + text.length() + tail];
+       copyBytes(0, edited, 0, offset);
+       for (int i = 0; i < text.length(); i++) {
+          edited[offset + i] = (byte) text.charAt(i);
+       }
+       copyBytes(offset + removed, edited, offset + text.length(), tail);
+       return new SourceFile(source_file, edited);
+    }
+    char[] edited = new char[offset + text.length() + tail];
+    copyChars(0, edited, 0, offset);
+    text.getChars(0, text.length(), edited, offset);
+    copyChars(offset + removed, edited, offset + text.length(), tail);
+    return new SourceFile(source_file, edited);
+  }
+
+  // only for ASCII sources
+  private void copyBytes(int from, byte[] to, int at, int count) {
+    if (bytes != null) {
+       System.arraycopy(bytes, base + from, to, at, count);
+    } else {
+       mapped.get(base + from, to, at, count);
+    }
+  }
+
+  private void copyChars(int from, char[] to, int at, int count) {
+    if (chars != null) {
+       System.arraycopy(chars, from, to, at, count);
+    } else {
+       for (int i = 0; i < count; i++) {
+          to[at + i] = charAt(from + i);
+       }
+    }
+  }
+
+  // Bulk-read the whole stream.
+  private void readAll(java.io.InputStream in) throws java.io.IOException {
+    bytes = in.readAllBytes();
+    if (!loadText(java.nio.ByteBuffer.wrap(bytes), bytes.length)) {
+       bytes = null;
+    }
+  }
+
+  // Skips a byte order mark, then either keeps reading the text from
+  // the bytes (pure ASCII, returns true) or decodes it into chars.
+  private boolean loadText(java.nio.ByteBuffer in, int size) {
+    base = 0;
+    if (size >= 3 && (in.get(0) & 0xff) == 0xEF
+                  && (in.get(1) & 0xff) == 0xBB
+                  && (in.get(2) & 0xff) == 0xBF) {
+       base = 3;
+    }
+    int ascii = asciiPrefix(in, base, size);
+    if (ascii == size) {
+       length = size - base;
+       return true;
+    }
+    chars = new char[size - base];
+    length = decode(in, base, ascii, size, chars);
+    return false;
+  }
+
+  // End of the leading run of ASCII bytes in [from, to), testing the
+  // high bits of eight bytes at a time.
+  static int asciiPrefix(java.nio.ByteBuffer in, int from, int to) {
+    int i = from;
+    while (i + 8 <= to && (in.getLong(i) & HIGH_BITS) == 0) {
+       i += 8;
+    }
+    while (i < to && in.get(i) >= 0) {
+       i++;
+    }
+    return i;
+  }
+
+  // Decodes the UTF-8 bytes in [from, to) into out, of which [from, ascii)
+  // are known to be ASCII, and returns the number of chars. Malformed
+  // sequences decode to REPLACEMENT; characters beyond the BMP take
+  // two chars.
+  static int decode(java.nio.ByteBuffer in, int from, int ascii, int to, char[] out) {
+    int n = 0;
+    int i = from;
+    while (i < to) {
+       // stay byte-wise while the high bits are clear
+       int run = (i < ascii) ? ascii : asciiPrefix(in, i, to);
+       while (i < run) {
+          out[n++] = (char) in.get(i++);
+       }
+       if (i == to) {
+          break;
+       }
+
+       int b = in.get(i) & 0xff;
+       int need, cp, min;
+       if (b >= 0xC2 && b <= 0xDF) {
+          need = 1; cp = b & 0x1F; min = 0x80;
+       } else if (b >= 0xE0 && b <= 0xEF) {
+          need = 2; cp = b & 0x0F; min = 0x800;
+       } else if (b >= 0xF0 && b <= 0xF4) {
+          need = 3; cp = b & 0x07; min = 0x10000;
+       } else {
+          out[n++] = REPLACEMENT;
+          i++;
+          continue;
+       }
+       int j = 1;
+       while (j <= need && i + j < to && (in.get(i + j) & 0xC0) == 0x80) {
+          cp = (cp << 6) | (in.get(i + j) & 0x3F);
+          j++;
+       }
+       i += j;
+       if (j <= need || cp < min || cp > 0x10FFFF
+           || (cp >= 0xD800 && cp <= 0xDFFF)) {
+          out[n++] = REPLACEMENT;
+       } else if (cp >= 0x10000) {
+          out[n++] = Character.highSurrogate(cp);
+          out[n++] = Character.lowSurrogate(cp);
+       } else {
+          out[n++] = (char) cp;
+       }
+    }
+    return n;
+  }
+
+  // true if the file or stream could not be opened or read.
+  public boolean isUnreadable() {
+    return unreadable;
+  }
+
+  // Number of characters in the source.
+  public int length() {
+    return length;
+  }
+
+  // Indexed access; offsets at or beyond the end read as EOT.
+  public char charAt(int offset) {
+    if (offset >= length) {
+       return EOT;
+    }
+    if (bytes != null) {
+       return (char) bytes[base + offset];
+    }
+    if (chars != null) {
+       return chars[offset];
+    }
+    return (char) mapped.get(base + offset);
+  }
+
+  public String substring(int start, int end) {
+    if (bytes != null) {
+       return new String(bytes, base + start, end - start,
+                         java.nio.charset.StandardCharsets.US_ASCII);
+    }
+    if (chars != null) {
+       return new String(chars, start, end - start);
+    }
+    byte[] buf = new byte[end - start];
+    mapped.get(base + start, buf);
+    return new String(buf, java.nio.charset.StandardCharsets.US_ASCII);
+  }
+
+  // SHA-256 of the text: of its bytes if ASCII, else of its chars.
+  public byte[] contentHash() {
+    java.security.MessageDigest digest;
+    try {
+       digest = java.security.MessageDigest.getInstance("SHA-256");
+    } catch (java.security.NoSuchAlgorithmException e) {
+       throw new RuntimeException(e);
+    }
+    if (bytes != null) {
+       digest.update(bytes, base, length);
+    } else if (mapped != null) {
+       java.nio.ByteBuffer text = mapped.duplicate();
+       text.position(base);
+       digest.update(text);
+    } else {
+       java.nio.ByteBuffer text = java.nio.ByteBuffer.allocate(2 * length);
+       text.asCharBuffer().put(chars, 0, length);
+       digest.update(text);
+    }
+    return digest.digest();
+  }
+
+  // Line (from 1) of the character at offset. Offsets past the end
+  // continue the last line.
+  public int lineOf(int offset) {
+    return lineIndex(offset) + 1;
+  }
+
+  // Column (from 1) of the character at offset.
+  public int columnOf(int offset) {
+    int line = lineIndex(offset);
+    return offset - lineStarts[line] + 1;
+  }
+
+  // Position of the token spanning [pos, posEnd). A token is reported
+  // on the line it starts on, and it ends on the column before posEnd.
+  public void getSourcePos(int pos, int posEnd, SourcePos src_pos) {
+    int line = lineIndex(pos);
+    src_pos.StartLine = line + 1;
+    src_pos.EndLine = line + 1;
+    src_pos.StartCol = pos - lineStarts[line] + 1;
+    src_pos.EndCol = columnOf(posEnd) - 1;
+  }
+
+  private int lineIndex(int offset) {
+    int[] starts = lineStarts;
+    if (starts == null) {
+       starts = buildLineStarts();
+    }
+    int count = lineCount;
+    int line = lastLine;
+    if (offset >= starts[line]
+        && (line + 1 == count || offset < starts[line + 1])) {
+       return line;
+    }
+    // binary search for the last line starting at or before offset
+    int lo = 0, hi = count - 1;
+    while (lo < hi) {
+       int mid = (lo + hi + 1) >>> 1;
+       if (starts[mid] <= offset) {
+          lo = mid;
+       } else {
+          hi = mid - 1;
+       }
+    }
+    lastLine = lo;
+    return lo;
+  }
+
+  private synchronized int[] buildLineStarts() {
+    if (lineStarts != null) {
+       return lineStarts;
+    }
+    int[] starts = new int[Math.max(16, length / 32)];
+    int count = 1;
+    starts[0] = 0;
+    for (int i = indexOf(EOL, EOL, 0); i < length; i = indexOf(EOL, EOL, i + 1)) {
+       if (count == starts.length) {
+          starts = java.util.Arrays.copyOf(starts, count * 2);
+       }
+       starts[count++] = i + 1;
+    }
+    lineCount = count;
+    lineStarts = starts;
+    return starts;
+  }
+
+  //////////////////////////////////////////////
+  // word-at-a-time search
+
+  // Eight bytes of an ASCII source read as one little endian long, so
+  // that the lowest byte is the first character.
+  private static final java.lang.invoke.VarHandle LONGS =
+    java.lang.invoke.MethodHandles.byteArrayViewVarHandle(long[].class,
+                                                          java.nio.ByteOrder.LITTLE_ENDIAN);
+  private static final long ONES = 0x0101010101010101L;
+  private static final long SPACES = 0x2020202020202020L;
+
+  private long wordAt(int offset) {
+    if (bytes != null) {
+       return (long) LONGS.get(bytes, base + offset);
+    }
+    return mapped.getLong(base + offset);
+  }
+
+  // High bit set in each byte of word that equals c; exact for the
+  // lowest such byte, which is all the searches below use.
+  private static long matches(long word, char c) {
+    long x = word ^ (ONES * c);
+    return (x - ONES) & ~x & HIGH_BITS;
+  }
+
+  // Offset of the first c1 or c2 at or after from; length if none.
+  public int indexOf(char c1, char c2, int from) {
+    int i = from;
+    if (chars == null) {
+       while (i + 8 <= length) {
+          long word = wordAt(i);
+          long found = matches(word, c1) | matches(word, c2);
+          if (found != 0) {
+             return i + (Long.numberOfTrailingZeros(found) >>> 3);
+          }
+          i += 8;
+       }
+    }
+    while (i < length) {
+       char c = charAt(i);
+       if (c == c1 || c == c2) {
+          return i;
+       }
+       i++;
+    }
+    return length;
+  }
+
+  // Offset of the first character at or after from that is not a
+  // blank; runs of spaces are skipped eight at a time.
+  public int skipBlanks(int from) {
+    int i = from;
+    while (true) {
+       if (chars == null) {
+          while (i + 8 <= length && wordAt(i) == SPACES) {
+             i += 8;
+          }
+       }
+       switch (charAt(i)) {
+       case ' ': case '\t': case '\n': case '\r': case '\f':
+          i++;
+          break;
+       default:
+          return i;
+       }
     }
   }
 
   public char readChar()
   {
-     try {
-        int c = source.read();
-        if (c == -1) {
-           c = EOT;
-        }
-        return (char) c;
-     } catch (java.io.IOException e) {
+     if (readPos >= length) {
         return EOT;
      }
+     return charAt(readPos++);
   }
 
 }
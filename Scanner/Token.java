@@ -4,49 +4,57 @@ import MiniC.Scanner.SourcePos;
 
 final public class Token extends Object {
 
-  public int kind;
-  protected SourcePos src_pos;
+  public final int kind;
+
+  // The token is a span of the source buffer; the lexeme is only
+  // built on demand, and never for tokens with a fixed spelling.
+  private SourceFile source;
+  private int start;
+  private int length;
   private String lexeme;
-  private static int overall_nrtokens = 0;
+
+  // extent of the token in the source, quotes included; line and
+  // column are only looked up when asked for
+  private int pos, posEnd;
+
+  // number of the token in the output of its scanner, from 1
   private int my_tokennr;
 
-  public Token (int kind, String lexeme, SourcePos src_pos) {
-    if (kind == Token.ID) {
-       int index = firstKeyword;
-       boolean searching = true; 
-       while (searching) {
-          int compare = tokenTable[index].compareTo(lexeme);
-          if (compare == 0) {
-             this.kind = index;
-             searching = false;
-          } else if (compare > 0 || index == lastKeyword) {
-             this.kind = Token.ID;
-             searching = false;
-          } else {
-             index++;
-          }
-       }
-    } else {
-       this.kind = kind;
-    }
-    this.src_pos = src_pos;
-    this.lexeme = lexeme;
-    overall_nrtokens++;
-    my_tokennr = overall_nrtokens;
+  public Token (int kind, SourceFile source, int start, int length,
+                int pos, int posEnd, int number) {
+    this.kind = kind;
+    this.source = source;
+    this.start = start;
+    this.length = length;
+    this.pos = pos;
+    this.posEnd = posEnd;
+    my_tokennr = number;
+  }
+
+  // A shared token, with a spelling but no position.
+  private Token (int kind) {
+    this.kind = kind;
+    this.lexeme = lexemeTable[kind];
   }
 
   public void print() {
-      System.out.println("token" + my_tokennr + ".kind = Token."
+      print(my_tokennr, GetSourcePos());
+  }
+
+  // Prints the token as token number at src_pos; for a shared token,
+  // its scanner has both.
+  public void print(int number, SourcePos src_pos) {
+      System.out.println("token" + number + ".kind = Token."
                          + tokenTable[kind].toUpperCase());
-      System.out.println("token" + my_tokennr + ".lexeme = \""
-                         + lexeme + "\"");
-      System.out.println("token" + my_tokennr + ".src_pos.StartLine = "
+      System.out.println("token" + number + ".lexeme = \""
+                         + GetLexeme() + "\"");
+      System.out.println("token" + number + ".src_pos.StartLine = "
                          + src_pos.StartLine);
-      System.out.println("token" + my_tokennr + ".src_pos.EndLine = "
+      System.out.println("token" + number + ".src_pos.EndLine = "
                          + src_pos.EndLine);
-      System.out.println("token" + my_tokennr + ".src_pos.StartCol = "
+      System.out.println("token" + number + ".src_pos.StartCol = "
                          + src_pos.StartCol);
-      System.out.println("token" + my_tokennr + ".src_pos.EndCol = "
+      System.out.println("token" + number + ".src_pos.EndCol = "
                          + src_pos.EndCol + "\n");
   }
 
@@ -180,19 +188,124 @@ final public class Token extends Object {
        "EOF"
     };
 
-    private final static int firstKeyword = Token.BOOL,
-                             lastKeyword = Token.WHILE;
+    // Shared instances for the tokens with a fixed spelling.
+    private static final Token[] sharedTokens = new Token[EOF + 1];
+    static {
+	for (int kind = 0; kind <= EOF; kind++) {
+	    if (hasFixedSpelling(kind)) {
+		sharedTokens[kind] = new Token(kind);
+	    }
+	}
+    }
+
+    // The shared token of an operator, keyword or punctuation kind.
+    public static Token shared (int kind) {
+	if (!hasFixedSpelling(kind)) {
+	    throw new IllegalArgumentException("no shared token for " + tokenTable[kind]);
+	}
+	return sharedTokens[kind];
+    }
+
+    public boolean isShared() {
+	return source == null;
+    }
+
+    // Classifies an identifier span as a keyword, a bool literal or a
+    // plain ID. Candidates are picked by length and first character,
+    // so most identifiers are rejected after one or two comparisons.
+    public static int keyword (SourceFile source, int start, int length) {
+	char c = source.charAt(start);
+	int kind = ID;
+	switch (length) {
+	case 2:
+	    if (c == 'i') kind = IF;
+	    break;
+	case 3:
+	    if (c == 'f') kind = FOR;
+	    else if (c == 'i') kind = INT;
+	    break;
+	case 4:
+	    if (c == 'b') kind = BOOL;
+	    else if (c == 'e') kind = ELSE;
+	    else if (c == 'v') kind = VOID;
+	    else if (c == 't') return spells(source, start, "true") ? BOOLLITERAL : ID;
+	    break;
+	case 5:
+	    if (c == 'w') kind = WHILE;
+	    else if (c == 'f') {
+		if (source.charAt(start + 1) == 'a') {
+		    return spells(source, start, "false") ? BOOLLITERAL : ID;
+		}
+		kind = FLOAT;
+	    }
+	    break;
+	case 6:
+	    if (c == 'r') kind = RETURN;
+	    break;
+	}
+	if (kind != ID && !spells(source, start, lexemeTable[kind])) {
+	    kind = ID;
+	}
+	return kind;
+    }
+
+    // the first character has already been matched
+    private static boolean spells (SourceFile source, int start, String word) {
+	for (int i = 1; i < word.length(); i++) {
+	    if (source.charAt(start + i) != word.charAt(i)) return false;
+	}
+	return true;
+    }
 
     public static String spell (int kind) {
 	return lexemeTable[kind];
     }
 
+    // true for operators, keywords and punctuation
+    static boolean hasFixedSpelling (int kind) {
+	return (kind >= ASSIGN && kind <= DIV)
+	    || (kind >= BOOL && kind <= SEMICOLON);
+    }
+
+    public int GetStart() {
+	return start;
+    }
+
+    public int GetLength() {
+	return length;
+    }
+
+    // Not for shared tokens: their scanner has the positions.
     public SourcePos GetSourcePos() {
-	return src_pos;
+	SourcePos pos = new SourcePos();
+	GetSourcePos(pos);
+	return pos;
     } 
 
+    // copies the position into pos instead of allocating one
+    public void GetSourcePos(SourcePos src_pos) {
+	if (isShared()) {
+	    throw new IllegalStateException("shared token has no position");
+	}
+	source.getSourcePos(pos, posEnd, src_pos);
+    }
+
     public String GetLexeme() {
+	if (lexeme == null) {
+	    lexeme = lexeme(kind, source, start, length);
+	}
 	return lexeme;
     } 
 
+    // The lexeme of a token of the given kind spanning the source.
+    public static String lexeme (int kind, SourceFile source, int start, int length) {
+	if (kind == EOF) {
+	    return "$";
+	} else if (hasFixedSpelling(kind)) {
+	    return lexemeTable[kind];
+	} else {
+	    return source.substring(start, start + length);
+	}
+    }
+
 }
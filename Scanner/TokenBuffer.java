@@ -0,0 +1,221 @@
+package MiniC.Scanner;
+
+import MiniC.Scanner.SourceFile;
+import MiniC.Scanner.SourcePos;
+import MiniC.Scanner.Token;
+
+// A sequence of tokens kept in parallel arrays instead of one Token
+// object per token. The lexeme of token i spans source offsets
+// [start[i], end[i]), the token itself (quotes included) spans
+// [pos[i], posEnd[i]); lines and columns come from the SourceFile.
+public final class TokenBuffer {
+
+  static final int DEFAULT_CAPACITY = 1024;
+
+  private SourceFile source;
+  private int size;
+
+  public int[] kind;
+  public int[] start;
+  public int[] end;
+  public int[] pos;
+  public int[] posEnd;
+
+  // Scanner error messages; message m is printed just before token
+  // messageAt[m] becomes current, as a scanner reading one token at a
+  // time would have printed it.
+  private java.util.ArrayList<String> messages = new java.util.ArrayList<String>();
+  private int[] messageAt = new int[4];
+  private int messagesPrinted;
+
+  // Lexemes of the tokens, shared between equal ones, when loaded
+  // from a TokenCache; otherwise they are taken from the source. Any
+  // change to the buffer drops them.
+  private String[] lexemes;
+
+  public TokenBuffer(SourceFile source) {
+    this(source, DEFAULT_CAPACITY);
+  }
+
+  public TokenBuffer(SourceFile source, int capacity) {
+    this.source = source;
+    capacity = Math.max(capacity, 1);
+    kind = new int[capacity];
+    start = new int[capacity];
+    end = new int[capacity];
+    pos = new int[capacity];
+    posEnd = new int[capacity];
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public void clear() {
+    size = 0;
+    lexemes = null;
+    messages.clear();
+    messagesPrinted = 0;
+  }
+
+  public SourceFile getSource() {
+    return source;
+  }
+
+  public void add(int kind, int start, int end, int pos, int posEnd) {
+    if (size == this.kind.length) {
+      grow();
+    }
+    lexemes = null;
+    this.kind[size] = kind;
+    this.start[size] = start;
+    this.end[size] = end;
+    this.pos[size] = pos;
+    this.posEnd[size] = posEnd;
+    size++;
+  }
+
+  // Appends all tokens and messages of other.
+  public void append(TokenBuffer other) {
+    append(other, 0, other.size, 0);
+  }
+
+  // Appends tokens [from, to) of other, their offsets shifted by
+  // delta, along with the messages printed before them.
+  void append(TokenBuffer other, int from, int to, int delta) {
+    for (int m = 0; m < other.messages.size(); m++) {
+      int at = other.messageAt[m];
+      if (at >= from && at < to) {
+        addMessage(other.messages.get(m), size + at - from);
+      }
+    }
+    int count = to - from;
+    lexemes = null;
+    while (size + count > kind.length) {
+      grow();
+    }
+    System.arraycopy(other.kind, from, kind, size, count);
+    System.arraycopy(other.start, from, start, size, count);
+    System.arraycopy(other.end, from, end, size, count);
+    System.arraycopy(other.pos, from, pos, size, count);
+    System.arraycopy(other.posEnd, from, posEnd, size, count);
+    if (delta != 0) {
+      for (int i = size; i < size + count; i++) {
+        start[i] += delta;
+        end[i] += delta;
+        pos[i] += delta;
+        posEnd[i] += delta;
+      }
+    }
+    size += count;
+  }
+
+  // Tokens [from, to) on their own, ended by an EOF token at the
+  // start of token to; the messages are left out.
+  public TokenBuffer slice(int from, int to) {
+    int count = to - from;
+    TokenBuffer part = new TokenBuffer(source, count + 1);
+    System.arraycopy(kind, from, part.kind, 0, count);
+    System.arraycopy(start, from, part.start, 0, count);
+    System.arraycopy(end, from, part.end, 0, count);
+    System.arraycopy(pos, from, part.pos, 0, count);
+    System.arraycopy(posEnd, from, part.posEnd, 0, count);
+    part.size = count;
+    part.add(Token.EOF, start[to], start[to], pos[to], pos[to]);
+    if (lexemes != null) {
+      part.lexemes = java.util.Arrays.copyOfRange(lexemes, from, to + 1);
+      part.lexemes[count] = null;
+    }
+    return part;
+  }
+
+  // Adds a message for the token added next.
+  void addMessage(String message) {
+    addMessage(message, size);
+  }
+
+  void addMessage(String message, int at) {
+    if (messages.size() == messageAt.length) {
+      messageAt = java.util.Arrays.copyOf(messageAt, messageAt.length * 2);
+    }
+    messageAt[messages.size()] = at;
+    messages.add(message);
+  }
+
+  int messageCount() {
+    return messages.size();
+  }
+
+  String getMessage(int m) {
+    return messages.get(m);
+  }
+
+  int getMessageAt(int m) {
+    return messageAt[m];
+  }
+
+  void setSize(int size) {
+    while (size > kind.length) {
+      grow();
+    }
+    this.size = size;
+    lexemes = null;
+  }
+
+  void setLexemes(String[] lexemes) {
+    this.lexemes = lexemes;
+  }
+
+  void truncateMessages(int count) {
+    while (messages.size() > count) {
+      messages.remove(messages.size() - 1);
+    }
+  }
+
+  // Prints the pending messages of the tokens up to and including i.
+  public void printMessages(int i) {
+    while (messagesPrinted < messages.size() && messageAt[messagesPrinted] <= i) {
+      System.out.println(messages.get(messagesPrinted));
+      messagesPrinted++;
+    }
+  }
+
+  private void grow() {
+    int capacity = kind.length * 2;
+    kind = java.util.Arrays.copyOf(kind, capacity);
+    start = java.util.Arrays.copyOf(start, capacity);
+    end = java.util.Arrays.copyOf(end, capacity);
+    pos = java.util.Arrays.copyOf(pos, capacity);
+    posEnd = java.util.Arrays.copyOf(posEnd, capacity);
+  }
+
+  public int getStartLine(int i) { return source.lineOf(pos[i]); }
+  public int getStartCol(int i)  { return source.columnOf(pos[i]); }
+
+  public void getSourcePos(int i, SourcePos src_pos) {
+    source.getSourcePos(pos[i], posEnd[i], src_pos);
+  }
+
+  public SourcePos getSourcePos(int i) {
+    SourcePos src_pos = new SourcePos();
+    getSourcePos(i, src_pos);
+    return src_pos;
+  }
+
+  public String getLexeme(int i) {
+    if (lexemes != null && lexemes[i] != null) {
+      return lexemes[i];
+    }
+    return Token.lexeme(kind[i], source, start[i], end[i] - start[i]);
+  }
+
+  // The token at i as a Token object, numbered number.
+  public Token getToken(int i, int number) {
+    return new Token(kind[i], source, start[i], end[i] - start[i], pos[i], posEnd[i], number);
+  }
+
+  public Token getToken(int i) {
+    return getToken(i, i + 1);
+  }
+
+}
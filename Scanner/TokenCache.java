@@ -0,0 +1,246 @@
+package MiniC.Scanner;
+
+import MiniC.Scanner.SourceFile;
+import MiniC.Scanner.Token;
+import MiniC.Scanner.TokenBuffer;
+
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+
+// Keeps the tokens of a source in a binary file, so that compiling the
+// same source again needs no scanning. The file holds, big endian:
+//
+//   magic, VERSION, SHA-256 of the source text, source length,
+//   token count n, then kind, start, end, pos and posEnd (n ints each),
+//   the lexeme table (count, then each as length and chars),
+//   the lexeme index of each token (n ints, -1 for fixed spellings),
+//   the scanner messages (count, then each as token index, length
+//   and chars),
+//   the CRC-32 of all bytes before it.
+//
+// A file with another magic, version, hash or length is ignored, and
+// so is one with a bad CRC or contents that do not fit the layout.
+// VERSION must be raised whenever this layout, the token kinds or
+// the tokens the scanner produces change.
+public final class TokenCache {
+
+  static final int MAGIC = 0x4D43544B;   // "MCTK"
+  static final int VERSION = 2;
+
+  // The cache file kept next to a source file.
+  public static File cacheFileFor(String sourceName) {
+    return new File(sourceName + ".tokens");
+  }
+
+  // The tokens cached for source, or null if file does not hold them.
+  public static TokenBuffer load(SourceFile source, File file) {
+    if (!file.isFile()) {
+      return null;
+    }
+    try (java.nio.channels.FileChannel channel =
+           java.nio.channels.FileChannel.open(file.toPath())) {
+      if (channel.size() < 4 || channel.size() > Integer.MAX_VALUE) {
+        return null;
+      }
+      ByteBuffer in = channel.map(java.nio.channels.FileChannel.MapMode.READ_ONLY,
+                                  0, channel.size());
+      int size = in.limit() - 4;
+      java.util.zip.CRC32 crc = new java.util.zip.CRC32();
+      ByteBuffer body = in.duplicate();
+      body.limit(size);
+      crc.update(body);
+      if ((int) crc.getValue() != in.getInt(size)) {
+        return null;
+      }
+      in.limit(size);
+
+      need(in, 8 + 32 + 4);
+      if (in.getInt() != MAGIC || in.getInt() != VERSION) {
+        return null;
+      }
+      byte[] hash = new byte[32];
+      in.get(hash);
+      if (!java.util.Arrays.equals(hash, source.contentHash())
+          || in.getInt() != source.length()) {
+        return null;
+      }
+
+      need(in, 4);
+      int n = in.getInt();
+      if (n < 1 || n > in.remaining() / 20) {
+        throw new BadCache("bad token count");
+      }
+      TokenBuffer tokens = new TokenBuffer(source, n);
+      getInts(in, tokens.kind, n);
+      getInts(in, tokens.start, n);
+      getInts(in, tokens.end, n);
+      getInts(in, tokens.pos, n);
+      getInts(in, tokens.posEnd, n);
+      tokens.setSize(n);
+      // EOF stands for the EOT past the end of the source
+      int length = source.length() + 1;
+      for (int i = 0; i < n; i++) {
+        if (tokens.kind[i] < 0 || tokens.kind[i] > Token.EOF
+            || !inOrder(0, tokens.start[i], tokens.end[i], length)
+            || !inOrder(0, tokens.pos[i], tokens.posEnd[i], length)) {
+          throw new BadCache("bad token " + i);
+        }
+      }
+      if (tokens.kind[n - 1] != Token.EOF) {
+        throw new BadCache("no EOF");
+      }
+
+      need(in, 4);
+      int count = in.getInt();
+      if (count < 0 || count > in.remaining() / 4) {
+        throw new BadCache("bad lexeme count");
+      }
+      String[] table = new String[count];
+      for (int l = 0; l < table.length; l++) {
+        table[l] = getString(in);
+      }
+      need(in, 4L * n);
+      String[] lexemes = new String[n];
+      for (int i = 0; i < n; i++) {
+        int l = in.getInt();
+        if (l < -1 || l >= count) {
+          throw new BadCache("bad lexeme index");
+        }
+        lexemes[i] = (l < 0) ? null : table[l];
+      }
+      tokens.setLexemes(lexemes);
+
+      need(in, 4);
+      int messages = in.getInt();
+      int last = 0;
+      for (int m = 0; m < messages; m++) {
+        need(in, 4);
+        int at = in.getInt();
+        if (at < last || at >= n) {
+          throw new BadCache("bad message position");
+        }
+        tokens.addMessage(getString(in), at);
+        last = at;
+      }
+      if (in.hasRemaining()) {
+        throw new BadCache("trailing bytes");
+      }
+      return tokens;
+    } catch (IOException | BadCache e) {
+      // unreadable, truncated or corrupt: scan again
+      return null;
+    }
+  }
+
+  // A cache file that does not follow the layout.
+  private static final class BadCache extends Exception {
+    BadCache(String s) {
+      super(s);
+    }
+    private static final long serialVersionUID = 1L;
+  }
+
+  private static void need(ByteBuffer in, long bytes) throws BadCache {
+    if (in.remaining() < bytes) {
+      throw new BadCache("truncated");
+    }
+  }
+
+  private static boolean inOrder(int a, int b, int c, int d) {
+    return a <= b && b <= c && c <= d;
+  }
+
+  // Writes tokens, the complete token stream of source, to file. The
+  // cache is only an aid, so failing to write it is not an error.
+  public static void store(SourceFile source, TokenBuffer tokens, File file) {
+    File temp = new File(file.getPath() + ".tmp");
+    java.util.zip.CRC32 crc = new java.util.zip.CRC32();
+    try (DataOutputStream out = new DataOutputStream(new java.util.zip.CheckedOutputStream(
+           new java.io.BufferedOutputStream(new java.io.FileOutputStream(temp)), crc))) {
+      int n = tokens.size();
+      out.writeInt(MAGIC);
+      out.writeInt(VERSION);
+      out.write(source.contentHash());
+      out.writeInt(source.length());
+      out.writeInt(n);
+      putInts(out, tokens.kind, n);
+      putInts(out, tokens.start, n);
+      putInts(out, tokens.end, n);
+      putInts(out, tokens.pos, n);
+      putInts(out, tokens.posEnd, n);
+
+      // equal lexemes are stored once
+      HashMap<String, Integer> index = new HashMap<String, Integer>();
+      java.util.ArrayList<String> table = new java.util.ArrayList<String>();
+      int[] lexemeOf = new int[n];
+      for (int i = 0; i < n; i++) {
+        if (tokens.kind[i] == Token.EOF || Token.hasFixedSpelling(tokens.kind[i])) {
+          lexemeOf[i] = -1;
+          continue;
+        }
+        String lexeme = tokens.getLexeme(i);
+        Integer l = index.get(lexeme);
+        if (l == null) {
+          l = table.size();
+          index.put(lexeme, l);
+          table.add(lexeme);
+        }
+        lexemeOf[i] = l;
+      }
+      out.writeInt(table.size());
+      for (String lexeme : table) {
+        putString(out, lexeme);
+      }
+      putInts(out, lexemeOf, n);
+
+      out.writeInt(tokens.messageCount());
+      for (int m = 0; m < tokens.messageCount(); m++) {
+        out.writeInt(tokens.getMessageAt(m));
+        putString(out, tokens.getMessage(m));
+      }
+      out.writeInt((int) crc.getValue());
+    } catch (IOException e) {
+      temp.delete();
+      return;
+    }
+    // replace the old cache in one step, for runs sharing the file
+    if (!temp.renameTo(file)) {
+      file.delete();
+      if (!temp.renameTo(file)) {
+        temp.delete();
+      }
+    }
+  }
+
+  private static void getInts(ByteBuffer in, int[] to, int n) {
+    in.asIntBuffer().get(to, 0, n);
+    in.position(in.position() + 4 * n);
+  }
+
+  private static void putInts(DataOutputStream out, int[] from, int n) throws IOException {
+    for (int i = 0; i < n; i++) {
+      out.writeInt(from[i]);
+    }
+  }
+
+  private static String getString(ByteBuffer in) throws BadCache {
+    need(in, 4);
+    int length = in.getInt();
+    if (length < 0 || length > in.remaining() / 2) {
+      throw new BadCache("bad string length");
+    }
+    char[] chars = new char[length];
+    in.asCharBuffer().get(chars);
+    in.position(in.position() + 2 * chars.length);
+    return new String(chars);
+  }
+
+  private static void putString(DataOutputStream out, String s) throws IOException {
+    out.writeInt(s.length());
+    out.writeChars(s);
+  }
+
+}
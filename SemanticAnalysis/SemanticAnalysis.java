@@ -5,7 +5,7 @@ import MiniC.StdEnvironment;
 import MiniC.Scanner.SourcePos;
 import MiniC.AstGen.*;
 
-public class SemanticAnalysis implements Visitor {
+public class SemanticAnalysis implements ContextVisitor<AST, TreeWalker> {
 
     private ErrorReporter reporter;
     private ScopeStack scopeStack;
@@ -65,6 +65,7 @@ public class SemanticAnalysis implements Visitor {
     // the type of the declaration.
     // 1) for functions declarations, this is the return type of the function
     // 2) for variable declarations, this is the type of the variable
+    // Once a declaration has been checked, this is its canonical type.
     private Type typeOfDecl(AST d) {
         Type T;
         if (d == null) {
@@ -72,7 +73,9 @@ public class SemanticAnalysis implements Visitor {
         }
         assert ((d instanceof FunDecl) || (d instanceof VarDecl)
                 || (d instanceof FormalParamDecl));
-        if (d instanceof FunDecl) {
+        if (((Decl) d).type != null) {
+            T = ((Decl) d).type;
+        } else if (d instanceof FunDecl) {
             T = ((FunDecl) d).tAST;
         } else if (d instanceof VarDecl) {
             T = ((VarDecl) d).tAST;
@@ -95,39 +98,19 @@ public class SemanticAnalysis implements Visitor {
     //  <int> x <int> -> <sometype>
     //  <float> x <float> -> <sometype>
     private boolean HasIntOrFloatArgs (Operator op) {
-        return (op.Lexeme.equals("+") ||
-                op.Lexeme.equals("-") ||
-                op.Lexeme.equals("*") ||
-                op.Lexeme.equals("/") ||
-                op.Lexeme.equals("<") ||
-                op.Lexeme.equals("<=") ||
-                op.Lexeme.equals(">") ||
-                op.Lexeme.equals(">=") ||
-                op.Lexeme.equals("==") ||
-                op.Lexeme.equals("!="));
+        return op.kind.intOrFloatArgs;
     }
 
     // This function returns true, if an operator accepts bool arguments.
     //  <bool> x <bool> -> <sometype>
     private boolean HasBoolArgs (Operator op) {
-        return (op.Lexeme.equals("&&") ||
-                op.Lexeme.equals("||") ||
-                op.Lexeme.equals("!") ||
-                op.Lexeme.equals("=="));
+        return op.kind.boolArgs;
     }
 
     // This function returns true, if an operator returns a bool value.
     //  <sometype> x <sometype> -> bool
     private boolean HasBoolReturnType (Operator op) {
-        return (op.Lexeme.equals("&&") ||
-                op.Lexeme.equals("||") ||
-                op.Lexeme.equals("!")  ||
-                op.Lexeme.equals("!=") ||
-                op.Lexeme.equals("==") ||
-                op.Lexeme.equals("<")  ||
-                op.Lexeme.equals("<=") ||
-                op.Lexeme.equals(">")  ||
-                op.Lexeme.equals(">="));
+        return op.kind.boolResult;
     }
 
     // This function performs coercion of an integer-valued expression e.
@@ -145,7 +128,7 @@ public class SemanticAnalysis implements Visitor {
     //           i2f<int>   Expr AST for e <int>
     //
     private Expr i2f (Expr e) {
-        Operator op = new Operator ("i2f", new SourcePos());
+        Operator op = new Operator ("i2f", OpKind.I2F, new SourcePos());
         op.type = StdEnvironment.intType;
         UnaryExpr eAST = new UnaryExpr (op, e, new SourcePos());
         eAST.type = StdEnvironment.floatType;
@@ -158,21 +141,10 @@ public class SemanticAnalysis implements Visitor {
     //    void foo (int a, bool b){}
     //
     // the return value will be 2.
-    // Note: this function assumes the AST tree layout from Assignment 3.
+    // Note: this function assumes the parameters are a FormalParamDeclList.
     private int GetNrOfFormalParams(FunDecl f) {
-        int NrArgs = 0;
-        Decl D = f.paramsAST;
-        assert ((D instanceof EmptyFormalParamDecl) ||
-                (D instanceof FormalParamDeclSequence));
-        if(D instanceof EmptyFormalParamDecl)
-            return 0;
-        while (D instanceof FormalParamDeclSequence) {
-            NrArgs++;
-            D = ((FormalParamDeclSequence) D).rAST;
-            assert ((D instanceof EmptyFormalParamDecl) ||
-                    (D instanceof FormalParamDeclSequence));
-        }
-        return NrArgs;
+        assert (f.paramsAST instanceof FormalParamDeclList);
+        return ((FormalParamDeclList) f.paramsAST).items.size();
     }
 
     // Given a function declaration FunDecl, this method returns the AST for 
@@ -182,79 +154,36 @@ public class SemanticAnalysis implements Visitor {
     //    void foo (int a, bool b){}
     //
     // the AST returned will be "bool b".
-    // Note: this function assumes the AST tree layout from Assignment 3.
+    // Note: this function assumes the parameters are a FormalParamDeclList.
     private FormalParamDecl GetFormalParam (FunDecl f, int nr) {
         int fArgs = GetNrOfFormalParams(f);
-        assert (fArgs >= 0);
-        assert (nr <= fArgs);
-        FormalParamDeclSequence S = (FormalParamDeclSequence) f.paramsAST;
-        for (int i = 1; i < nr; i++) {
-            assert(S.rAST instanceof FormalParamDeclSequence);
-            S = (FormalParamDeclSequence) S.rAST;
-        }
-        assert (S.lAST instanceof FormalParamDecl);
-        return (FormalParamDecl) S.lAST;
+        assert (nr >= 1 && nr <= fArgs);
+        return ((FormalParamDeclList) f.paramsAST).items.get(nr - 1);
     }
 
     // Get the number of actual parameters of a function call expression:
     // Similar to GetNrOfFormalParams above.
-    // Note: this function assumes the AST tree layout from Assignment 3.
+    // Note: this function assumes the arguments are an ActualParamList.
     private int GetNrOfActualParams(CallExpr f) {
-        int NrArgs = 0;
-        Expr P = f.paramAST;
-        assert ((P instanceof EmptyActualParam) ||
-                (P instanceof ActualParamSequence));
-        if(P instanceof EmptyActualParam)
-            return 0;
-        while (P instanceof ActualParamSequence) {
-            NrArgs++;
-            P = ((ActualParamSequence) P).rAST;
-            assert ((P instanceof EmptyActualParam) ||
-                    (P instanceof ActualParamSequence));
-        }
-        return NrArgs;
+        assert (f.paramAST instanceof ActualParamList);
+        return ((ActualParamList) f.paramAST).items.size();
     }
 
     // Given a function call expression, get the actual parameter nr
     // (nr is the number of the parameter).
     // Similar to GetFormalParam above.
-    // Note: this function assumes the AST tree layout from Assignment 3.
+    // Note: this function assumes the arguments are an ActualParamList.
     private ActualParam GetActualParam (CallExpr f, int nr) {
         int aArgs = GetNrOfActualParams(f);
-        Expr P = f.paramAST;
-        assert (aArgs >= 0);
-        assert (nr <= aArgs);
-        for (int i = 1; i < nr; i++) {
-            assert (P instanceof ActualParamSequence);
-            P = ((ActualParamSequence) P).rAST;
-        }
-        assert (((ActualParamSequence) P).lAST instanceof ActualParam);
-        return (ActualParam) ((ActualParamSequence) P).lAST;
+        assert (nr >= 1 && nr <= aArgs);
+        return ((ActualParamList) f.paramAST).items.get(nr - 1);
     }
 
     // Given a type t, this function can be used to print the type.
     // Useful for debuggging, a similar mechanism is used in the
     // TreeDrawer Visitor.
     private String TypeTag (Type t) {
-        String l = new String("");
-        if (t == null) {
-            l = new String("<?>");
-        } else if (t.Tequal(StdEnvironment.intType)) {
-            l = new String ("<int>");
-        } else if (t.Tequal(StdEnvironment.boolType)) {
-            l = new String ("<bool>");
-        } else if (t.Tequal(StdEnvironment.floatType)) {
-            l = new String ("<float>");
-        } else if (t.Tequal(StdEnvironment.stringType)) {
-            l = new String ("<string>");
-        } else if (t.Tequal(StdEnvironment.voidType)) {
-            l = new String ("<void>");
-        } else if (t instanceof ErrorType) {
-            l = new String ("<error>");
-        } else {
-            assert(false);
-        }
-        return l;
+        return (t == null) ? "<?>" : t.tag;
     }
 
     // This array of strings contains the error messages that we generate
@@ -318,66 +247,87 @@ public class SemanticAnalysis implements Visitor {
     //  (b) Each expression and value-or-variable-name is decorated by its type.
     // MAIN ENTRY:
     public void check(Program progAST) {
-        visit(progAST);
+        TreeWalker.walk(progAST, this, new TreeWalker());
         // STEP 3:
         // Check Error 0
         // 
         // Retrieve "main" from the scope stack. If it is not there (null is
         // returned), then the program does not contain a main function.
         if (scopeStack.retrieve("main") == null) {
-            reporter.reportError(errMsg[0], "", progAST.pos);
+            reporter.reportError(errMsg[0], "", progAST.getPosition());
         }
     }
 
-    public void visit(Program x) {
-        x.D.accept(this);
+    /*
+     * The visit methods step through their node on a TreeWalker: each
+     * returns the child to walk next, or null when it is done with the
+     * node, and is called again with w.step() one more once that child
+     * has been walked.
+     */
+
+    public AST visit(Program x, TreeWalker w) {
+        return TreeWalker.CHILDREN.visit(x, w);
     }
 
-    public void visit(EmptyDecl x) {
+    public AST visit(EmptyDecl x, TreeWalker w) {
+        return null;
     }
 
-    public void visit(FunDecl x) {
-        currentFunctionReturnType = x.tAST;
-        // STEP 1:
-        // Enter this function in the scope stack. Return Error 2 if this
-        // name is already present in this scope.
-        if ( !scopeStack.enter(idOfDecl(x), x) ) {
-            // Error 2
-            reporter.reportError(errMsg[2], idOfDecl(x) + " duplicated.", x.pos);
-        }
+    public AST visit(ErrorDecl x, TreeWalker w) {
+        return null;
+    }
 
-        // STEP 3:
-        // Check Error 1: 
-        // If this function is the "main" function, then ensure that
-        // x.tAST is of type int.
-        if (idOfDecl(x).equals("main") &&
-            !(currentFunctionReturnType.Tequal(StdEnvironment.intType))) {
-            reporter.reportError(errMsg[1], "", x.idAST.pos);
-        }
+    public AST visit(FunDecl x, TreeWalker w) {
+        switch (w.step()) {
+        case 0:
+            // The return type is given its canonical type at once, for the
+            // calls in the body of the function to use.
+            x.type = StdEnvironment.canonical(x.tAST);
+            currentFunctionReturnType = x.type;
+            // STEP 1:
+            // Enter this function in the scope stack. Return Error 2 if this
+            // name is already present in this scope.
+            if ( !scopeStack.enter(idOfDecl(x), x) ) {
+                // Error 2
+                reporter.reportError(errMsg[2], idOfDecl(x) + " duplicated.", x.getPosition());
+            }
 
-        // STEP 1:
-        // Open a new scope in the scope stack. This will be the scope for the
-        // function's formal parameters and the function's body.
-        // We will close this scope in the visit procedure of this
-        // function's compound_stmt.
-        scopeStack.openScope();
+            // STEP 3:
+            // Check Error 1: 
+            // If this function is the "main" function, then ensure that
+            // x.tAST is of type int.
+            if (idOfDecl(x).equals("main") &&
+                !(currentFunctionReturnType.Tequal(StdEnvironment.intType))) {
+                reporter.reportError(errMsg[1], "", x.idAST.getPosition());
+            }
 
-        // The following flag is needed when we visit compound statements {...},
-        // to avoid opening a fresh scope for function bodies (because we have
-        // already opened one, for the formal parameters).
-        IsFunctionBlock = true; // needed in {...}, to avoid opening a fresh scope.
+            // STEP 1:
+            // Open a new scope in the scope stack. This will be the scope for the
+            // function's formal parameters and the function's body.
+            // We will close this scope in the visit procedure of this
+            // function's compound_stmt.
+            scopeStack.openScope();
 
-        x.paramsAST.accept(this);
-        x.stmtAST.accept(this);
+            // The following flag is needed when we visit compound statements {...},
+            // to avoid opening a fresh scope for function bodies (because we have
+            // already opened one, for the formal parameters).
+            IsFunctionBlock = true; // needed in {...}, to avoid opening a fresh scope.
+
+            return x.paramsAST;
+        case 1:
+            return x.stmtAST;
+        }
+        return null;
     }
 
-    public void visit(TypeDecl x) {
+    public AST visit(TypeDecl x, TreeWalker w) {
         assert (false); // TypeDecl nodes occur only in the StdEnvironment AST.
+        return null;
     }
 
-    public void visit(FormalParamDecl x) {
-        if (x.astType instanceof ArrayType) {
-            ((ArrayType)x.astType).astExpr.accept(this);
+    public AST visit(FormalParamDecl x, TreeWalker w) {
+        if (w.step() == 0 && x.astType instanceof ArrayType) {
+            return ((ArrayType)x.astType).astExpr;
         }
         // STEP 1:
         // Here we visit the declaration of a formal parameter. You should enter
@@ -387,38 +337,51 @@ public class SemanticAnalysis implements Visitor {
         // Error 2 in that case.
         if ( !scopeStack.enter(idOfDecl(x), x) ) {
             // Error 2
-            reporter.reportError(errMsg[2], idOfDecl(x) + " duplicated.", x.astIdent.pos);
+            reporter.reportError(errMsg[2], idOfDecl(x) + " duplicated.", x.astIdent.getPosition());
         }
 
         // STEP 3:
         // Check that the formal parameter is not of type void or void[]. 
         // Report error messages 3 and 4 respectively:
         if (x.astType.Tequal(StdEnvironment.voidType)) {
-            reporter.reportError(errMsg[3], "", x.astType.pos);
+            reporter.reportError(errMsg[3], "", x.astType.getPosition());
         }
 
         if ((x.astType instanceof ArrayType) &&
             ((ArrayType)x.astType).astType.Tequal(StdEnvironment.voidType)) {
-            reporter.reportError(errMsg[4], "", x.pos);
+            reporter.reportError(errMsg[4], "", x.getPosition());
         }
+
+        // From here on the parameter has the canonical type.
+        x.type = StdEnvironment.canonical(x.astType);
+        return null;
+    }
+
+    public AST visit(FormalParamDeclSequence x, TreeWalker w) {
+        return TreeWalker.CHILDREN.visit(x, w);
     }
 
-    public void visit(FormalParamDeclSequence x) {
-        x.lAST.accept(this);
-        x.rAST.accept(this);
+    public AST visit(FormalParamDeclList x, TreeWalker w) {
+        return TreeWalker.CHILDREN.visit(x, w);
     }
 
-    public void visit(EmptyFormalParamDecl x) {
+    public AST visit(EmptyFormalParamDecl x, TreeWalker w) {
+        return null;
     }
 
-    public void visit(StmtSequence x) {
-        x.s1AST.accept(this);
-        x.s2AST.accept(this);
+    public AST visit(StmtSequence x, TreeWalker w) {
+        return TreeWalker.CHILDREN.visit(x, w);
     }
 
-    public void visit(AssignStmt x) {
-        x.lAST.accept(this);
-        x.rAST.accept(this);
+    public AST visit(StmtList x, TreeWalker w) {
+        return TreeWalker.CHILDREN.visit(x, w);
+    }
+
+    public AST visit(AssignStmt x, TreeWalker w) {
+        switch (w.step()) {
+        case 0: return x.lAST;
+        case 1: return x.rAST;
+        }
 
         //STEP 2:
         // Here we type-check assignment statements
@@ -441,62 +404,76 @@ public class SemanticAnalysis implements Visitor {
                 x.rAST = i2f(x.rAST);
             }
         } else {
-            reporter.reportError(errMsg[6], "Cannot assigned", x.rAST.pos);
+            reporter.reportError(errMsg[6], "Cannot assigned", x.rAST.getPosition());
         }
 
         if(!(x.lAST instanceof VarExpr) && !(x.lAST instanceof ArrayExpr)) {
-            reporter.reportError(errMsg[7], "", x.lAST.pos);
+            reporter.reportError(errMsg[7], "", x.lAST.getPosition());
         }
+        return null;
     }
 
-    public void visit(IfStmt x) {
-        x.eAST.accept(this);
-
-        //STEP 2:
-        // Here we are visiting an if statement. If the condition x.eAST.type
-        // is not of type bool, we have to issue Error 20. You can have a
-        // look at "for" loops, which use a similar check for the loop condition.
-        if (!x.eAST.type.Tequal(StdEnvironment.boolType)) {
-            reporter.reportError(errMsg[20], "if conditions need boolean type", x.eAST.pos);
-        }
-
-        x.thenAST.accept(this);
-        if(x.elseAST != null) {
-            x.elseAST.accept(this);
+    public AST visit(IfStmt x, TreeWalker w) {
+        switch (w.step()) {
+        case 0:
+            return x.eAST;
+        case 1:
+            //STEP 2:
+            // Here we are visiting an if statement. If the condition x.eAST.type
+            // is not of type bool, we have to issue Error 20. You can have a
+            // look at "for" loops, which use a similar check for the loop condition.
+            if (!x.eAST.type.Tequal(StdEnvironment.boolType)) {
+                reporter.reportError(errMsg[20], "if conditions need boolean type", x.eAST.getPosition());
+            }
+            return x.thenAST;
+        case 2:
+            return x.elseAST; // null if there is no else part
         }
+        return null;
     }
 
-    public void visit(WhileStmt x) {
-        x.eAST.accept(this);
-        
-        //STEP 2:
-        // Here we are visiting a while statement. If the loop condition
-        // is not of type bool, we have to issue Error 22. You can have a
-        // look at "for" loops which use a similar check.
-        if (!x.eAST.type.Tequal(StdEnvironment.boolType)) {
-            reporter.reportError(errMsg[22], "while conditions need boolean type", x.eAST.pos);
+    public AST visit(WhileStmt x, TreeWalker w) {
+        switch (w.step()) {
+        case 0:
+            return x.eAST;
+        case 1:
+            //STEP 2:
+            // Here we are visiting a while statement. If the loop condition
+            // is not of type bool, we have to issue Error 22. You can have a
+            // look at "for" loops which use a similar check.
+            if (!x.eAST.type.Tequal(StdEnvironment.boolType)) {
+                reporter.reportError(errMsg[22], "while conditions need boolean type", x.eAST.getPosition());
+            }
+            return x.stmtAST;
         }
-
-        x.stmtAST.accept(this);
+        return null;
     }
 
-    public void visit(ForStmt x) {
-        x.e1AST.accept(this);
-        if(!(x.e2AST instanceof EmptyExpr)) {
-            x.e2AST.accept(this);
-            if(!x.e2AST.type.Tequal(StdEnvironment.boolType)) {
-                reporter.reportError(errMsg[21], "", x.e2AST.pos);
+    public AST visit(ForStmt x, TreeWalker w) {
+        // An EmptyExpr is walked like any other expression; it does nothing.
+        switch (w.step()) {
+        case 0:
+            return x.e1AST;
+        case 1:
+            return x.e2AST;
+        case 2:
+            if(!(x.e2AST instanceof EmptyExpr)) {
+                if(!x.e2AST.type.Tequal(StdEnvironment.boolType)) {
+                    reporter.reportError(errMsg[21], "", x.e2AST.getPosition());
+                }
             }
+            return x.e3AST;
+        case 3:
+            return x.stmtAST;
         }
-        if(!(x.e3AST instanceof EmptyExpr)) {
-            x.e3AST.accept(this);
-        }
-        x.stmtAST.accept(this);
+        return null;
     }
 
-    public void visit(ReturnStmt x) {
+    public AST visit(ReturnStmt x, TreeWalker w) {
         if (!(x.eAST instanceof EmptyExpr)) {
-            x.eAST.accept(this);
+            if (w.step() == 0) {
+                return x.eAST;
+            }
             // STEP 2:
             // The following code checks assignment-compatibility of the return
             // statement's expression with the return type of the function.
@@ -512,91 +489,107 @@ public class SemanticAnalysis implements Visitor {
                     x.eAST = i2f(x.eAST);
                 }
             } else {
-                reporter.reportError(errMsg[8], "", x.eAST.pos);
+                reporter.reportError(errMsg[8], "", x.eAST.getPosition());
             }
         }
+        return null;
     }
 
-    public void visit(CompoundStmt x) {
-        /*
-         * If this CompoundStmt is the CompoundStmt of a Function, then
-         * we already opened the scope before visiting the formal parameters.
-         * No need to open a scope in that case. Otherwise set IsFunctionBlock
-         * to false, to remember for nested {...}.
-         *
-         */
-        if (IsFunctionBlock) {
-            IsFunctionBlock = false; // nested {...} need to open their own scope.
-        } else {
+    public AST visit(CompoundStmt x, TreeWalker w) {
+        switch (w.step()) {
+        case 0:
+            /*
+             * If this CompoundStmt is the CompoundStmt of a Function, then
+             * we already opened the scope before visiting the formal parameters.
+             * No need to open a scope in that case. Otherwise set IsFunctionBlock
+             * to false, to remember for nested {...}.
+             *
+             */
+            if (IsFunctionBlock) {
+                IsFunctionBlock = false; // nested {...} need to open their own scope.
+            } else {
+                // STEP 1:
+                // Open a new scope for the compound statement (nested block within
+                // a function body.
+                scopeStack.openScope();
+            }
             // STEP 1:
-            // Open a new scope for the compound statement (nested block within
-            // a function body.
-            scopeStack.openScope();
+            // Invoke the semantic analysis visitor for the declarations and the
+            // statements of this CompoundStmt. Hint: look up the file AstGen/CompoundStmt.java
+            // to learn about the AST children of this node.
+            return x.astDecl;
+        case 1:
+            return x.astStmt;
         }
-        // STEP 1:
-        // Invoke the semantic analysis visitor for the declarations and the
-        // statements of this CompoundStmt. Hint: look up the file AstGen/CompoundStmt.java
-        // to learn about the AST children of this node.
-        x.astDecl.accept(this);
-        x.astStmt.accept(this);
 
         // STEP 1:
         // Visiting of this {...} compound statement is done. Close the scope
         // for this compound statement (even if it represents a function body).
         scopeStack.closeScope();
+        return null;
     }
 
-    public void visit(EmptyStmt x) {
+    public AST visit(EmptyStmt x, TreeWalker w) {
+        return null;
     }
 
-    public void visit(EmptyCompoundStmt x) {
+    public AST visit(ErrorStmt x, TreeWalker w) {
+        return null;
     }
 
-    public void visit(CallStmt x) {
-        x.eAST.accept(this);
+    public AST visit(EmptyCompoundStmt x, TreeWalker w) {
+        return null;
     }
 
-    public void visit(VarDecl x) {
-        if (x.tAST instanceof ArrayType) {
-            ((ArrayType)x.tAST).astExpr.accept(this);
+    public AST visit(CallStmt x, TreeWalker w) {
+        return TreeWalker.CHILDREN.visit(x, w);
+    }
+
+    public AST visit(VarDecl x, TreeWalker w) {
+        // Only arrays walk their size first, so the other steps are
+        // numbered from 1 for the rest.
+        int step = (x.tAST instanceof ArrayType) ? w.step() : w.step() + 1;
+        switch (step) {
+        case 0:
+            return ((ArrayType)x.tAST).astExpr;
+        case 1:
+            return x.eAST; // an EmptyExpr does nothing
         }
         if (!(x.eAST instanceof EmptyExpr)) {
-            x.eAST.accept(this);
             if (x.tAST instanceof ArrayType) {
                 //STEP 4:
                 //
-                // Array declarations. -> ExprSequence
+                // Array declarations. -> ExprList
                 // Check for error messages 15, 16, 13.
                 // Perform i2f coercion if necessary.
 
-                // 일단 ExprSequence가 아니면 Error 15
-                if (!(x.eAST instanceof ExprSequence)) {
-                    reporter.reportError(errMsg[15], "cannot init scalar to array", x.pos);
+                // 일단 ExprList가 아니면 Error 15
+                if (!(x.eAST instanceof ExprList)) {
+                    reporter.reportError(errMsg[15], "cannot init scalar to array", x.getPosition());
                 } else {
                     int array_count = ((ArrayType)x.tAST).GetRange();
-                    Expr expSequence = (ExprSequence)x.eAST;
+                    java.util.ArrayList<Expr> inits = ((ExprList)x.eAST).items;
                     Type array_type = ((ArrayType)x.tAST).astType;
+                    int checked = Math.min(Math.max(array_count, 0), inits.size());
 
-                    while ((array_count--) > 0 && !(expSequence instanceof EmptyExpr)) {
-                        Type init_type = ((ExprSequence)expSequence).lAST.type;
+                    for (int i = 0; i < checked; i++) {
+                        Type init_type = inits.get(i).type;
 
                         if (init_type.AssignableTo(array_type)) {
                             // check i2f coercion
                             if (array_type.Tequal(StdEnvironment.floatType) &&
                                 init_type.Tequal(StdEnvironment.intType)) {
-                                ((ExprSequence)expSequence).lAST = i2f(((ExprSequence)expSequence).lAST);
+                                inits.set(i, i2f(inits.get(i)));
                             }
                         } else {
                             // Error 13
-                            reporter.reportError(errMsg[13], "cannot assign this expression", ((ExprSequence)expSequence).lAST.pos);
+                            reporter.reportError(errMsg[13], "cannot assign this expression", inits.get(i).getPosition());
                         }
-
-                        expSequence = ((ExprSequence)expSequence).rAST;
                     }
 
-                    // rAST가 EmptyExpr가 아니다 = 개수가 더 많다 = Error 16
-                    if (!(expSequence instanceof EmptyExpr)) {
-                        reporter.reportError(errMsg[16], "too many initializer", x.pos);
+                    // 남은 초기값이 있다 = 개수가 더 많다 = Error 16
+                    if (checked < inits.size()) {
+                        reporter.reportError(errMsg[16], "too many initializer", x.getPosition());
                     }
                 }
             } else {
@@ -605,8 +598,8 @@ public class SemanticAnalysis implements Visitor {
                 // Non-array declarations, i.e., scalar variables.
                 // Check for error messages 14, 6.
                 // Perform i2f coercion if necessary.
-                if (x.eAST instanceof ExprSequence) {
-                    reporter.reportError(errMsg[14], "cannot init array to scalar", x.pos);
+                if (x.eAST instanceof ExprList) {
+                    reporter.reportError(errMsg[14], "cannot init array to scalar", x.getPosition());
                 } else {
                     if (x.eAST.type.AssignableTo(x.tAST)) {
                         // check i2f coercion
@@ -616,7 +609,7 @@ public class SemanticAnalysis implements Visitor {
                         }
                     } else {
                         // Error 6
-                        reporter.reportError(errMsg[6], "cannot assign this value", x.pos);
+                        reporter.reportError(errMsg[6], "cannot assign this value", x.getPosition());
                     }
                 }
             }
@@ -628,29 +621,38 @@ public class SemanticAnalysis implements Visitor {
         // report Error 2.
         if ( !scopeStack.enter(idOfDecl(x), x) ) {
             // Error 2
-            reporter.reportError(errMsg[2], idOfDecl(x) + " duplicated.", x.idAST.pos);
+            reporter.reportError(errMsg[2], idOfDecl(x) + " duplicated.", x.idAST.getPosition());
         }
 
         // STEP 3:
         // Check that the variable is not of type void or void[]. 
         // Report error messages 3 and 4 respectively:
         if (x.tAST.Tequal(StdEnvironment.voidType)) {
-            reporter.reportError(errMsg[3], "", x.pos);
+            reporter.reportError(errMsg[3], "", x.getPosition());
         }
 
         if ((x.tAST instanceof ArrayType) &&
             ((ArrayType)x.tAST).astType.Tequal(StdEnvironment.voidType)) {
-            reporter.reportError(errMsg[4], "", x.pos);
+            reporter.reportError(errMsg[4], "", x.getPosition());
         }
+
+        // From here on the variable has the canonical type.
+        x.type = StdEnvironment.canonical(x.tAST);
+        return null;
     }
 
-    public void visit(DeclSequence x){
-        x.D1.accept(this);
-        x.D2.accept(this);
+    public AST visit(DeclSequence x, TreeWalker w){
+        return TreeWalker.CHILDREN.visit(x, w);
     }
 
-    public void visit(VarExpr x) {
-        x.Ident.accept(this);
+    public AST visit(DeclList x, TreeWalker w) {
+        return TreeWalker.CHILDREN.visit(x, w);
+    }
+
+    public AST visit(VarExpr x, TreeWalker w) {
+        if (w.step() == 0) {
+            return x.Ident;
+        }
 
         //STEP 2:
         // Here we are visiting a variable expression.
@@ -661,13 +663,16 @@ public class SemanticAnalysis implements Visitor {
         x.type = typeOfDecl (x.Ident.declAST);
 
         if (x.Ident.declAST instanceof FunDecl) {
-            reporter.reportError(errMsg[11], "cannot use function declarator as scalar", x.pos);
+            reporter.reportError(errMsg[11], "cannot use function declarator as scalar", x.getPosition());
         }
+        return null;
     }
 
-    public void visit(AssignExpr x) {
-        x.lAST.accept(this);
-        x.rAST.accept(this);
+    public AST visit(AssignExpr x, TreeWalker w) {
+        switch (w.step()) {
+        case 0: return x.lAST;
+        case 1: return x.rAST;
+        }
         if(x.rAST.type.AssignableTo(x.lAST.type)) {
             //check for type coercion:
             if(x.lAST.type.Tequal(StdEnvironment.floatType) &&
@@ -676,64 +681,74 @@ public class SemanticAnalysis implements Visitor {
                 x.rAST = i2f(x.rAST);
             }
         } else {
-            reporter.reportError(errMsg[6], "", x.rAST.pos);
+            reporter.reportError(errMsg[6], "", x.rAST.getPosition());
         }
         if(!(x.lAST instanceof VarExpr) && !(x.lAST instanceof ArrayExpr)) {
-            reporter.reportError(errMsg[7], "", x.lAST.pos);
+            reporter.reportError(errMsg[7], "", x.lAST.getPosition());
         }
+        return null;
     }
 
-    public void visit(IntExpr x) {
+    public AST visit(IntExpr x, TreeWalker w) {
         //STEP 2:
         // Here we are visiting an integer literal. Set x.type of this
         // AST node to the int type from the standard environment
         // (StdEnvironment.intType).
         x.type = StdEnvironment.intType;
+        return null;
     }
 
-    public void visit(FloatExpr x) {
+    public AST visit(FloatExpr x, TreeWalker w) {
         //STEP 2:
         // Here we are visiting a float literal. Set x.type of this
         // AST node to the float type from the standard environment
         // (StdEnvironment.floatType).
         x.type = StdEnvironment.floatType;
+        return null;
     }
 
-    public void visit(BoolExpr x) {
+    public AST visit(BoolExpr x, TreeWalker w) {
         //STEP 2:
         // Here we are visiting a bool literal. Set x.type of this
         // AST node to the bool type from the standard environment
         // (StdEnvironment.boolType).
         x.type = StdEnvironment.boolType;
+        return null;
     }
 
-    public void visit(StringExpr x) {
+    public AST visit(StringExpr x, TreeWalker w) {
         //STEP 2:
         // Here we are visiting a string literal. Set x.type of this
         // AST node to the string type from the standard environment
         // (StdEnvironment.stringType).
         x.type = StdEnvironment.stringType;
+        return null;
     }
 
-    public void visit(ArrayExpr x) {
-        x.idAST.accept(this);
-        x.indexAST.accept(this);
+    public AST visit(ArrayExpr x, TreeWalker w) {
+        switch (w.step()) {
+        case 0: return x.idAST;
+        case 1: return x.indexAST;
+        }
         if(!x.indexAST.type.Tequal(StdEnvironment.intType)) {
-            reporter.reportError(errMsg[17], "", x.indexAST.pos);
+            reporter.reportError(errMsg[17], "", x.indexAST.getPosition());
         }
         VarExpr VE = (VarExpr)x.idAST;
         if(!(typeOfDecl(VE.Ident.declAST) instanceof ArrayType)) {
-            reporter.reportError(errMsg[12], "", x.pos);
+            reporter.reportError(errMsg[12], "", x.getPosition());
            x.type = StdEnvironment.errorType; 
         } else {
            x.type = typeOfArrayType(x.idAST.type);
         }
+        return null;
     }
 
-    public void visit(BinaryExpr x) {
-        x.lAST.accept(this);
-        x.oAST.accept(this);
-        x.rAST.accept(this);
+    public AST visit(BinaryExpr x, TreeWalker w) {
+        switch (w.step()) {
+        case 0: return x.lAST;
+        case 1: return x.oAST;
+        case 2: return x.rAST;
+        }
         if(HasIntOrFloatArgs(x.oAST)) {
             if(x.lAST.type.Tequal(StdEnvironment.intType) &&
                x.rAST.type.Tequal(StdEnvironment.intType)) {
@@ -743,7 +758,7 @@ public class SemanticAnalysis implements Visitor {
                 } else {
                     x.type = StdEnvironment.intType;
                 }
-                return;
+                return null;
             } else if(x.lAST.type.Tequal(StdEnvironment.floatType) &&
                       x.rAST.type.Tequal(StdEnvironment.floatType)) {
                 x.oAST.type = StdEnvironment.floatType;
@@ -752,7 +767,7 @@ public class SemanticAnalysis implements Visitor {
                 } else {
                     x.type = StdEnvironment.floatType;
                 }
-                return;
+                return null;
             } else if (x.lAST.type.Tequal(StdEnvironment.intType) &&
                        x.rAST.type.Tequal(StdEnvironment.floatType)) {
                 //coercion of left operand to float:
@@ -763,7 +778,7 @@ public class SemanticAnalysis implements Visitor {
                 } else {
                     x.type = StdEnvironment.floatType;
                 }
-                return;
+                return null;
             } else if (x.lAST.type.Tequal(StdEnvironment.floatType) &&
                        x.rAST.type.Tequal(StdEnvironment.intType)) {
                 // STEP 2:
@@ -779,14 +794,14 @@ public class SemanticAnalysis implements Visitor {
                 } else {
                     x.type = StdEnvironment.floatType;
                 }
-                return ;
+                return null;
             }
         } else if (HasBoolArgs(x.oAST)) {
             if (x.lAST.type.Tequal(StdEnvironment.boolType) &&
                x.rAST.type.Tequal(StdEnvironment.boolType)) {
                 x.oAST.type = StdEnvironment.intType; //!!!!!!!!!!!!!!!!!!!!!
                 x.type = StdEnvironment.boolType;
-                return;
+                return null;
             }
         }
         x.oAST.type = StdEnvironment.errorType;
@@ -794,13 +809,16 @@ public class SemanticAnalysis implements Visitor {
         if (!((x.lAST.type instanceof ErrorType) || (x.rAST.type instanceof ErrorType)))
         {
            // Error not spurious, because AST children are ok.
-           reporter.reportError(errMsg[9], "", x.pos);
+           reporter.reportError(errMsg[9], "", x.getPosition());
         }
+        return null;
     }
 
-    public void visit(UnaryExpr x) {
-        x.oAST.accept(this);
-        x.eAST.accept(this);
+    public AST visit(UnaryExpr x, TreeWalker w) {
+        switch (w.step()) {
+        case 0: return x.oAST;
+        case 1: return x.eAST;
+        }
         
         //STEP 2:
         // Here we synthesize the type attribute for a unary operator.
@@ -840,31 +858,44 @@ public class SemanticAnalysis implements Visitor {
         }
 
         if (x.type instanceof ErrorType) {
-            reporter.reportError(errMsg[10], "", x.pos);
+            reporter.reportError(errMsg[10], "", x.getPosition());
         }
+        return null;
     }
 
-    public void visit(EmptyExpr x) {
+    public AST visit(EmptyExpr x, TreeWalker w) {
+        return null;
     }
 
-    public void visit(ActualParam x) {
-        x.pAST.accept(this);
+    public AST visit(ActualParam x, TreeWalker w) {
+        if (w.step() == 0) {
+            return x.pAST;
+        }
         x.type = x.pAST.type;
+        return null;
     }
 
-    public void visit(EmptyActualParam x) {
+    public AST visit(EmptyActualParam x, TreeWalker w) {
+        return null;
     }
 
-    public void visit(ActualParamSequence x) {
-        x.lAST.accept(this);
-        x.rAST.accept(this);
+    public AST visit(ActualParamSequence x, TreeWalker w) {
+        return TreeWalker.CHILDREN.visit(x, w);
     }
 
-    public void visit(CallExpr x) {
-        //Here we perform semantic analysis of function calls:
-        x.type = StdEnvironment.errorType;
-        x.idAST.accept(this);
-        x.paramAST.accept(this);
+    public AST visit(ActualParamList x, TreeWalker w) {
+        return TreeWalker.CHILDREN.visit(x, w);
+    }
+
+    public AST visit(CallExpr x, TreeWalker w) {
+        switch (w.step()) {
+        case 0:
+            //Here we perform semantic analysis of function calls:
+            x.type = StdEnvironment.errorType;
+            return x.idAST;
+        case 1:
+            return x.paramAST;
+        }
         //Retrieve the declaration of x from the scope stack:
         Decl D = scopeStack.retrieve(x.idAST.Lexeme);
         // STEP 3:
@@ -874,10 +905,9 @@ public class SemanticAnalysis implements Visitor {
         //  int f; f(22);
         // where f is not a function.
         if (!(D instanceof FunDecl)) {
-            reporter.reportError(errMsg[19], idOfDecl(D) + " is not a function", x.pos);
-            return ;
+            reporter.reportError(errMsg[19], idOfDecl(D) + " is not a function", x.getPosition());
+            return null;
         }
-
         FunDecl F = (FunDecl ) D;
         // STEP 2:
         // Check that the number of formal args from F and the number of actual
@@ -888,9 +918,9 @@ public class SemanticAnalysis implements Visitor {
         int NrFormalParams = GetNrOfFormalParams(F);
 
         if (NrFormalParams < GetNrOfActualParams(x)) {
-            reporter.reportError(errMsg[23], "needs " + NrFormalParams + " parameter(s)", x.pos);
+            reporter.reportError(errMsg[23], "needs " + NrFormalParams + " parameter(s)", x.getPosition());
         } else if (NrFormalParams > GetNrOfActualParams(x)) {
-            reporter.reportError(errMsg[24], "needs " + NrFormalParams + " parameter(s)", x.pos);
+            reporter.reportError(errMsg[24], "needs " + NrFormalParams + " parameter(s)", x.getPosition());
             // NrFormalParams = min(NrFormalParams, NrActalParams);
             NrFormalParams = GetNrOfActualParams(x);
         } else {
@@ -921,7 +951,7 @@ public class SemanticAnalysis implements Visitor {
                         Act.pAST = i2f(Act.pAST);
                     }
                 } else {
-                    reporter.reportError(errMsg[25] + ", %,", "parameter " + i, x.pos);
+                    reporter.reportError(errMsg[25] + ", %,", "parameter " + i, x.getPosition());
                 }
             }
         }
@@ -929,14 +959,18 @@ public class SemanticAnalysis implements Visitor {
         // set the return type of the call expression to the return type of
         // its function:
         x.type = typeOfDecl(F);
+        return null;
+    }
+
+    public AST visit(ExprSequence x, TreeWalker w) {
+        return TreeWalker.CHILDREN.visit(x, w);
     }
 
-    public void visit(ExprSequence x) {
-        x.lAST.accept(this);
-        x.rAST.accept(this);
+    public AST visit(ExprList x, TreeWalker w) {
+        return TreeWalker.CHILDREN.visit(x, w);
     }
 
-    public void visit(ID x) {
+    public AST visit(ID x, TreeWalker w) {
         // STEP 1:
         // Here we look up the declaration of an identifier
         // from the scope stack. If no declaration can be found on the
@@ -946,56 +980,57 @@ public class SemanticAnalysis implements Visitor {
             x.declAST = binding;
         } else {
             // Error 5
-            reporter.reportError(errMsg[5], x.Lexeme + " used before declared.", x.pos);
+            reporter.reportError(errMsg[5], x.Lexeme + " used before declared.", x.getPosition());
         }
+        return null;
     }
 
-    public void visit(Operator x) {
-
-    } 
-
-    public void visit(IntLiteral x) {
-
-    } 
-
-    public void visit(FloatLiteral x) {
-
-    } 
-
-    public void visit(BoolLiteral x) {
-
-    } 
-
-    public void visit(StringLiteral x) {
-
-    } 
-
-    public void visit(IntType x) {
-
+    public AST visit(Operator x, TreeWalker w) {
+        return null;
     }
 
-    public void visit(FloatType x) {
-
+    public AST visit(IntLiteral x, TreeWalker w) {
+        return null;
     }
 
-    public void visit(BoolType x) {
+    public AST visit(FloatLiteral x, TreeWalker w) {
+        return null;
+    }
 
+    public AST visit(BoolLiteral x, TreeWalker w) {
+        return null;
     }
 
-    public void visit(StringType x) {
+    public AST visit(StringLiteral x, TreeWalker w) {
+        return null;
+    }
 
+    public AST visit(IntType x, TreeWalker w) {
+        return null;
     }
 
-    public void visit(VoidType x) {
+    public AST visit(FloatType x, TreeWalker w) {
+        return null;
+    }
 
+    public AST visit(BoolType x, TreeWalker w) {
+        return null;
     }
 
-    public void visit(ArrayType x) {
+    public AST visit(StringType x, TreeWalker w) {
+        return null;
+    }
 
+    public AST visit(VoidType x, TreeWalker w) {
+        return null;
     }
 
-    public void visit(ErrorType x) {
+    public AST visit(ArrayType x, TreeWalker w) {
+        return null;
+    }
 
+    public AST visit(ErrorType x, TreeWalker w) {
+        return null;
     }
 
 }
@@ -17,6 +17,10 @@ public final class StdEnvironment {
 
     public static Type intType, boolType, floatType, stringType, voidType,errorType;
 
+    // The canonical array types, by element kind and range, see canonical().
+    // A fresh table comes with each StdEnvironment, like the types above.
+    private static java.util.concurrent.ConcurrentHashMap<Long, ArrayType> arrayTypes;
+
 
     // ASTs representing the declarations of our pre-defined MiniC functions:
 
@@ -28,9 +32,9 @@ public final class StdEnvironment {
     private static SourcePos dummyPos = new SourcePos();
 
     public StdEnvironment () {
-	DeclSequence D;
+	java.util.ArrayList<Decl> D = new java.util.ArrayList<Decl>();
         FormalParamDecl pDecl;
-        FormalParamDeclSequence pSeq;
+        FormalParamDeclList pSeq;
 
 	/*
 	 * Generate the declarations for the StdEnvironment,
@@ -43,110 +47,135 @@ public final class StdEnvironment {
 	stringType = new StringType(dummyPos);
 	voidType = new VoidType(dummyPos);
 	errorType = new ErrorType(dummyPos);
+	arrayTypes = new java.util.concurrent.ConcurrentHashMap<Long, ArrayType>();
 
         putLn = new FunDecl(voidType,
                              new ID("putLn", dummyPos),
-			     new EmptyFormalParamDecl(dummyPos),
+			     params(),
 			     new EmptyCompoundStmt(dummyPos),
 			     dummyPos);
-	D = new DeclSequence (putLn, new EmptyDecl(dummyPos), dummyPos);
+	D.add(0, putLn);
 
         pDecl = new FormalParamDecl(stringType,
                                     new ID("s", dummyPos),
 				    dummyPos);
-        pSeq = new FormalParamDeclSequence(pDecl,
-                                           new EmptyFormalParamDecl(dummyPos),
-                                           dummyPos);
+        pSeq = params(pDecl);
         putString = new FunDecl(voidType,
                              new ID("putString", dummyPos),
                              pSeq,
 			     new EmptyCompoundStmt(dummyPos),
 			     dummyPos);
-	D = new DeclSequence (putString, D, dummyPos);
+	D.add(0, putString);
 
         getString = new FunDecl(stringType,
 				new ID("getSting", dummyPos),
-				new EmptyFormalParamDecl(dummyPos),
+				params(),
 				new EmptyCompoundStmt(dummyPos),
 				dummyPos);
-	D = new DeclSequence (getString, D, dummyPos);
+	D.add(0, getString);
 
         pDecl = new FormalParamDecl(floatType,
                                     new ID("f", dummyPos),
 				    dummyPos);
-        pSeq = new FormalParamDeclSequence(pDecl,
-                                           new EmptyFormalParamDecl(dummyPos),
-                                           dummyPos);
+        pSeq = params(pDecl);
         putFloat = new FunDecl(voidType,
                              new ID("putFloat", dummyPos),
                              pSeq,
 			     new EmptyCompoundStmt(dummyPos),
 			     dummyPos);
-	D = new DeclSequence (putFloat, D, dummyPos);
+	D.add(0, putFloat);
 
         getFloat = new FunDecl(floatType,
                                new ID("getFloat", dummyPos),
-			       new EmptyFormalParamDecl(dummyPos),
+			       params(),
 			       new EmptyCompoundStmt(dummyPos),
 			       dummyPos);
-	D = new DeclSequence (getFloat, D, dummyPos);
+	D.add(0, getFloat);
 
         pDecl = new FormalParamDecl(boolType,
                                     new ID("b", dummyPos),
 				    dummyPos);
-        pSeq = new FormalParamDeclSequence(pDecl,
-                                           new EmptyFormalParamDecl(dummyPos),
-                                           dummyPos);
+        pSeq = params(pDecl);
         putBool = new FunDecl(voidType,
                              new ID("putBool", dummyPos),
                              pSeq,
 			     new EmptyCompoundStmt(dummyPos),
 			     dummyPos);
-	D = new DeclSequence (putBool, D, dummyPos);
+	D.add(0, putBool);
 
         getBool = new FunDecl(boolType,
                               new ID("getBool", dummyPos),
-		  	      new EmptyFormalParamDecl(dummyPos),
+		  	      params(),
 			      new EmptyCompoundStmt(dummyPos),
 			      dummyPos);
-	D = new DeclSequence (getBool, D, dummyPos);
+	D.add(0, getBool);
 
 
         pDecl = new FormalParamDecl(intType,
                                     new ID("i", dummyPos),
 				    dummyPos);
-        pSeq = new FormalParamDeclSequence(pDecl,
-                                           new EmptyFormalParamDecl(dummyPos),
-                                           dummyPos);
+        pSeq = params(pDecl);
         putInt = new FunDecl(voidType,
                              new ID("putInt", dummyPos),
                              pSeq,
 			     new EmptyCompoundStmt(dummyPos),
 			     dummyPos);
-	D = new DeclSequence (putInt, D, dummyPos);
+	D.add(0, putInt);
 
         getInt = new FunDecl(intType,
                              new ID("getInt", dummyPos),
-			     new EmptyFormalParamDecl(dummyPos),
+			     params(),
 			     new EmptyCompoundStmt(dummyPos),
                              dummyPos);
-	D = new DeclSequence (getInt, D, dummyPos);
+	D.add(0, getInt);
 
 	errorTypeDecl = new TypeDecl(errorType, dummyPos);
-	D = new DeclSequence (errorTypeDecl, D, dummyPos);
+	D.add(0, errorTypeDecl);
         voidTypeDecl = new TypeDecl(voidType, dummyPos);
-	D = new DeclSequence (voidTypeDecl, D, dummyPos);
+	D.add(0, voidTypeDecl);
         stringTypeDecl = new TypeDecl(stringType, dummyPos);
-	D = new DeclSequence (stringTypeDecl, D, dummyPos);
+	D.add(0, stringTypeDecl);
 	floatTypeDecl = new TypeDecl(floatType, dummyPos);
-	D = new DeclSequence (floatTypeDecl, D, dummyPos);
+	D.add(0, floatTypeDecl);
 	boolTypeDecl = new TypeDecl(boolType, dummyPos);
-	D = new DeclSequence (boolTypeDecl, D, dummyPos);
+	D.add(0, boolTypeDecl);
 	intTypeDecl = new TypeDecl(intType, dummyPos);
-	D = new DeclSequence (intTypeDecl, D, dummyPos);
+	D.add(0, intTypeDecl);
 	
-	AST = new Program (D, dummyPos);
+	AST = new Program (new DeclList (D, dummyPos), dummyPos);
+
+    }
+
+    // The canonical type equal to t: one of the standard types above
+    // for a scalar type, and for an array type the one ArrayType of
+    // its element type and range. The nodes returned are shared, and not
+    // part of any program's AST. Safe to call from several threads.
+    public static Type canonical (Type t) {
+	switch (t.kind) {
+	case Type.INT: return intType;
+	case Type.FLOAT: return floatType;
+	case Type.BOOL: return boolType;
+	case Type.STRING: return stringType;
+	case Type.VOID: return voidType;
+	case Type.ERROR: return errorType;
+	}
+	ArrayType A = (ArrayType) t;
+	Type E = canonical(A.astType);
+	int range = A.GetRange();
+	Long key = ((long) E.kind << 32) | (range & 0xffffffffL);
+	return arrayTypes.computeIfAbsent(key, k -> {
+	    IntExpr R = new IntExpr(new IntLiteral(Integer.toString(range), dummyPos), dummyPos);
+	    R.type = intType;
+	    return new ArrayType(E, R, dummyPos);
+	});
+    }
 
+    private static FormalParamDeclList params (FormalParamDecl... P) {
+	java.util.ArrayList<FormalParamDecl> Items = new java.util.ArrayList<FormalParamDecl>();
+	for (FormalParamDecl p : P) {
+	    Items.add(p);
+	}
+	return new FormalParamDeclList (Items, dummyPos);
     }
 
 }
@@ -25,8 +25,7 @@ public class Drawer {
 	FontMetrics fontMetrics = frame.getFontMetrics(font);
 
 	LayoutVisitor lv = new LayoutVisitor(fontMetrics);
-	AST.accept(lv);
-	Drawing = lv.Tree;
+	Drawing = AST.accept(lv, true);
 	Drawing.position(new Point(10, 10));
 	int minx = Drawing.minx();
 	if (minx < 0) {
@@ -2,14 +2,13 @@ package MiniC.TreeDrawer;
 
 import java.awt.*;
 
-import MiniC.AstGen.Visitor;
+import MiniC.AstGen.ContextVisitor;
 import MiniC.AstGen.*;
 import MiniC.StdEnvironment;
 
-public class LayoutVisitor implements Visitor {
-
-    public DrawingTree Tree;
-    public boolean IsGlobal;
+// Lays out the AST for the Drawer. Each visit returns the DrawingTree
+// of its node, and is given whether the node is in the global scope.
+public class LayoutVisitor implements ContextVisitor<DrawingTree, Boolean> {
 
     private final int BORDER = 5;
     private final int PARENT_SEP = 30;
@@ -18,7 +17,6 @@ public class LayoutVisitor implements Visitor {
 
     public LayoutVisitor (FontMetrics fontMetrics) {
 	this.fontMetrics = fontMetrics;
-	this.IsGlobal = true;
 	this.TypeInfo = true; // TBD: make this a constructor argument!
     }
 
@@ -46,248 +44,254 @@ public class LayoutVisitor implements Visitor {
 	return l;
     }
 
-    public void visit(Program x) {
-        Tree = layoutUnary("Program", x.D);
+    public DrawingTree visit(Program x, Boolean global) {
+        return layoutUnary("Program", global, x.D);
+    }
+
+    public DrawingTree visit(EmptyDecl x, Boolean global) {
+	return layoutNullary("EmptyDecl");
     }
 
-    public void visit(EmptyDecl x) {
-	Tree = layoutNullary("EmptyDecl");
+    public DrawingTree visit(ErrorDecl x, Boolean global) {
+	return layoutNullary("ErrorDecl");
     }
 
-    public void visit(FunDecl x) {
-        IsGlobal = false;
-	Tree = layoutQuaternary("FunDecl", x.tAST, x.idAST, x.paramsAST, x.stmtAST);
-	IsGlobal = true;
+    public DrawingTree visit(FunDecl x, Boolean global) {
+	return layoutQuaternary("FunDecl", false, x.tAST, x.idAST, x.paramsAST, x.stmtAST);
     }
 
-    public void visit(TypeDecl x) {
-	Tree = layoutUnary("TypeDecl", x.tAST);
+    public DrawingTree visit(TypeDecl x, Boolean global) {
+	return layoutUnary("TypeDecl", global, x.tAST);
     }
 
-    public void visit(FormalParamDecl x) {
-        Tree = layoutBinary("FormalParamDecl", x.astType, x.astIdent);
+    public DrawingTree visit(FormalParamDecl x, Boolean global) {
+        return layoutBinary("FormalParamDecl", global, x.astType, x.astIdent);
     }
 
-    public void visit(FormalParamDeclSequence x) {
-        Tree = layoutBinary("FormalParamDeclSeq", x.lAST, x.rAST);
+    public DrawingTree visit(FormalParamDeclSequence x, Boolean global) {
+        return layoutBinary("FormalParamDeclSeq", global, x.lAST, x.rAST);
     }
 
-    public void visit(EmptyFormalParamDecl x) {
-	Tree = layoutNullary("EmptyFormalParamDecl");
+    public DrawingTree visit(EmptyFormalParamDecl x, Boolean global) {
+	return layoutNullary("EmptyFormalParamDecl");
     }
 
-    public void visit(StmtSequence x) {
-        Tree = layoutBinary("StmtSeq", x.s1AST, x.s2AST);
+    public DrawingTree visit(StmtSequence x, Boolean global) {
+        return layoutBinary("StmtSeq", global, x.s1AST, x.s2AST);
     }
 
-    public void visit(AssignStmt x) {
-	Tree = layoutBinary("AssignStmt", x.lAST, x.rAST);
+    public DrawingTree visit(AssignStmt x, Boolean global) {
+	return layoutBinary("AssignStmt", global, x.lAST, x.rAST);
     }
 
-    public void visit(IfStmt x) {
+    public DrawingTree visit(IfStmt x, Boolean global) {
 	if (x.elseAST == null) {
-	    Tree = layoutBinary("IfStmt", x.eAST, x.thenAST);
+	    return layoutBinary("IfStmt", global, x.eAST, x.thenAST);
 	} else { 
-	    Tree = layoutTernary("IfStmt", x.eAST, x.thenAST, x.elseAST);
+	    return layoutTernary("IfStmt", global, x.eAST, x.thenAST, x.elseAST);
 	}
     }
 
-    public void visit(WhileStmt x) {
-	Tree = layoutBinary ("WhileStmt", x.eAST, x.stmtAST);
+    public DrawingTree visit(WhileStmt x, Boolean global) {
+	return layoutBinary("WhileStmt", global, x.eAST, x.stmtAST);
+    }
+
+    public DrawingTree visit(ForStmt x, Boolean global) {
+	return layoutQuaternary("ForStmt", global, x.e1AST, x.e2AST, x.e3AST, x.stmtAST);
     }
 
-    public void visit(ForStmt x) {
-	Tree = layoutQuaternary("ForStmt", x.e1AST, x.e2AST, x.e3AST, x.stmtAST);
+    public DrawingTree visit(ReturnStmt x, Boolean global) {
+	return layoutUnary("ReturnStmt", global, x.eAST);
     }
 
-    public void visit(ReturnStmt x) {
-	Tree = layoutUnary ("ReturnStmt", x.eAST);
+    public DrawingTree visit(CompoundStmt x, Boolean global) {
+	return layoutBinary("CompoundStmt", global, x.astDecl, x.astStmt);
     }
 
-    public void visit(CompoundStmt x) {
-	Tree = layoutBinary("CompoundStmt", x.astDecl, x.astStmt);
+    public DrawingTree visit(EmptyStmt x, Boolean global) {
+	return layoutNullary("EmptyStmt");
     }
 
-    public void visit(EmptyStmt x) {
-	Tree = layoutNullary("EmptyStmt");
+    public DrawingTree visit(ErrorStmt x, Boolean global) {
+	return layoutNullary("ErrorStmt");
     }
 
-    public void visit(EmptyCompoundStmt x) {
-	Tree = layoutNullary("EmptyCompoundStmt");
+    public DrawingTree visit(EmptyCompoundStmt x, Boolean global) {
+	return layoutNullary("EmptyCompoundStmt");
     }
 
-    public void visit(CallStmt x) {
-	Tree = layoutUnary ("CallStmt", x.eAST);
+    public DrawingTree visit(CallStmt x, Boolean global) {
+	return layoutUnary("CallStmt", global, x.eAST);
     }
 
-    public void visit(VarDecl x) {
+    public DrawingTree visit(VarDecl x, Boolean global) {
         String l = "VarDecl";
-        if (IsGlobal) {
+        if (global) {
 	    l = "G." + l; 
 	} else {
 	    l = "L." + l;
 	}
-	Tree = layoutTernary(l, x.tAST, x.idAST, x.eAST);
+	return layoutTernary(l, global, x.tAST, x.idAST, x.eAST);
     }
 
-    public void visit(DeclSequence x){
-	Tree = layoutBinary("DeclSeq", x.D1, x.D2);
+    public DrawingTree visit(DeclSequence x, Boolean global){
+	return layoutBinary("DeclSeq", global, x.D1, x.D2);
     }
 
-    public void visit(VarExpr x) {
+    public DrawingTree visit(VarExpr x, Boolean global) {
 	String l = new String("");
 	if (TypeInfo) {
 	    l = TypeTag(x.type);
 	}
-	Tree = layoutUnary("VarExpr" + l, x.Ident);
+	return layoutUnary("VarExpr" + l, global, x.Ident);
     }
 
-    public void visit(AssignExpr x) {
-	Tree = layoutBinary("AssignExpr", x.lAST, x.rAST);
+    public DrawingTree visit(AssignExpr x, Boolean global) {
+	return layoutBinary("AssignExpr", global, x.lAST, x.rAST);
     }
 
-    public void visit(IntExpr x) {
+    public DrawingTree visit(IntExpr x, Boolean global) {
 	String l = new String("");
 	if (TypeInfo) {
 	    l = TypeTag(x.type);
 	}
-	Tree = layoutUnary("IntExpr" + l, x.astIL);
+	return layoutUnary("IntExpr" + l, global, x.astIL);
     }
 
-    public void visit(FloatExpr x) {
+    public DrawingTree visit(FloatExpr x, Boolean global) {
 	String l = new String("");
 	if (TypeInfo) {
 	    l = TypeTag(x.type);
 	}
-	Tree = layoutUnary("FloatExpr" + l, x.astFL);
+	return layoutUnary("FloatExpr" + l, global, x.astFL);
     }
 
-    public void visit(BoolExpr x) {
+    public DrawingTree visit(BoolExpr x, Boolean global) {
 	String l = new String("");
 	if (TypeInfo) {
 	    l = TypeTag(x.type);
 	}
-	Tree = layoutUnary("BoolExpr" + l, x.astBL);
+	return layoutUnary("BoolExpr" + l, global, x.astBL);
     }
 
-    public void visit(StringExpr x) {
+    public DrawingTree visit(StringExpr x, Boolean global) {
 	String l = new String("");
 	if (TypeInfo) {
 	    l = TypeTag(x.type);
 	}
-	Tree = layoutUnary("StringExpr" + l, x.astSL);
+	return layoutUnary("StringExpr" + l, global, x.astSL);
     }
 
-    public void visit(ArrayExpr x) {
+    public DrawingTree visit(ArrayExpr x, Boolean global) {
 	String l = new String("");
 	if (TypeInfo) {
 	    l = TypeTag(x.type);
 	}
-	Tree = layoutBinary("ArrayExpr" + l, x.idAST, x.indexAST);
+	return layoutBinary("ArrayExpr" + l, global, x.idAST, x.indexAST);
     }
 
-    public void visit(BinaryExpr x) {
+    public DrawingTree visit(BinaryExpr x, Boolean global) {
 	String l = new String("");
 	if (TypeInfo) {
 	    l = TypeTag(x.type);
 	}
-	Tree = layoutTernary("BinaryExpr" + l, x.lAST, x.oAST, x.rAST);
+	return layoutTernary("BinaryExpr" + l, global, x.lAST, x.oAST, x.rAST);
     }
 
-    public void visit(UnaryExpr x) {
+    public DrawingTree visit(UnaryExpr x, Boolean global) {
 	String l = new String("");
 	if (TypeInfo) {
 	    l = TypeTag(x.type);
 	}
-	Tree = layoutBinary("UnaryExpr" + l, x.oAST, x.eAST);
+	return layoutBinary("UnaryExpr" + l, global, x.oAST, x.eAST);
     }
 
-    public void visit(EmptyExpr x) {
-	Tree = layoutNullary("EmptyExpr");
+    public DrawingTree visit(EmptyExpr x, Boolean global) {
+	return layoutNullary("EmptyExpr");
     }
 
-    public void visit(ActualParam x) {
+    public DrawingTree visit(ActualParam x, Boolean global) {
 	String l = new String("");
 	if (TypeInfo) {
 	    l = TypeTag(x.type);
 	}
-	Tree = layoutUnary("ActualParam" + l, x.pAST);
+	return layoutUnary("ActualParam" + l, global, x.pAST);
     }
 
-    public void visit(EmptyActualParam x) {
-	Tree = layoutNullary("EmptyActualParam");
+    public DrawingTree visit(EmptyActualParam x, Boolean global) {
+	return layoutNullary("EmptyActualParam");
     }
 
-    public void visit(ActualParamSequence x) {
-	Tree = layoutBinary("ActualParamSeq", x.lAST, x.rAST);
+    public DrawingTree visit(ActualParamSequence x, Boolean global) {
+	return layoutBinary("ActualParamSeq", global, x.lAST, x.rAST);
     }
 
-    public void visit(CallExpr x) {
+    public DrawingTree visit(CallExpr x, Boolean global) {
 	String l = new String("");
 	if (TypeInfo) {
 	    l = TypeTag(x.type);
 	}
-	Tree = layoutBinary("CallExpr" + l, x.idAST, x.paramAST);
+	return layoutBinary("CallExpr" + l, global, x.idAST, x.paramAST);
     }
 
-    public void visit(ExprSequence x) {
-	Tree = layoutBinary("ExprSeq", x.lAST, x.rAST);
+    public DrawingTree visit(ExprSequence x, Boolean global) {
+	return layoutBinary("ExprSeq", global, x.lAST, x.rAST);
     }
 
-    public void visit(ID x) {
-	Tree = layoutNullary(x.Lexeme);
+    public DrawingTree visit(ID x, Boolean global) {
+	return layoutNullary(x.Lexeme);
     }
 
-    public void visit(Operator x) {
+    public DrawingTree visit(Operator x, Boolean global) {
 	String l = new String("");
 	if (TypeInfo) {
 	    l = TypeTag(x.type);
 	}
-	Tree = layoutNullary(x.Lexeme + l);
+	return layoutNullary(x.Lexeme + l);
     } 
 
-    public void visit(IntLiteral x) {
-	Tree = layoutNullary(x.Lexeme);
+    public DrawingTree visit(IntLiteral x, Boolean global) {
+	return layoutNullary(x.Lexeme);
     } 
 
-    public void visit(FloatLiteral x) {
-	Tree = layoutNullary(x.Lexeme);
+    public DrawingTree visit(FloatLiteral x, Boolean global) {
+	return layoutNullary(x.Lexeme);
     } 
 
-    public void visit(BoolLiteral x) {
-	Tree = layoutNullary(x.Lexeme);
+    public DrawingTree visit(BoolLiteral x, Boolean global) {
+	return layoutNullary(x.Lexeme);
     } 
 
-    public void visit(StringLiteral x) {
-	Tree = layoutNullary(x.Lexeme);
+    public DrawingTree visit(StringLiteral x, Boolean global) {
+	return layoutNullary(x.Lexeme);
     } 
 
-    public void visit(IntType x) {
-	Tree = layoutNullary("int");
+    public DrawingTree visit(IntType x, Boolean global) {
+	return layoutNullary("int");
     }
 
-    public void visit(FloatType x) {
-	Tree = layoutNullary("float");
+    public DrawingTree visit(FloatType x, Boolean global) {
+	return layoutNullary("float");
     }
 
-    public void visit(BoolType x) {
-	Tree = layoutNullary("bool");
+    public DrawingTree visit(BoolType x, Boolean global) {
+	return layoutNullary("bool");
     }
 
-    public void visit(StringType x) {
-	Tree = layoutNullary("String");
+    public DrawingTree visit(StringType x, Boolean global) {
+	return layoutNullary("String");
     }
 
-    public void visit(VoidType x) {
-	Tree = layoutNullary("void");
+    public DrawingTree visit(VoidType x, Boolean global) {
+	return layoutNullary("void");
     }
 
-    public void visit(ArrayType x) {
-	Tree = layoutBinary("Array", x.astType, x.astExpr);
+    public DrawingTree visit(ArrayType x, Boolean global) {
+	return layoutBinary("Array", global, x.astType, x.astExpr);
     }
 
-    public void visit(ErrorType x) {
-	Tree = layoutNullary("Error");
+    public DrawingTree visit(ErrorType x, Boolean global) {
+	return layoutNullary("Error");
     }
 
     private DrawingTree layoutCaption (String name) {
@@ -305,51 +309,41 @@ public class LayoutVisitor implements Visitor {
 	return dt;
     }
 
-    private DrawingTree layoutUnary (String name, AST child1) {
+    private DrawingTree layoutUnary (String name, boolean global, AST child1) {
 	DrawingTree dt = layoutCaption(name);
-	child1.accept(this);
-	DrawingTree d1 = Tree;
+	DrawingTree d1 = child1.accept(this, global);
 	dt.setChildren(new DrawingTree[] {d1});
 	attachParent(dt, join(dt));
 	return dt;
     }
 
-    private DrawingTree layoutBinary (String name, AST child1, AST child2) {
+    private DrawingTree layoutBinary (String name, boolean global, AST child1, AST child2) {
 	DrawingTree dt = layoutCaption(name);
-	child1.accept(this);
-	DrawingTree d1 = Tree;
-	child2.accept(this);
-	DrawingTree d2 = Tree;
+	DrawingTree d1 = child1.accept(this, global);
+	DrawingTree d2 = child2.accept(this, global);
 	dt.setChildren(new DrawingTree[] {d1, d2});
 	attachParent(dt, join(dt));
 	return dt;
     }
 
-    private DrawingTree layoutTernary (String name, AST child1, AST child2,
+    private DrawingTree layoutTernary (String name, boolean global, AST child1, AST child2,
 				       AST child3) {
 	DrawingTree dt = layoutCaption(name);
-	child1.accept(this);
-	DrawingTree d1 = Tree;
-	child2.accept(this);
-	DrawingTree d2 = Tree;
-	child3.accept(this);
-	DrawingTree d3 = Tree;  
+	DrawingTree d1 = child1.accept(this, global);
+	DrawingTree d2 = child2.accept(this, global);
+	DrawingTree d3 = child3.accept(this, global);  
 	dt.setChildren(new DrawingTree[] {d1, d2, d3});
 	attachParent(dt, join(dt));
 	return dt;
     }
 
-    private DrawingTree layoutQuaternary (String name, AST child1, AST child2,
+    private DrawingTree layoutQuaternary (String name, boolean global, AST child1, AST child2,
 					  AST child3, AST child4) {
 	DrawingTree dt = layoutCaption(name);
-	child1.accept(this);
-	DrawingTree d1 = Tree;
-	child2.accept(this);
-	DrawingTree d2 = Tree;
-	child3.accept(this);
-	DrawingTree d3 = Tree;
-	child4.accept(this);
-	DrawingTree d4 = Tree;
+	DrawingTree d1 = child1.accept(this, global);
+	DrawingTree d2 = child2.accept(this, global);
+	DrawingTree d3 = child3.accept(this, global);
+	DrawingTree d4 = child4.accept(this, global);
 	dt.setChildren(new DrawingTree[] {d1, d2, d3, d4});
 	attachParent(dt, join(dt));
 	return dt;
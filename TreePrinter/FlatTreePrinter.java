@@ -0,0 +1,95 @@
+package MiniC.TreePrinter;
+
+import java.io.*;
+import MiniC.AstGen.FlatAST;
+import MiniC.AstGen.FlatVisitor;
+
+// Prints a FlatAST as the TreePrinterVisitor prints the AST, in one
+// pass over the node arrays. A list prints as the chain of sequence
+// nodes it stands for, each item one level deeper than the one before.
+public class FlatTreePrinter implements FlatVisitor {
+
+    private BufferedWriter out;
+    private final int INDENT_LEVEL = 3; //amount of indentation per level
+
+    // for the nodes on the path from the root: the level each prints
+    // at, and the number of its children entered so far
+    private int[] level = new int[64];
+    private int[] entered = new int[64];
+
+    public FlatTreePrinter(BufferedWriter out) {
+	this.out = out;
+    }
+
+    public boolean enter(FlatAST.Cursor c) {
+	assert(c.kind() != FlatAST.TYPE_DECL); // Can only occur in the StdEnvironment AST!
+	int d = c.depth();
+	if (d + 1 >= level.length) {
+	    level = java.util.Arrays.copyOf(level, 2 * level.length);
+	    entered = java.util.Arrays.copyOf(entered, level.length);
+	}
+	int at = 0;
+	if (d > 0) {
+	    int parent = level[d - 1];
+	    int i = entered[d - 1]++;
+	    if (FlatAST.isList(c.parentKind())) {
+		write(parent + i, sequenceName(c.parentKind()));
+		at = parent + i + 1;
+	    } else {
+		at = parent + 1;
+	    }
+	}
+	level[d] = at;
+	entered[d] = 0;
+	if (FlatAST.isList(c.kind())) {
+	    return true;
+	}
+	if (c.lexeme() != null) {
+	    write(at, c.kindName() + ": " + c.lexeme());
+	} else {
+	    write(at, c.kindName());
+	}
+	// the TreePrinterVisitor leaves out the parts of an ArrayType
+	return c.kind() != FlatAST.ARRAY_TYPE;
+    }
+
+    public void leave(FlatAST.Cursor c) {
+	if (FlatAST.isList(c.kind())) {
+	    write(level[c.depth()] + c.childCount(), emptyName(c.kind()));
+	}
+    }
+
+    private void write (int indent, String s) {
+	try {
+	    for (int i = 1; i <= indent*INDENT_LEVEL; i++) {
+	       out.write (" ");
+	    }
+	    out.write (s);
+	    out.write ("\n");
+	} catch (Exception e) {
+	    System.err.println("Error: " + e.getMessage());
+	    System.exit(1);
+	}
+    }
+
+    private static String sequenceName(int list) {
+	switch (list) {
+	case FlatAST.DECL_LIST: return "DeclSequence";
+	case FlatAST.FORMAL_PARAM_DECL_LIST: return "FormalParamDeclSequence";
+	case FlatAST.STMT_LIST: return "StmtSequence";
+	case FlatAST.ACTUAL_PARAM_LIST: return "ActualParamSequence";
+	default: return "ExprSequence";
+	}
+    }
+
+    private static String emptyName(int list) {
+	switch (list) {
+	case FlatAST.DECL_LIST: return "EmptyDecl";
+	case FlatAST.FORMAL_PARAM_DECL_LIST: return "EmptyFormalParamDecl";
+	case FlatAST.STMT_LIST: return "EmptyStmt";
+	case FlatAST.ACTUAL_PARAM_LIST: return "EmptyActualParam";
+	default: return "EmptyExpr";
+	}
+    }
+
+}
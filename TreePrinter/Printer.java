@@ -1,7 +1,9 @@
 package MiniC.TreePrinter;
 
 import java.io.*;
+import MiniC.AstGen.FlatAST;
 import MiniC.AstGen.Program;
+import MiniC.AstGen.TreeWalker;
 
 public class Printer {
 
@@ -10,9 +12,9 @@ public class Printer {
 	    // Create file 
 	    FileWriter fstream = new FileWriter(FileName);
 	    BufferedWriter out = new BufferedWriter(fstream);
-            // Create a TreePrinterVisitor and visit the AST:
+            // Create a TreePrinterVisitor and walk the AST with it:
             TreePrinterVisitor pv = new TreePrinterVisitor(out);
-            ast.accept(pv);
+            TreeWalker.walk(ast, pv);
 	    //Close the output stream
 	    out.close();
 	} catch (Exception e) {
@@ -22,4 +24,15 @@ public class Printer {
 	}
     }
 
+    public void print(FlatAST ast, String FileName) {
+	try {
+	    BufferedWriter out = new BufferedWriter(new FileWriter(FileName));
+	    ast.walk(new FlatTreePrinter(out));
+	    out.close();
+	} catch (Exception e) {
+	    System.err.println("Error: " + e.getMessage());
+	    System.exit(1);
+	}
+    }
+
 }
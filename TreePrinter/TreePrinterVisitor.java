@@ -3,7 +3,12 @@ package MiniC.TreePrinter;
 import java.io.*;
 import MiniC.AstGen.*;
 
-public class TreePrinterVisitor implements Visitor {
+// Prints each node of an AST on a line of its own, indented by its
+// depth, with the lexeme of a terminal after its name. The tree is
+// walked by TreeWalker.walk(), so it may be of any depth. A list prints
+// as the chain of sequence nodes it stands for, each item one level
+// deeper than the one before.
+public class TreePrinterVisitor implements WalkVisitor {
 
     private BufferedWriter out;
     private int indent;
@@ -27,299 +32,59 @@ public class TreePrinterVisitor implements Visitor {
 	}
     }
 
-    public void visit(Program x) {
-	write("Program\n");
-	indent++;
-	x.D.accept(this);
-    }
-
-    public void visit(EmptyDecl x) {
-	write("EmptyDecl\n");
-    }
-
-    public void visit(FunDecl x) {
-	write("FunDecl\n");
-	indent++;
-        x.tAST.accept(this);
-	x.idAST.accept(this);
-	x.paramsAST.accept(this);
-	x.stmtAST.accept(this);
-	indent--;
-    }
-
-    public void visit(TypeDecl x) {
-        assert(false); // Can only occur in the StdEnvironment AST!
-   }
-
-    public void visit(FormalParamDecl x) {
-	write("FormalParamDecl\n");
-	indent++;
-        x.astType.accept(this);
-        x.astIdent.accept(this);
-	indent--;
-    }
-
-    public void visit(FormalParamDeclSequence x) {
-	write("FormalParamDeclSequence\n");
-	indent++;
-	x.lAST.accept(this);
-	x.rAST.accept(this);
-	indent--;
-    }
-
-    public void visit(EmptyFormalParamDecl x) {
-	write("EmptyFormalParamDecl\n");
-    }
-
-    public void visit(StmtSequence x) {
-	write("StmtSequence\n");
-	indent++;
-	x.s1AST.accept(this);
-	x.s2AST.accept(this);
-	indent--;
-    }
-
-    public void visit(AssignStmt x) {
-	write("AssignStmt\n");
-	indent++;
-	x.lAST.accept(this);
-	x.rAST.accept(this);
-	indent--;
-    }
-
-    public void visit(IfStmt x) {
-	write("IfStmt\n");
-	indent++;
-	x.eAST.accept(this);
-	x.thenAST.accept(this);
-	if(x.elseAST != null) {
-	    x.elseAST.accept(this);
+    public boolean enter(AST x, TreeWalker w) {
+        assert(!(x instanceof TypeDecl)); // Can only occur in the StdEnvironment AST!
+	if (items(w.parent()) != null) {
+	    write(sequenceName(w.parent()));
+	    indent++;
+	}
+	if (items(x) != null) {
+	    return true;
+	}
+	if (x instanceof Terminal) {
+	    write(x.getClass().getSimpleName() + ": " + ((Terminal) x).Lexeme + "\n");
+	} else {
+	    write(x.getClass().getSimpleName() + "\n");
 	}
-	indent--;
-    }
-
-    public void visit(WhileStmt x) {
-	write ("WhileStmt\n");
-	indent++;
-	x.eAST.accept(this);
-	x.stmtAST.accept(this);
-	indent--;
-    }
-
-    public void visit(ForStmt x) {
-	write ("ForStmt\n");
-	indent++;
-	x.e1AST.accept(this);
-        x.e2AST.accept(this);
-	x.e3AST.accept(this);
-	x.stmtAST.accept(this);
-	indent--;
-    }
-
-    public void visit(ReturnStmt x) {
-	write("ReturnStmt\n");
-	indent++;
-        x.eAST.accept(this);
-	indent--;
-    }
-
-    public void visit(CompoundStmt x) {
-	write("CompoundStmt\n");
-	indent++;
-	x.astDecl.accept(this);
-	x.astStmt.accept(this);
-	indent--;
-    }
-
-    public void visit(EmptyStmt x) {
-	write("EmptyStmt\n");
-    }
-
-    public void visit(EmptyCompoundStmt x) {
-	write("EmptyCompoundStmt\n");
-    }
-
-    public void visit(CallStmt x) {
-	write("CallStmt\n");
-	indent++;
-	x.eAST.accept(this);
-	indent--;
-    }
-
-    public void visit(VarDecl x) {
-	write("VarDecl\n");
-	indent++;
-        x.tAST.accept(this);
-        x.idAST.accept(this);
-	x.eAST.accept(this);
-	indent--;
-    }
-
-    public void visit(DeclSequence x){
-	write("DeclSequence\n");
-	indent++;
-	x.D1.accept(this);
-	x.D2.accept(this);
-	indent--;
-    }
-
-    public void visit(VarExpr x) {
-	write("VarExpr\n");
-	indent++;
-	x.Ident.accept(this);
-	indent--;
-    }
-
-    public void visit(AssignExpr x) {
-	write("AssignExpr\n");
-	indent++;
-	x.lAST.accept(this);
-	x.rAST.accept(this);
-	indent--;
-    }
-
-    public void visit(IntExpr x) {
-	write("IntExpr\n");
-	indent++;
-	x.astIL.accept(this);
-	indent--;
-    }
-
-    public void visit(FloatExpr x) {
-	write("FloatExpr\n");
-	indent++;
-	x.astFL.accept(this);
-	indent--;
-    }
-
-    public void visit(BoolExpr x) {
-	write("BoolExpr\n");
-	indent++;
-	x.astBL.accept(this);
-	indent--;
-    }
-
-    public void visit(StringExpr x) {
-	write("StringExpr\n");
-	indent++;
-	x.astSL.accept(this);
-	indent--;
-    }
-
-    public void visit(ArrayExpr x) {
-	write("ArrayExpr\n");
-	indent++;
-	x.idAST.accept(this);
-	x.indexAST.accept(this);
-	indent--;
-    }
-
-    public void visit(BinaryExpr x) {
-	write("BinaryExpr\n");
-	indent++;
-	x.lAST.accept(this);
-	x.oAST.accept(this);
-	x.rAST.accept(this);
-	indent--;
-    }
-
-    public void visit(UnaryExpr x) {
-	write("UnaryExpr\n");
-	indent++;
-	x.oAST.accept(this);
-	x.eAST.accept(this);
-	indent--;
-    }
-
-    public void visit(EmptyExpr x) {
-	write("EmptyExpr\n");
-    }
-
-    public void visit(ActualParam x) {
-	write("ActualParam\n");
-	indent++;
-	x.pAST.accept(this);
-	indent--;
-    }
-
-    public void visit(EmptyActualParam x) {
-	write("EmptyActualParam\n");
-    }
-
-    public void visit(ActualParamSequence x) {
-	write("ActualParamSequence\n");
-	indent++;
-	x.lAST.accept(this);
-	x.rAST.accept(this);
-	indent--;
-    }
-
-    public void visit(CallExpr x) {
-	write("CallExpr\n");
-	indent++;
-	x.idAST.accept(this);
-	x.paramAST.accept(this);
-	indent--;
-    }
-
-    public void visit(ExprSequence x) {
-	write("ExprSequence\n");
 	indent++;
-	x.lAST.accept(this);
-	x.rAST.accept(this);
-	indent--;
-    }
-
-    public void visit(ID x) {
-	write("ID: " + x.Lexeme + "\n");
+	// the parts of an ArrayType are left out
+	return !(x instanceof ArrayType);
     }
 
-    public void visit(Operator x) {
-	write("Operator: " + x.Lexeme + "\n");
-    } 
-
-    public void visit(IntLiteral x) {
-	write("IntLiteral: " + x.Lexeme + "\n");
-    } 
-
-    public void visit(FloatLiteral x) {
-	write("FloatLiteral: " + x.Lexeme + "\n");
-    } 
-
-    public void visit(BoolLiteral x) {
-	write("BoolLiteral: " + x.Lexeme + "\n");
-    } 
-
-    public void visit(StringLiteral x) {
-	write("StringLiteral: " + x.Lexeme + "\n");
-    } 
-
-    public void visit(IntType x) {
-	write("IntType\n");
-    }
-
-    public void visit(FloatType x) {
-	write("FloatType\n");
-    }
-
-    public void visit(BoolType x) {
-	write("BoolType\n");
-    }
-
-    public void visit(StringType x) {
-	write("StringType\n");
+    public void leave(AST x, TreeWalker w) {
+	java.util.List<? extends AST> items = items(x);
+	if (items != null) {
+	    write(emptyName(x));
+	    indent -= items.size();
+	} else {
+	    indent--;
+	}
     }
 
-    public void visit(VoidType x) {
-	write("VoidType\n");
+    // The items of x if it is a list, else null.
+    private static java.util.List<? extends AST> items(AST x) {
+	if (x instanceof DeclList) return ((DeclList) x).items;
+	if (x instanceof FormalParamDeclList) return ((FormalParamDeclList) x).items;
+	if (x instanceof StmtList) return ((StmtList) x).items;
+	if (x instanceof ActualParamList) return ((ActualParamList) x).items;
+	if (x instanceof ExprList) return ((ExprList) x).items;
+	return null;
     }
 
-    public void visit(ArrayType x) {
-	write("ArrayType\n");
+    private static String sequenceName(AST list) {
+	if (list instanceof DeclList) return "DeclSequence\n";
+	if (list instanceof FormalParamDeclList) return "FormalParamDeclSequence\n";
+	if (list instanceof StmtList) return "StmtSequence\n";
+	if (list instanceof ActualParamList) return "ActualParamSequence\n";
+	return "ExprSequence\n";
     }
 
-    public void visit(ErrorType x) {
-	write("ErrorType\n");
+    private static String emptyName(AST list) {
+	if (list instanceof DeclList) return "EmptyDecl\n";
+	if (list instanceof FormalParamDeclList) return "EmptyFormalParamDecl\n";
+	if (list instanceof StmtList) return "EmptyStmt\n";
+	if (list instanceof ActualParamList) return "EmptyActualParam\n";
+	return "EmptyExpr\n";
     }
 
 }
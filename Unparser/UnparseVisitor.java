@@ -3,7 +3,11 @@ package MiniC.Unparser;
 import java.io.*;
 import MiniC.AstGen.*;
 
-public class UnparseVisitor implements Visitor {
+// Writes an AST back out as MiniC source. The tree is walked by
+// TreeWalker.walk(), each visit returning the child to write next, so
+// it may be of any depth; what goes between the children is written
+// at the step after each of them.
+public class UnparseVisitor implements ContextVisitor<AST, TreeWalker> {
 
     private BufferedWriter out;
     private int indent;
@@ -35,324 +39,500 @@ public class UnparseVisitor implements Visitor {
 	}
     }
 
-    public void visit(Program x) {
-	x.D.accept(this);
+    public AST visit(Program x, TreeWalker w) {
+	if (w.step() == 0) {
+	    return x.D;
+	}
 	write("\n");
+	return null;
     }
 
-    public void visit(EmptyDecl x) {
+    public AST visit(EmptyDecl x, TreeWalker w) {
+	return null;
     }
 
-    public void visit(FunDecl x) {
-	if (!IsFirst) {
-	    newline();
-	    newline();
+    public AST visit(ErrorDecl x, TreeWalker w) {
+	return null;
+    }
+
+    public AST visit(FunDecl x, TreeWalker w) {
+	switch (w.step()) {
+	case 0:
+	    if (!IsFirst) {
+		newline();
+		newline();
+	    }
+	    IsFirst = false;
+	    IsGlobal = false;
+	    return x.tAST;
+	case 1:
+	    write(" ");
+	    return x.idAST;
+	case 2:
+	    write ("(");
+	    return x.paramsAST;
+	case 3:
+	    write (")");
+	    return x.stmtAST;
 	}
-	IsFirst = false;
-        IsGlobal = false;
-        x.tAST.accept(this);
-	write(" ");
-	x.idAST.accept(this);
-        write ("(");
-	x.paramsAST.accept(this);
-	write (")");
-	x.stmtAST.accept(this);
 	IsGlobal = true;
+	return null;
     }
 
-    public void visit(TypeDecl x) {
+    public AST visit(TypeDecl x, TreeWalker w) {
         assert(false); // only occurs in the StdEnvironment AST!
-        //x.tAST.accept(this);
+        return null;
     }
 
-    public void visit(FormalParamDecl x) {
+    public AST visit(FormalParamDecl x, TreeWalker w) {
         if (x.astType instanceof ArrayType) {
-	    ((ArrayType)x.astType).astType.accept(this);
-	    write (" ");
-	    x.astIdent.accept(this);
-	    write("[");
-	    ((ArrayType)x.astType).astExpr.accept(this);
-	    write("]");
+	    switch (w.step()) {
+	    case 0:
+		return ((ArrayType)x.astType).astType;
+	    case 1:
+		write (" ");
+		return x.astIdent;
+	    case 2:
+		write("[");
+		return ((ArrayType)x.astType).astExpr;
+	    case 3:
+		write("]");
+	    }
 	} else {
-	    x.astType.accept(this);
-	    write(" ");
-	    x.astIdent.accept(this);
+	    switch (w.step()) {
+	    case 0:
+		return x.astType;
+	    case 1:
+		write(" ");
+		return x.astIdent;
+	    }
 	}
+	return null;
     }
 
-    public void visit(FormalParamDeclSequence x) {
-	x.lAST.accept(this);
-	write(", ");
-	x.rAST.accept(this);
+    public AST visit(FormalParamDeclSequence x, TreeWalker w) {
+	switch (w.step()) {
+	case 0:
+	    return x.lAST;
+	case 1:
+	    write(", ");
+	    return x.rAST;
+	}
+	return null;
     }
 
-    public void visit(EmptyFormalParamDecl x) {
+    public AST visit(FormalParamDeclList x, TreeWalker w) {
+	return items(x.items, ", ", w);
     }
 
-    public void visit(StmtSequence x) {
-	x.s1AST.accept(this);
-	x.s2AST.accept(this);
+    public AST visit(EmptyFormalParamDecl x, TreeWalker w) {
+	return null;
     }
 
-    public void visit(AssignStmt x) {
-	newline();
-	x.lAST.accept(this);
-	write (" = ");
-	x.rAST.accept(this);
-	write (";");
+    public AST visit(StmtSequence x, TreeWalker w) {
+	switch (w.step()) {
+	case 0: return x.s1AST;
+	case 1: return x.s2AST;
+	}
+	return null;
     }
 
-    public void visit(IfStmt x) {
-	newline();
-	write("if (");
-	x.eAST.accept(this);
-	write(")");
-        if(!(x.thenAST instanceof CompoundStmt)) {
-	    indent++;
-	}
-	x.thenAST.accept(this);
-        if(!(x.thenAST instanceof CompoundStmt)) {
-	    indent--;
+    public AST visit(StmtList x, TreeWalker w) {
+	return items(x.items, "", w);
+    }
+
+    public AST visit(AssignStmt x, TreeWalker w) {
+	switch (w.step()) {
+	case 0:
+	    newline();
+	    return x.lAST;
+	case 1:
+	    write (" = ");
+	    return x.rAST;
 	}
-	if(x.elseAST != null) {
+	write (";");
+	return null;
+    }
+
+    public AST visit(IfStmt x, TreeWalker w) {
+	switch (w.step()) {
+	case 0:
 	    newline();
-	    write("else");
-            if(!(x.elseAST instanceof CompoundStmt)) {
+	    write("if (");
+	    return x.eAST;
+	case 1:
+	    write(")");
+	    if(!(x.thenAST instanceof CompoundStmt)) {
 		indent++;
 	    }
-	    x.elseAST.accept(this);
-            if(!(x.elseAST instanceof CompoundStmt)) {
+	    return x.thenAST;
+	case 2:
+	    if(!(x.thenAST instanceof CompoundStmt)) {
 		indent--;
 	    }
+	    if(x.elseAST != null) {
+		newline();
+		write("else");
+		if(!(x.elseAST instanceof CompoundStmt)) {
+		    indent++;
+		}
+		return x.elseAST;
+	    }
+	    return null;
 	}
+	if(!(x.elseAST instanceof CompoundStmt)) {
+	    indent--;
+	}
+	return null;
     }
 
-    public void visit(WhileStmt x) {
-	newline();
-	write ("while (");
-	x.eAST.accept(this);
-	write(")");
-	x.stmtAST.accept(this);
+    public AST visit(WhileStmt x, TreeWalker w) {
+	switch (w.step()) {
+	case 0:
+	    newline();
+	    write ("while (");
+	    return x.eAST;
+	case 1:
+	    write(")");
+	    return x.stmtAST;
+	}
+	return null;
     }
 
-    public void visit(ForStmt x) {
-	newline();
-	write ("for (");
-	x.e1AST.accept(this);
-	write(";");
-	if(!(x.e2AST instanceof EmptyExpr)) {
-	    write(" ");
-	    x.e2AST.accept(this);
-	}
-	write(";");
-	if(!(x.e3AST instanceof EmptyExpr)) {
-	    write(" ");
-	    x.e3AST.accept(this);
+    // An EmptyExpr writes nothing, so the parts of a for statement
+    // are walked whether empty or not.
+    public AST visit(ForStmt x, TreeWalker w) {
+	switch (w.step()) {
+	case 0:
+	    newline();
+	    write ("for (");
+	    return x.e1AST;
+	case 1:
+	    write(";");
+	    if(!(x.e2AST instanceof EmptyExpr)) {
+		write(" ");
+	    }
+	    return x.e2AST;
+	case 2:
+	    write(";");
+	    if(!(x.e3AST instanceof EmptyExpr)) {
+		write(" ");
+	    }
+	    return x.e3AST;
+	case 3:
+	    write(")");
+	    return x.stmtAST;
 	}
-	write(")");
-	x.stmtAST.accept(this);
+	return null;
     }
 
-    public void visit(ReturnStmt x) {
-	newline();
-	write("return");
-	if (!(x.eAST instanceof EmptyExpr)) {
-	    write (" ");
-	    x.eAST.accept(this);
+    public AST visit(ReturnStmt x, TreeWalker w) {
+	if (w.step() == 0) {
+	    newline();
+	    write("return");
+	    if (!(x.eAST instanceof EmptyExpr)) {
+		write (" ");
+	    }
+	    return x.eAST;
 	}
 	write(";");
+	return null;
     }
 
-    public void visit(CompoundStmt x) {
-	newline();
-	write("{");
-	indent++;
-	x.astDecl.accept(this);
-	x.astStmt.accept(this);
+    public AST visit(CompoundStmt x, TreeWalker w) {
+	switch (w.step()) {
+	case 0:
+	    newline();
+	    write("{");
+	    indent++;
+	    return x.astDecl;
+	case 1:
+	    return x.astStmt;
+	}
 	indent--;
 	newline();
 	write("}");
+	return null;
+    }
+
+    public AST visit(EmptyStmt x, TreeWalker w) {
+	return null;
     }
 
-    public void visit(EmptyStmt x) {
+    public AST visit(ErrorStmt x, TreeWalker w) {
+	return null;
     }
 
-    public void visit(EmptyCompoundStmt x) {
+    public AST visit(EmptyCompoundStmt x, TreeWalker w) {
 	write("EmptyCompoundStmt\n");
+	return null;
     }
 
-    public void visit(CallStmt x) {
-	newline();
-	x.eAST.accept(this);
+    public AST visit(CallStmt x, TreeWalker w) {
+	if (w.step() == 0) {
+	    newline();
+	    return x.eAST;
+	}
 	write(";");
+	return null;
     }
 
-    public void visit(VarDecl x) {
-	if (IsGlobal && !IsFirst) {
-  	    newline();
-            newline();
-	} else if (!IsGlobal && !IsFirst) {
-	    newline();
+    public AST visit(VarDecl x, TreeWalker w) {
+	if (w.step() == 0) {
+	    if (IsGlobal && !IsFirst) {
+		newline();
+		newline();
+	    } else if (!IsGlobal && !IsFirst) {
+		newline();
+	    }
+	    IsFirst = false;
 	}
-	IsFirst = false;
         if (x.tAST instanceof ArrayType) {
-	    ((ArrayType)x.tAST).astType.accept(this);
-	    write (" ");
-	    x.idAST.accept(this);
-	    write("[");
-	    ((ArrayType)x.tAST).astExpr.accept(this);
-	    write("]");
+	    switch (w.step()) {
+	    case 0:
+		return ((ArrayType)x.tAST).astType;
+	    case 1:
+		write (" ");
+		return x.idAST;
+	    case 2:
+		write("[");
+		return ((ArrayType)x.tAST).astExpr;
+	    case 3:
+		write("]");
+		if (!(x.eAST instanceof EmptyExpr)) {
+		    write(" = {");
+		}
+		return x.eAST;
+	    }
 	    if (!(x.eAST instanceof EmptyExpr)) {
-		write(" = {");
-		x.eAST.accept(this);
-   	        write("}");
+		write("}");
 	    }
 	} else {
-	    x.tAST.accept(this);
-	    write (" ");
-	    x.idAST.accept(this);
-	    if (!(x.eAST instanceof EmptyExpr)) {
-		write(" = ");
-		x.eAST.accept(this);
+	    switch (w.step()) {
+	    case 0:
+		return x.tAST;
+	    case 1:
+		write (" ");
+		return x.idAST;
+	    case 2:
+		if (!(x.eAST instanceof EmptyExpr)) {
+		    write(" = ");
+		}
+		return x.eAST;
 	    }
 	}
 	write(";");
+	return null;
     }
 
-    public void visit(DeclSequence x){
-	x.D1.accept(this);
-	x.D2.accept(this);
+    public AST visit(DeclSequence x, TreeWalker w) {
+	switch (w.step()) {
+	case 0: return x.D1;
+	case 1: return x.D2;
+	}
+	return null;
     }
 
-    public void visit(VarExpr x) {
-	x.Ident.accept(this);
+    public AST visit(DeclList x, TreeWalker w) {
+	return items(x.items, "", w);
     }
 
-    public void visit(AssignExpr x) {
-	x.lAST.accept(this);
-	write (" = ");
-	x.rAST.accept(this);
+    public AST visit(VarExpr x, TreeWalker w) {
+	return (w.step() == 0) ? x.Ident : null;
     }
 
-    public void visit(IntExpr x) {
-	x.astIL.accept(this);
+    public AST visit(AssignExpr x, TreeWalker w) {
+	switch (w.step()) {
+	case 0:
+	    return x.lAST;
+	case 1:
+	    write (" = ");
+	    return x.rAST;
+	}
+	return null;
     }
 
-    public void visit(FloatExpr x) {
-	x.astFL.accept(this);
+    public AST visit(IntExpr x, TreeWalker w) {
+	return (w.step() == 0) ? x.astIL : null;
     }
 
-    public void visit(BoolExpr x) {
-	x.astBL.accept(this);
+    public AST visit(FloatExpr x, TreeWalker w) {
+	return (w.step() == 0) ? x.astFL : null;
     }
 
-    public void visit(StringExpr x) {
-	x.astSL.accept(this);
+    public AST visit(BoolExpr x, TreeWalker w) {
+	return (w.step() == 0) ? x.astBL : null;
     }
 
-    public void visit(ArrayExpr x) {
-	x.idAST.accept(this);
-	write("[");
-	x.indexAST.accept(this);
+    public AST visit(StringExpr x, TreeWalker w) {
+	return (w.step() == 0) ? x.astSL : null;
+    }
+
+    public AST visit(ArrayExpr x, TreeWalker w) {
+	switch (w.step()) {
+	case 0:
+	    return x.idAST;
+	case 1:
+	    write("[");
+	    return x.indexAST;
+	}
 	write("]");
+	return null;
     }
 
-    public void visit(BinaryExpr x) {
-	write("(");
-	x.lAST.accept(this);
-	write(" ");
-	x.oAST.accept(this);
-	write(" ");
-	x.rAST.accept(this);
+    public AST visit(BinaryExpr x, TreeWalker w) {
+	switch (w.step()) {
+	case 0:
+	    write("(");
+	    return x.lAST;
+	case 1:
+	    write(" ");
+	    return x.oAST;
+	case 2:
+	    write(" ");
+	    return x.rAST;
+	}
 	write(")");
+	return null;
     }
 
-    public void visit(UnaryExpr x) {
-        write("(");
-	x.oAST.accept(this);
-	x.eAST.accept(this);
+    public AST visit(UnaryExpr x, TreeWalker w) {
+	switch (w.step()) {
+	case 0:
+	    write("(");
+	    return x.oAST;
+	case 1:
+	    return x.eAST;
+	}
 	write(")");
+	return null;
     }
 
-    public void visit(EmptyExpr x) {
+    public AST visit(EmptyExpr x, TreeWalker w) {
+	return null;
     }
 
-    public void visit(ActualParam x) {
-	x.pAST.accept(this);
+    public AST visit(ActualParam x, TreeWalker w) {
+	return (w.step() == 0) ? x.pAST : null;
     }
 
-    public void visit(EmptyActualParam x) {
+    public AST visit(EmptyActualParam x, TreeWalker w) {
+	return null;
     }
 
-    public void visit(ActualParamSequence x) {
-	x.lAST.accept(this);
-	write(", ");
-	x.rAST.accept(this);
+    public AST visit(ActualParamSequence x, TreeWalker w) {
+	switch (w.step()) {
+	case 0:
+	    return x.lAST;
+	case 1:
+	    write(", ");
+	    return x.rAST;
+	}
+	return null;
     }
 
-    public void visit(CallExpr x) {
-	x.idAST.accept(this);
-	write("(");
-	x.paramAST.accept(this);
+    public AST visit(ActualParamList x, TreeWalker w) {
+	return items(x.items, ", ", w);
+    }
+
+    public AST visit(CallExpr x, TreeWalker w) {
+	switch (w.step()) {
+	case 0:
+	    return x.idAST;
+	case 1:
+	    write("(");
+	    return x.paramAST;
+	}
 	write(")");
+	return null;
     }
 
-    public void visit(ExprSequence x) {
-	x.lAST.accept(this);
-	write(", ");
-	x.rAST.accept(this);
+    public AST visit(ExprSequence x, TreeWalker w) {
+	switch (w.step()) {
+	case 0:
+	    return x.lAST;
+	case 1:
+	    write(", ");
+	    return x.rAST;
+	}
+	return null;
+    }
+
+    public AST visit(ExprList x, TreeWalker w) {
+	return items(x.items, ", ", w);
+    }
+
+    // The items of a list one by one, each followed by separator.
+    private AST items(java.util.List<? extends AST> items, String separator, TreeWalker w) {
+	if (w.step() > 0) {
+	    write(separator);
+	}
+	return (w.step() < items.size()) ? items.get(w.step()) : null;
     }
 
-    public void visit(ID x) {
+    public AST visit(ID x, TreeWalker w) {
 	write(x.Lexeme);
+	return null;
     }
 
-    public void visit(Operator x) {
+    public AST visit(Operator x, TreeWalker w) {
 	write(x.Lexeme);
-    } 
+	return null;
+    }
 
-    public void visit(IntLiteral x) {
+    public AST visit(IntLiteral x, TreeWalker w) {
 	write(x.Lexeme);
-    } 
+	return null;
+    }
 
-    public void visit(FloatLiteral x) {
+    public AST visit(FloatLiteral x, TreeWalker w) {
 	write(x.Lexeme);
-    } 
+	return null;
+    }
 
-    public void visit(BoolLiteral x) {
+    public AST visit(BoolLiteral x, TreeWalker w) {
 	write(x.Lexeme);
-    } 
+	return null;
+    }
 
-    public void visit(StringLiteral x) {
+    public AST visit(StringLiteral x, TreeWalker w) {
 	write(x.Lexeme);
-    } 
+	return null;
+    }
 
-    public void visit(IntType x) {
+    public AST visit(IntType x, TreeWalker w) {
 	write ("int");
+	return null;
     }
 
-    public void visit(FloatType x) {
+    public AST visit(FloatType x, TreeWalker w) {
 	write ("float");
+	return null;
     }
 
-    public void visit(BoolType x) {
+    public AST visit(BoolType x, TreeWalker w) {
 	write ("bool");
+	return null;
     }
 
-    public void visit(StringType x) {
+    public AST visit(StringType x, TreeWalker w) {
 	assert(false);
+	return null;
     }
 
-    public void visit(VoidType x) {
+    public AST visit(VoidType x, TreeWalker w) {
 	write ("void");
+	return null;
     }
 
-    public void visit(ArrayType x) {
+    public AST visit(ArrayType x, TreeWalker w) {
 	assert(false); //never called directly.
+	return null;
     }
 
-    public void visit(ErrorType x) {
+    public AST visit(ErrorType x, TreeWalker w) {
 	write ("ErrorType");
+	return null;
     }
 
 }
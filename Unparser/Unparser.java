@@ -2,6 +2,7 @@ package MiniC.Unparser;
 
 import java.io.*;
 import MiniC.AstGen.Program;
+import MiniC.AstGen.TreeWalker;
 
 public class Unparser {
 
@@ -12,7 +13,7 @@ public class Unparser {
 	    BufferedWriter out = new BufferedWriter(fstream);
             // Create an UnparseVisitor and visit the AST:
             UnparseVisitor uv = new UnparseVisitor(out);
-            ast.accept(uv);
+            TreeWalker.walk(ast, uv, new TreeWalker());
 	    //Close the output stream
 	    out.close();
 	} catch (Exception e) {
@@ -17,7 +17,7 @@ echo "generated "`date` >>$report
 echo "Testing the parser..."
 for file in $tst/c*.mc
 do
-    all=$(( $all + 2 ))
+    all=$(( $all + 3 ))
     f=`basename $file`
     java MiniC.MiniC -t $ans/$f.ast $file > $ans/$f.ast.report 2>&1
     diff -u --ignore-all-space --ignore-blank-lines $ans/$f.ast $sol/$f.ast > $ans/diff_$f.ast 2>&1
@@ -46,6 +46,20 @@ do
         rm -rf $ans/diff_$f.u $ans/$f.u $ans/$f.u.report
         ok=$(( $ok + 1 ))
     fi
+
+    java MiniC.Parser.FlatCheck $file > $ans/$f.flat.report 2>&1
+    grep -q "same as the parse" $ans/$f.flat.report
+    if [ "$?" -ne 0 ]
+    then
+        echo -n "-"
+        echo "$f FlatAST round trip failed" >> $report
+
+    else
+        echo -n "+"
+        echo "$f FlatAST round trip succeded" >> $report
+        rm -rf $ans/$f.flat.report
+        ok=$(( $ok + 1 ))
+    fi
 done
 echo
 echo "Testing finished, pls. consult the test report in $ans."
@@ -0,0 +1,64 @@
+#!/bin/bash
+
+# Runs the AST and error recovery tests with the parallel scanner and
+# parser, their chunk thresholds lowered so that even these small
+# sources are split. r5.mc has errors in some of its chunks, which
+# makes the parser parse it again in one piece.
+# The ASTs are compared with those of a sequential run, the error
+# output with the recovery goldens.
+
+mkdir ./Results/$1
+ast=./Parser/tst/base/AST_testcases
+rec=./Parser/tst/base/REC_testcases
+recsol=./Parser/tst/base/REC_solutions
+ans=./Results/$1
+report=$ans/report.txt
+all=0
+ok=0
+opts="-DMiniC.pscan.minChunk=1 -DMiniC.pparse.minChunk=1"
+mode="-pscan -pparse"
+
+echo "Chunk Test Report" >$report
+echo "generated "`date` >>$report
+#
+# Run testcases:
+#
+echo "Testing parallel scanning and parsing in small chunks..."
+for file in $ast/c*.mc
+do
+    all=$(( $all + 1 ))
+    f=`basename $file`
+    java MiniC.MiniC -t $ans/$f.seq.ast $file > /dev/null 2>&1
+    java $opts MiniC.MiniC $mode -t $ans/$f.ast $file > $ans/$f.ast.report 2>&1
+    diff -u $ans/$f.seq.ast $ans/$f.ast > $ans/diff_$f.ast 2>&1
+    if [ "$?" -ne 0 ]
+    then
+        echo -n "-"
+        echo "$f AST failed" >> $report
+    else
+        echo -n "+"
+        echo "$f AST succeded" >> $report
+        rm -rf $ans/diff_$f.ast $ans/$f.seq.ast $ans/$f.ast $ans/$f.ast.report
+        ok=$(( $ok + 1 ))
+    fi
+done
+for file in $rec/r*.mc
+do
+    all=$(( $all + 1 ))
+    f=`basename $file`
+    java $opts MiniC.MiniC $mode $file > $ans/$f.out 2>&1
+    diff -u $recsol/$f.out $ans/$f.out > $ans/diff_$f.out 2>&1
+    if [ "$?" -ne 0 ]
+    then
+        echo -n "-"
+        echo "$f errors failed" >> $report
+    else
+        echo -n "+"
+        echo "$f errors succeded" >> $report
+        rm -rf $ans/diff_$f.out $ans/$f.out
+        ok=$(( $ok + 1 ))
+    fi
+done
+echo
+echo "Testing finished, pls. consult the test report in $ans."
+echo "$ok out of $all testcases succeeded."
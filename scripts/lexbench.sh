@@ -0,0 +1,5 @@
+#!/bin/bash
+
+# Scaling benchmark of the parallel scanner:
+#   scripts/lexbench.sh file [maxThreads [runs]]
+java MiniC.Scanner.LexBenchmark "$@"
@@ -0,0 +1,27 @@
+#!/bin/bash
+
+# Token golden tests for UTF-8 sources: a byte order mark, multibyte
+# identifiers and strings, and malformed byte sequences. Output is
+# written as UTF-8 so the lexemes can be compared byte for byte.
+
+tst=./Scanner/tst/base/testcases
+sol=./Scanner/tst/base/solutions
+ans=./Scanner/tst/base/answer
+
+mkdir -p $ans
+for file in $tst/u*.txt
+do
+     f=`basename $file`
+     echo "$file"
+     java -Dfile.encoding=UTF-8 MiniC.MiniC -lex $file > $ans/s_$f
+     diff -u $ans/s_$f $sol/s_$f > /dev/null
+     if [ "$?" -ne 0 ]
+     then
+		 echo
+		 echo -e "\nfile $f ..."
+		 echo -e "test failed\n"
+		 exit
+     fi
+done
+
+echo -e "\nTest complete. All test-cases succeeded."
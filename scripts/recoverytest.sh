@@ -0,0 +1,52 @@
+#!/bin/bash
+#
+# Tests syntax error recovery: each testcase is compiled with the
+# default error cap (the first error ends the parse) and with
+# "-maxerrors 3", and the whole output, error messages included, is
+# compared with the solution.
+#
+
+mkdir ./Results/$1
+tst=./Parser/tst/base/REC_testcases
+sol=./Parser/tst/base/REC_solutions
+ans=./Results/$1
+report=$ans/report.txt
+all=0
+ok=0
+
+echo "Error Recovery Test Report" >$report
+echo "generated "`date` >>$report
+#
+# Run testcases:
+#
+echo "Testing error recovery..."
+for file in $tst/r*.mc
+do
+    f=`basename $file`
+    for cap in 1 3
+    do
+        all=$(( $all + 1 ))
+        if [ $cap -eq 1 ]
+        then
+            out=$f.out
+            java MiniC.MiniC $file > $ans/$out 2>&1
+        else
+            out=$f.m$cap.out
+            java MiniC.MiniC -maxerrors $cap $file > $ans/$out 2>&1
+        fi
+        diff -u --ignore-all-space --ignore-blank-lines $sol/$out $ans/$out > $ans/diff_$out 2>&1
+        if [ "$?" -ne 0 ]
+        then
+            echo -n "-"
+            echo "$out failed" >> $report
+        else
+            echo -n "+"
+            echo "$out succeded" >> $report
+            rm -rf $ans/diff_$out $ans/$out
+            ok=$(( $ok + 1 ))
+        fi
+    done
+done
+echo
+echo "Testing finished, pls. consult the test report in $ans."
+echo "$ok out of $all testcases succeeded."
@@ -0,0 +1,40 @@
+#!/bin/bash
+
+# Applies the edits of each EDIT_testcases/pN.edits to pN.mc with an
+# IncrementalParser, and compares the checks of ReparseCheck with the
+# goldens.
+
+mkdir ./Results/$1
+tst=./Parser/tst/base/EDIT_testcases
+sol=./Parser/tst/base/EDIT_solutions
+ans=./Results/$1
+report=$ans/report.txt
+all=0
+ok=0
+
+echo "Reparse Test Report" >$report
+echo "generated "`date` >>$report
+#
+# Run testcases:
+#
+echo "Testing incremental parsing..."
+for file in $tst/p*.mc
+do
+    all=$(( $all + 1 ))
+    f=`basename $file .mc`
+    java MiniC.Parser.ReparseCheck $file $tst/$f.edits > $ans/$f.out 2>&1
+    diff -u $sol/$f.out $ans/$f.out > $ans/diff_$f.out 2>&1
+    if [ "$?" -ne 0 ]
+    then
+        echo -n "-"
+        echo "$f failed" >> $report
+    else
+        echo -n "+"
+        echo "$f succeded" >> $report
+        rm -rf $ans/diff_$f.out $ans/$f.out
+        ok=$(( $ok + 1 ))
+    fi
+done
+echo
+echo "Testing finished, pls. consult the test report in $ans."
+echo "$ok out of $all testcases succeeded."
@@ -0,0 +1,39 @@
+#!/bin/bash
+
+# Applies the edits of each EDIT_testcases/eN.edits to eN.mc, rescanning
+# after each, and compares the checks of RescanCheck with the goldens.
+
+mkdir ./Results/$1
+tst=./Scanner/tst/base/EDIT_testcases
+sol=./Scanner/tst/base/EDIT_solutions
+ans=./Results/$1
+report=$ans/report.txt
+all=0
+ok=0
+
+echo "Rescan Test Report" >$report
+echo "generated "`date` >>$report
+#
+# Run testcases:
+#
+echo "Testing incremental scanning..."
+for file in $tst/e*.mc
+do
+    all=$(( $all + 1 ))
+    f=`basename $file .mc`
+    java -Dfile.encoding=UTF-8 MiniC.Scanner.RescanCheck $file $tst/$f.edits > $ans/$f.out 2>&1
+    diff -u $sol/$f.out $ans/$f.out > $ans/diff_$f.out 2>&1
+    if [ "$?" -ne 0 ]
+    then
+        echo -n "-"
+        echo "$f failed" >> $report
+    else
+        echo -n "+"
+        echo "$f succeded" >> $report
+        rm -rf $ans/diff_$f.out $ans/$f.out
+        ok=$(( $ok + 1 ))
+    fi
+done
+echo
+echo "Testing finished, pls. consult the test report in $ans."
+echo "$ok out of $all testcases succeeded."
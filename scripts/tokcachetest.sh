@@ -0,0 +1,93 @@
+#!/bin/bash
+
+# Compiles each case with -tokcache through the paths of the token
+# cache: a miss that writes the cache, a hit that keeps it, a stale
+# cache after the source changed, and a truncated and a corrupted
+# cache, which must both be rewritten. Every run must give the output
+# and code of a run without the cache; a cache that is kept is the
+# same file as before (same inode), one that is rewritten is new.
+
+mkdir ./Results/$1
+cases="./CodeGen/tst/base/testcases/*.mc ./Parser/tst/base/REC_testcases/r1.mc
+       ./Scanner/tst/base/testcases/c37.txt ./Scanner/tst/base/testcases/c70.txt"
+ans=./Results/$1
+work=$ans/work
+report=$ans/report.txt
+all=0
+ok=0
+
+echo "Token Cache Test Report" >$report
+echo "generated "`date` >>$report
+
+# compile $f in $work with the given options, output and code to $ans/$out
+run() {
+    out=$1
+    shift
+    rm -f $work/*.j
+    (cd $work && java MiniC.MiniC "$@" $f > ../$out 2>&1; cat *.j >> ../$out 2>/dev/null)
+}
+
+# record the check $1 as passed if the rest of the arguments succeed
+check() {
+    what=$1
+    shift
+    all=$(( $all + 1 ))
+    if "$@" > /dev/null 2>&1
+    then
+        echo -n "+"
+        echo "$f $what succeded" >> $report
+        ok=$(( $ok + 1 ))
+    else
+        echo -n "-"
+        echo "$f $what failed" >> $report
+    fi
+}
+
+inode() {
+    ls -i $work/$f.tokens | cut -d' ' -f1
+}
+
+#
+# Run testcases:
+#
+echo "Testing the token cache..."
+for file in $cases
+do
+    f=`basename $file`
+    rm -rf $work
+    mkdir $work
+    cp $file $work/$f
+    run $f.plain
+
+    run $f.miss -tokcache
+    check "miss" cmp $ans/$f.plain $ans/$f.miss
+    before=`inode`
+
+    run $f.hit -tokcache
+    check "hit" cmp $ans/$f.plain $ans/$f.hit
+    check "hit keeps cache" test "$before" = "`inode`"
+
+    echo "// edited" >> $work/$f
+    run $f.plain
+    before=`inode`
+    run $f.stale -tokcache
+    check "stale" cmp $ans/$f.plain $ans/$f.stale
+    check "stale rewrites cache" test "$before" != "`inode`"
+    cp $work/$f.tokens $ans/$f.tokens
+
+    head -c 100 $ans/$f.tokens > $work/$f.tokens
+    run $f.truncated -tokcache
+    check "truncated" cmp $ans/$f.plain $ans/$f.truncated
+    check "truncated rewrites cache" cmp $ans/$f.tokens $work/$f.tokens
+
+    dd if=/dev/zero of=$work/$f.tokens bs=1 seek=60 count=8 conv=notrunc 2>/dev/null
+    run $f.corrupt -tokcache
+    check "corrupt" cmp $ans/$f.plain $ans/$f.corrupt
+    check "corrupt rewrites cache" cmp $ans/$f.tokens $work/$f.tokens
+
+    rm -f $ans/$f.*
+done
+rm -rf $work
+echo
+echo "Testing finished, pls. consult the test report in $ans."
+echo "$ok out of $all testcases succeeded."